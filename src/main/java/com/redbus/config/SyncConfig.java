@@ -0,0 +1,18 @@
+package com.redbus.config;
+
+import com.redbus.util.Throttle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SyncConfig {
+    
+    // One budget for every schedule sync that scans the table: the partitions of a full resync
+    // and the incremental watermark pass draw from it together, so running both at once cannot
+    // exceed the configured rate
+    @Bean
+    public Throttle syncThrottle(@Value("${app.search.sync.max-schedules-per-second:0}") double maxSchedulesPerSecond) {
+        return new Throttle(maxSchedulesPerSecond);
+    }
+}
@@ -22,6 +22,7 @@ public class BusManagementController {
     private final BusService busService;
     private final RouteService routeService;
     private final ScheduleService scheduleService;
+    private final BoardingPointService boardingPointService;
     
     // Bus Operator Management
     @GetMapping("/operators")
@@ -131,6 +132,31 @@ public class BusManagementController {
         return ResponseEntity.noContent().build();
     }
     
+    // Boarding Point Management
+    @GetMapping("/routes/{routeId}/boarding-points")
+    public ResponseEntity<List<BoardingPoint>> getBoardingPointsByRoute(@PathVariable Long routeId) {
+        return ResponseEntity.ok(boardingPointService.getBoardingPointsByRoute(routeId));
+    }
+    
+    @PostMapping("/routes/{routeId}/boarding-points")
+    public ResponseEntity<BoardingPoint> createBoardingPoint(@PathVariable Long routeId,
+                                                             @Valid @RequestBody BoardingPointRequest request) {
+        BoardingPoint boardingPoint = boardingPointService.createBoardingPoint(routeId, request.toBoardingPoint());
+        return ResponseEntity.status(HttpStatus.CREATED).body(boardingPoint);
+    }
+    
+    @PutMapping("/boarding-points/{id}")
+    public ResponseEntity<BoardingPoint> updateBoardingPoint(@PathVariable Long id,
+                                                             @Valid @RequestBody BoardingPointRequest request) {
+        return ResponseEntity.ok(boardingPointService.updateBoardingPoint(id, request.toBoardingPoint()));
+    }
+    
+    @DeleteMapping("/boarding-points/{id}")
+    public ResponseEntity<Void> deleteBoardingPoint(@PathVariable Long id) {
+        boardingPointService.deleteBoardingPoint(id);
+        return ResponseEntity.noContent().build();
+    }
+    
     // Schedule Management
     @GetMapping("/schedules")
     public ResponseEntity<List<Schedule>> getAllSchedules() {
@@ -2,11 +2,22 @@ package com.redbus.controller;
 
 import com.redbus.dto.BusSearchRequest;
 import com.redbus.dto.BusSearchResponse;
+import com.redbus.dto.BusSearchResults;
+import com.redbus.dto.FareCalendarDay;
+import com.redbus.dto.JourneyItinerary;
+import com.redbus.dto.NearbySearchRequest;
+import com.redbus.dto.RoundTripSearchRequest;
+import com.redbus.dto.RoundTripSearchResults;
+import com.redbus.search.AmenityFilter;
 import com.redbus.service.BusSearchService;
+import com.redbus.service.ConnectionSearchService;
+import com.redbus.service.FareCalendarService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,11 +27,40 @@ import java.util.List;
 public class BusSearchController {
     
     private final BusSearchService busSearchService;
+    private final ConnectionSearchService connectionSearchService;
+    private final FareCalendarService fareCalendarService;
+    
+    // Set when results came from the database fallback because Elasticsearch is unavailable
+    private static final String DEGRADED_HEADER = "X-Search-Degraded";
     
     @PostMapping("/search")
     public ResponseEntity<List<BusSearchResponse>> searchBuses(@Valid @RequestBody BusSearchRequest request) {
-        List<BusSearchResponse> buses = busSearchService.searchBuses(request);
-        return ResponseEntity.ok(buses);
+        BusSearchResults results = busSearchService.search(request);
+        return ok(results.isDegraded()).body(results.getResults());
+    }
+    
+    @PostMapping("/search/faceted")
+    public ResponseEntity<BusSearchResults> searchBusesWithFacets(@Valid @RequestBody BusSearchRequest request) {
+        BusSearchResults results = busSearchService.searchBusesWithFacets(request);
+        return ok(results.isDegraded()).body(results);
+    }
+    
+    // Outbound and return legs in one call; both run concurrently inside Elasticsearch
+    @PostMapping("/search/round-trip")
+    public ResponseEntity<RoundTripSearchResults> searchRoundTrip(@Valid @RequestBody RoundTripSearchRequest request) {
+        RoundTripSearchResults results = busSearchService.searchRoundTrip(request);
+        return ok(results.isDegraded()).body(results);
+    }
+    
+    // Newline-delimited JSON, one trip per line, for partners pulling whole corridors. The
+    // stream is opened first so the degraded header can go out before the first line.
+    @PostMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBuses(@Valid @RequestBody BusSearchRequest request) {
+        BusSearchService.SearchStream stream = busSearchService.openStream(request);
+        StreamingResponseBody body = stream::writeTo;
+        return ok(stream.isDegraded())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
     
     @GetMapping("/search")
@@ -29,9 +69,12 @@ public class BusSearchController {
             @RequestParam String destination,
             @RequestParam String travelDate,
             @RequestParam(required = false) String departureTime,
+            @RequestParam(required = false) String departureTimeTo,
             @RequestParam(required = false) String busType,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) List<String> amenities,
+            @RequestParam(required = false, defaultValue = "all") String amenityMatch,
             @RequestParam(required = false, defaultValue = "departure") String sortBy,
             @RequestParam(required = false, defaultValue = "asc") String sortOrder) {
         
@@ -40,14 +83,58 @@ public class BusSearchController {
                 .destination(destination)
                 .travelDate(java.time.LocalDate.parse(travelDate))
                 .departureTime(departureTime != null ? java.time.LocalTime.parse(departureTime) : null)
+                .departureTimeTo(departureTimeTo != null ? java.time.LocalTime.parse(departureTimeTo) : null)
                 .busType(busType)
                 .minPrice(minPrice)
                 .maxPrice(maxPrice)
+                .amenities(amenities)
+                .amenityMatch(amenityMatch)
                 .sortBy(sortBy)
                 .sortOrder(sortOrder)
                 .build();
         
-        List<BusSearchResponse> buses = busSearchService.searchBuses(request);
-        return ResponseEntity.ok(buses);
+        BusSearchResults results = busSearchService.search(request);
+        return ok(results.isDegraded()).body(results.getResults());
+    }
+    
+    @GetMapping("/search/nearby")
+    public ResponseEntity<List<BusSearchResponse>> searchNearby(@Valid NearbySearchRequest request) {
+        return ResponseEntity.ok(busSearchService.searchNearby(request));
+    }
+    
+    @GetMapping("/search/fare-calendar")
+    public ResponseEntity<List<FareCalendarDay>> getFareCalendar(
+            @RequestParam String origin,
+            @RequestParam String destination,
+            @RequestParam String startDate,
+            @RequestParam(required = false, defaultValue = "7") int days) {
+        
+        List<FareCalendarDay> calendar = fareCalendarService.getFareCalendar(
+                origin, destination, java.time.LocalDate.parse(startDate), days);
+        return ResponseEntity.ok(calendar);
+    }
+    
+    @GetMapping("/search/connections")
+    public ResponseEntity<List<JourneyItinerary>> searchConnections(
+            @RequestParam String origin,
+            @RequestParam String destination,
+            @RequestParam String travelDate,
+            @RequestParam(required = false) Integer maxTransfers,
+            @RequestParam(required = false) Integer minLayoverMinutes,
+            @RequestParam(required = false) List<String> amenities,
+            @RequestParam(required = false, defaultValue = "all") String amenityMatch) {
+        
+        List<JourneyItinerary> journeys = connectionSearchService.searchConnections(
+                origin, destination, java.time.LocalDate.parse(travelDate), maxTransfers, minLayoverMinutes,
+                AmenityFilter.of(amenities, amenityMatch));
+        return ResponseEntity.ok(journeys);
+    }
+    
+    private static ResponseEntity.BodyBuilder ok(boolean degraded) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (degraded) {
+            builder.header(DEGRADED_HEADER, "true");
+        }
+        return builder;
     }
 }
@@ -5,8 +5,10 @@ import com.redbus.dto.BusTrackingResponse;
 import com.redbus.entity.Booking;
 import com.redbus.service.BookingService;
 import com.redbus.service.BusTrackingService;
+import com.redbus.service.TrackingIngestionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -24,19 +26,21 @@ public class BusTrackingController {
     
     private final BusTrackingService busTrackingService;
     private final BookingService bookingService;
+    private final TrackingIngestionService trackingIngestionService;
     
+    // Queued for the batch writer; 202 once accepted, 429 when the queue is full
     @PostMapping("/update")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OPERATOR')")
     public ResponseEntity<BusTrackingResponse> updateLocation(@Valid @RequestBody BusTrackingRequest request) {
-        BusTrackingResponse tracking = busTrackingService.updateLocation(request);
-        return ResponseEntity.ok(tracking);
+        BusTrackingResponse tracking = trackingIngestionService.accept(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tracking);
     }
     
     @PostMapping("/update-async")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OPERATOR')")
     public ResponseEntity<String> updateLocationAsync(@Valid @RequestBody BusTrackingRequest request) {
-        busTrackingService.updateLocationAsync(request);
-        return ResponseEntity.ok("Location update initiated");
+        trackingIngestionService.accept(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body("Location update initiated");
     }
     
     @GetMapping("/bus/{busId}/current")
@@ -0,0 +1,24 @@
+package com.redbus.controller;
+
+import com.redbus.dto.CitySuggestion;
+import com.redbus.service.CityIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/public/cities")
+@RequiredArgsConstructor
+public class CityController {
+    
+    private final CityIndexService cityIndexService;
+    
+    @GetMapping("/suggest")
+    public ResponseEntity<List<CitySuggestion>> suggestCities(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        return ResponseEntity.ok(cityIndexService.suggest(q, limit));
+    }
+}
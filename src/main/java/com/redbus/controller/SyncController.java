@@ -1,14 +1,24 @@
 package com.redbus.controller;
 
+import com.redbus.dto.ReconciliationReport;
+import com.redbus.dto.ReindexStatus;
+import com.redbus.dto.SyncJobStatus;
 import com.redbus.service.ElasticsearchService;
+import com.redbus.service.PartitionedSyncService;
 import com.redbus.service.ScheduleService;
 import com.redbus.service.ScheduledSyncService;
+import com.redbus.service.SearchChangeListener;
+import com.redbus.service.SearchIndexService;
+import com.redbus.service.SyncJobService;
+import com.redbus.service.SyncLeaseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,57 +30,19 @@ public class SyncController {
     private final ScheduleService scheduleService;
     private final ElasticsearchService elasticsearchService;
     private final ScheduledSyncService scheduledSyncService;
+    private final SearchIndexService searchIndexService;
+    private final SearchChangeListener searchChangeListener;
+    private final PartitionedSyncService partitionedSyncService;
+    private final SyncLeaseService syncLeaseService;
+    private final SyncJobService syncJobService;
     
+    // Queues a full resync and returns its job at once; poll /sync/jobs/{jobId} for progress
     @PostMapping("/elasticsearch")
-    public ResponseEntity<Map<String, Object>> syncToElasticsearch() {
+    public ResponseEntity<SyncJobStatus> syncToElasticsearch() {
         try {
-            log.info("Starting manual sync to Elasticsearch...");
-            
-            // Get all schedules from database
-            var schedules = scheduleService.getAllSchedules();
-            log.info("Found {} schedules in database", schedules.size());
-            
-                   int syncedCount = 0;
-                   int updatedCount = 0;
-                   for (var schedule : schedules) {
-                       try {
-                           // Validate schedule has required relationships
-                           if (schedule.getBus() != null && schedule.getRoute() != null && 
-                               schedule.getBus().getOperator() != null) {
-                               boolean wasIndexed = elasticsearchService.indexSchedule(schedule);
-                               if (wasIndexed) {
-                                   updatedCount++;
-                                   log.info("Successfully indexed schedule ID: {}", schedule.getId());
-                               } else {
-                                   log.info("Schedule ID: {} already up-to-date in Elasticsearch", schedule.getId());
-                               }
-                               syncedCount++;
-                           } else {
-                               log.warn("Skipping schedule ID: {} - Missing required relationships", schedule.getId());
-                           }
-                       } catch (Exception e) {
-                           log.error("Failed to index schedule ID: {} - Error: {}", schedule.getId(), e.getMessage());
-                       }
-                   }
-                   
-                   Map<String, Object> response = new HashMap<>();
-                   response.put("success", true);
-                   response.put("totalSchedules", schedules.size());
-                   response.put("syncedCount", syncedCount);
-                   response.put("updatedCount", updatedCount);
-                   response.put("alreadySyncedCount", syncedCount - updatedCount);
-                   response.put("message", "Sync completed successfully");
-            
-                   log.info("Manual sync completed. Updated: {}, Already synced: {}, Total: {}", 
-                           updatedCount, syncedCount - updatedCount, schedules.size());
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Manual sync failed", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return ResponseEntity.internalServerError().body(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(syncJobService.submitFullSync());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(syncJobService.getActiveFullSync().orElse(null));
         }
     }
     
@@ -78,16 +50,26 @@ public class SyncController {
     public ResponseEntity<Map<String, Object>> getSyncStatus() {
         try {
             // Get count from database
-            var schedules = scheduleService.getAllSchedules();
-            int dbCount = schedules.size();
+            long dbCount = scheduleService.countSchedules();
             
             // Get count from Elasticsearch
-            int esCount = elasticsearchService.getDocumentCount();
+            long esCount = elasticsearchService.getIndexedScheduleCount();
+            
+            // Equal counts can hide stale documents, so agreement is decided by the range digests
+            // of the last reconcile job; comparing them here would hold the request for the
+            // length of two full aggregations. Null until a reconcile has run.
+            ReconciliationReport reconciliation = syncJobService.getLastReconciliation().orElse(null);
             
             Map<String, Object> response = new HashMap<>();
             response.put("databaseCount", dbCount);
             response.put("elasticsearchCount", esCount);
-            response.put("inSync", dbCount == esCount);
+            response.put("elasticsearchDocuments", elasticsearchService.getDocumentCount());
+            response.put("expectedDocuments", reconciliation != null ? reconciliation.getDatabaseDocuments() : null);
+            response.put("inSync", reconciliation != null ? reconciliation.isInSync() : null);
+            response.put("reconciledAt", reconciliation != null ? reconciliation.getCheckedAt() : null);
+            response.put("syncWatermark", scheduledSyncService.getWatermark().orElse(null));
+            response.put("changeListenerActive", searchChangeListener.isListening());
+            response.put("syncLeader", syncLeaseService.isLeader());
             response.put("message", "Sync status retrieved successfully");
             
             return ResponseEntity.ok(response);
@@ -99,25 +81,65 @@ public class SyncController {
         }
     }
     
+    // Queues one incremental pass from the watermark. It only runs on the node holding the sync lease.
     @PostMapping("/trigger")
-    public ResponseEntity<Map<String, Object>> triggerScheduledSync() {
+    public ResponseEntity<SyncJobStatus> triggerScheduledSync() {
+        if (!syncLeaseService.isLeader()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        log.info("Triggering scheduled sync...");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(syncJobService.submitIncrementalSync());
+    }
+    
+    @GetMapping("/jobs")
+    public ResponseEntity<List<SyncJobStatus>> getSyncJobs() {
+        return ResponseEntity.ok(syncJobService.getJobs());
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<SyncJobStatus> getSyncJob(@PathVariable String jobId) {
+        return syncJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Queued jobs are dropped; running ones stop at their next chunk and report CANCELLED
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<SyncJobStatus> cancelSyncJob(@PathVariable String jobId) {
+        return syncJobService.cancel(jobId)
+                .map(status -> ResponseEntity.status(HttpStatus.ACCEPTED).body(status))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Queues a job that finds the schedules whose documents differ from Postgres by comparing
+    // range digests and resyncs only those; the report is on /sync/jobs/{jobId} once it finishes
+    @PostMapping("/reconcile")
+    public ResponseEntity<SyncJobStatus> reconcile() {
+        if (partitionedSyncService.isRunning() || searchIndexService.isRebuilding()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        log.info("Queueing reconciliation of the search index with the database...");
         try {
-            log.info("Triggering scheduled sync...");
-            
-            // Trigger the scheduled sync manually
-            scheduledSyncService.syncToElasticsearch();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Scheduled sync triggered successfully");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Failed to trigger scheduled sync", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return ResponseEntity.internalServerError().body(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(syncJobService.submitReconcile());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(syncJobService.getActiveReconcile().orElse(null));
+        }
+    }
+    
+    // Rebuilds the search index into a fresh versioned index and swaps the alias when done.
+    // Only the node holding the sync lease rebuilds.
+    @PostMapping("/reindex")
+    public ResponseEntity<ReindexStatus> startReindex() {
+        if (!syncLeaseService.isLeader() || searchIndexService.isRebuilding()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(searchIndexService.getStatus());
         }
+        log.info("Starting search index rebuild...");
+        searchIndexService.rebuildAsync();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(searchIndexService.getStatus());
+    }
+    
+    @GetMapping("/reindex")
+    public ResponseEntity<ReindexStatus> getReindexStatus() {
+        return ResponseEntity.ok(searchIndexService.getStatus());
     }
 }
@@ -0,0 +1,26 @@
+package com.redbus.document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.GeoPointField;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoardingPointLocation {
+    
+    @Field(type = FieldType.Long, index = false)
+    private Long id;
+    
+    @Field(type = FieldType.Keyword, index = false)
+    private String name;
+    
+    @GeoPointField
+    private GeoPoint location;
+}
@@ -1,61 +1,109 @@
 package com.redbus.document;
 
+import com.redbus.entity.BoardingPoint;
+import com.redbus.entity.Route;
+import com.redbus.entity.Schedule;
+import com.redbus.search.RunningDays;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@Document(indexName = "buses")
+// Reads go through the "buses" alias; the concrete versioned indexes behind it are
+// created and swapped by SearchIndexService
+@Document(indexName = BusSearchDocument.READ_ALIAS, createIndex = false)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class BusSearchDocument {
     
+    public static final String READ_ALIAS = "buses";
+    
+    // Bump on any incompatible mapping change; the next start rebuilds into a fresh
+    // index and swaps the alias over once it is populated
+    public static final int MAPPING_VERSION = 6;
+    
     @Id
     private String id;
     
     @Field(type = FieldType.Long)
     private Long scheduleId;
     
+    // One document per schedule and travel date, so seats are real per departure
+    @Field(type = FieldType.Date, format = DateFormat.date)
+    private LocalDate travelDate;
+    
     @Field(type = FieldType.Long)
     private Long busId;
     
-    @Field(type = FieldType.Text, analyzer = "standard")
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+                otherFields = @InnerField(suffix = "keyword", type = FieldType.Keyword))
     private String busNumber;
     
     @Field(type = FieldType.Keyword)
     private String busType;
     
-    @Field(type = FieldType.Text, analyzer = "standard")
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+                otherFields = @InnerField(suffix = "keyword", type = FieldType.Keyword))
     private String operatorName;
     
     @Field(type = FieldType.Long)
     private Long operatorId;
     
-    @Field(type = FieldType.Text, analyzer = "standard")
+    // Full-text for free-text search, lower-cased keyword for exact filters
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+                otherFields = @InnerField(suffix = "keyword", type = FieldType.Keyword, normalizer = "lowercase"))
     private String origin;
     
-    @Field(type = FieldType.Text, analyzer = "standard")
+    @MultiField(mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+                otherFields = @InnerField(suffix = "keyword", type = FieldType.Keyword, normalizer = "lowercase"))
     private String destination;
     
     @Field(type = FieldType.Text, analyzer = "standard")
     private String route; // "Mumbai to Pune"
     
-    @Field(type = FieldType.Text)
+    // Filtered and sorted by geo distance for "buses leaving near me"
+    @Field(type = FieldType.Object)
+    private List<BoardingPointLocation> boardingPoints;
+    
+    @Field(type = FieldType.Object)
+    private List<BoardingPointLocation> droppingPoints;
+    
+    // Display only; filters and sorting use the minute-of-day fields below
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
     private String departureTime;
     
-    @Field(type = FieldType.Text)
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
     private String arrivalTime;
     
+    @Field(type = FieldType.Integer)
+    private Integer departureMinutes; // minute of day, for time-window filters, facets and sorting
+    
+    @Field(type = FieldType.Integer)
+    private Integer arrivalMinutes;
+    
     @Field(type = FieldType.Double)
     private BigDecimal price;
     
@@ -65,17 +113,21 @@ public class BusSearchDocument {
     @Field(type = FieldType.Integer)
     private Integer availableSeats;
     
-    @Field(type = FieldType.Text, analyzer = "standard")
+    @Field(type = FieldType.Keyword)
     private List<String> amenities;
     
-    @Field(type = FieldType.Double)
+    // Bits of com.redbus.search.Amenity; all/any filters are one bitwise check against it
+    @Field(type = FieldType.Long)
+    private Long amenityMask;
+    
+    @Field(type = FieldType.Double, index = false)
     private BigDecimal distanceKm;
     
-    @Field(type = FieldType.Double)
+    @Field(type = FieldType.Double, index = false)
     private BigDecimal estimatedDurationHours;
     
-    @Field(type = FieldType.Integer)
-    private Integer durationMinutes;
+    @Field(type = FieldType.Integer, index = false)
+    private Integer durationMinutes; // sort key only, served from doc values
     
     @Field(type = FieldType.Boolean)
     private Boolean isActive;
@@ -91,4 +143,133 @@ public class BusSearchDocument {
     
     @Field(type = FieldType.Date)
     private String updatedAt;
+    
+    // SHA-256 of the rest of the document as last written in full. Bulk sync compares it with
+    // a freshly built document and skips the write when they match; partial updates clear it.
+    @Field(type = FieldType.Keyword, index = false, docValues = false)
+    private String contentHash;
+    
+    public static String documentId(Long scheduleId, LocalDate travelDate) {
+        return scheduleId + "_" + travelDate;
+    }
+    
+    public static boolean runsOn(Schedule schedule, LocalDate travelDate) {
+        return RunningDays.runsOn(schedule.getDaysOfWeek(), travelDate);
+    }
+    
+    public static BusSearchDocument fromSchedule(Schedule schedule, LocalDate travelDate, long bookedSeats) {
+        int totalSeats = schedule.getBus().getTotalSeats();
+        BusSearchDocument document = BusSearchDocument.builder()
+                .id(documentId(schedule.getId(), travelDate))
+                .travelDate(travelDate)
+                .scheduleId(schedule.getId())
+                .busId(schedule.getBus().getId())
+                .busNumber(schedule.getBus().getBusNumber())
+                .busType(schedule.getBus().getBusType().name())
+                .operatorName(schedule.getBus().getOperator().getName())
+                .operatorId(schedule.getBus().getOperator().getId())
+                .origin(schedule.getRoute().getOrigin())
+                .destination(schedule.getRoute().getDestination())
+                .route(schedule.getRoute().getOrigin() + " to " + schedule.getRoute().getDestination())
+                .boardingPoints(locationsOf(schedule.getRoute(), BoardingPoint.PointType.BOARDING))
+                .droppingPoints(locationsOf(schedule.getRoute(), BoardingPoint.PointType.DROPPING))
+                .departureTime(schedule.getDepartureTime().format(DateTimeFormatter.ISO_LOCAL_TIME))
+                .arrivalTime(schedule.getArrivalTime().format(DateTimeFormatter.ISO_LOCAL_TIME))
+                .departureMinutes(toMinuteOfDay(schedule.getDepartureTime()))
+                .arrivalMinutes(toMinuteOfDay(schedule.getArrivalTime()))
+                .price(schedule.getPrice())
+                .totalSeats(totalSeats)
+                .availableSeats((int) Math.max(0, totalSeats - bookedSeats))
+                .amenities(schedule.getBus().getAmenities())
+                .amenityMask(schedule.getBus().getAmenityMask())
+                .distanceKm(schedule.getRoute().getDistanceKm())
+                .estimatedDurationHours(schedule.getRoute().getEstimatedDurationHours())
+                .durationMinutes(calculateDurationMinutes(schedule.getDepartureTime(), schedule.getArrivalTime()))
+                .isActive(isSearchable(schedule))
+                .isRecurring(schedule.getIsRecurring())
+                .daysOfWeek(schedule.getDaysOfWeek())
+                .createdAt(schedule.getCreatedAt().toString())
+                .updatedAt(schedule.getUpdatedAt().toString())
+                .build();
+        document.setContentHash(hashOf(document));
+        return document;
+    }
+    
+    // Every field except contentHash, in a fixed order and rendered independently of Lombok's
+    // toString, so the same schedule always hashes the same on every node and release
+    private static String hashOf(BusSearchDocument document) {
+        String content = Stream.of(
+                        document.getId(), document.getTravelDate(), document.getScheduleId(),
+                        document.getBusId(), document.getBusNumber(), document.getBusType(),
+                        document.getOperatorName(), document.getOperatorId(),
+                        document.getOrigin(), document.getDestination(), document.getRoute(),
+                        hashPartOf(document.getBoardingPoints()), hashPartOf(document.getDroppingPoints()),
+                        document.getDepartureTime(), document.getArrivalTime(),
+                        document.getDepartureMinutes(), document.getArrivalMinutes(),
+                        hashPartOf(document.getPrice()), document.getTotalSeats(), document.getAvailableSeats(),
+                        document.getAmenities(), document.getAmenityMask(),
+                        hashPartOf(document.getDistanceKm()), hashPartOf(document.getEstimatedDurationHours()),
+                        document.getDurationMinutes(), document.getIsActive(), document.getIsRecurring(),
+                        document.getDaysOfWeek(), document.getCreatedAt(), document.getUpdatedAt())
+                .map(String::valueOf)
+                .collect(Collectors.joining("\u001f"));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    // 500 and 500.00 are the same fare
+    private static String hashPartOf(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros().toPlainString();
+    }
+    
+    private static String hashPartOf(List<BoardingPointLocation> points) {
+        return points.stream()
+                .map(point -> point.getId() + ":" + point.getName() + ":"
+                        + point.getLocation().getLat() + "," + point.getLocation().getLon())
+                .collect(Collectors.joining(";"));
+    }
+    
+    // Sorted by id, so the document and its hash do not depend on the order the rows were loaded in
+    private static List<BoardingPointLocation> locationsOf(Route route, BoardingPoint.PointType pointType) {
+        if (route.getBoardingPoints() == null) {
+            return List.of();
+        }
+        return route.getBoardingPoints().stream()
+                .filter(point -> point.getPointType() == pointType && !Boolean.FALSE.equals(point.getIsActive()))
+                .sorted(Comparator.comparing(BoardingPoint::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(point -> BoardingPointLocation.builder()
+                        .id(point.getId())
+                        .name(point.getName())
+                        .location(new GeoPoint(point.getLatitude().doubleValue(), point.getLongitude().doubleValue()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+    
+    // Deactivating the bus, its operator or the route hides the trip as well
+    private static boolean isSearchable(Schedule schedule) {
+        return Boolean.TRUE.equals(schedule.getIsActive())
+                && Boolean.TRUE.equals(schedule.getBus().getIsActive())
+                && Boolean.TRUE.equals(schedule.getBus().getOperator().getIsActive())
+                && Boolean.TRUE.equals(schedule.getRoute().getIsActive());
+    }
+    
+    public static int toMinuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+    
+    private static int calculateDurationMinutes(LocalTime departure, LocalTime arrival) {
+        int departureMinutes = toMinuteOfDay(departure);
+        int arrivalMinutes = toMinuteOfDay(arrival);
+        
+        if (arrivalMinutes < departureMinutes) {
+            arrivalMinutes += 24 * 60; // Next day
+        }
+        
+        return arrivalMinutes - departureMinutes;
+    }
 }
@@ -0,0 +1,48 @@
+package com.redbus.dto;
+
+import com.redbus.entity.BoardingPoint;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoardingPointRequest {
+    
+    @NotBlank(message = "Name is required")
+    private String name;
+    
+    @NotNull(message = "Point type is required")
+    private BoardingPoint.PointType pointType;
+    
+    private String address;
+    
+    @NotNull(message = "Latitude is required")
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private BigDecimal latitude;
+    
+    @NotNull(message = "Longitude is required")
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private BigDecimal longitude;
+    
+    public BoardingPoint toBoardingPoint() {
+        return BoardingPoint.builder()
+                .name(name)
+                .pointType(pointType)
+                .address(address)
+                .latitude(latitude)
+                .longitude(longitude)
+                .build();
+    }
+}
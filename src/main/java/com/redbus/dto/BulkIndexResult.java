@@ -0,0 +1,22 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIndexResult {
+    
+    private int schedules;
+    private int documents;
+    private int indexed; // content differed from the stored hash, or was missing
+    private int unchanged;
+    private int deleted; // dates the schedule no longer runs on
+    private Set<Long> failedScheduleIds; // still failing after the per-item retries
+}
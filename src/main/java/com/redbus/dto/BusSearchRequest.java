@@ -9,9 +9,10 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BusSearchRequest {
@@ -25,10 +26,13 @@ public class BusSearchRequest {
     @NotNull(message = "Travel date is required")
     private LocalDate travelDate;
     
-    private LocalTime departureTime;
+    private LocalTime departureTime; // earliest departure, or window start when departureTimeTo is set
+    private LocalTime departureTimeTo; // latest departure; a window may wrap past midnight (22:00-02:00)
     private String busType;
     private Double minPrice;
     private Double maxPrice;
-    private String sortBy = "departure"; // departure, price, duration
+    private List<String> amenities; // catalogue names, e.g. WiFi, Charging Point, Blanket
+    private String amenityMatch; // all (default) or any
+    private String sortBy = "departure"; // departure, price, duration, seats
     private String sortOrder = "asc"; // asc, desc
 }
@@ -31,6 +31,8 @@ public class BusSearchResponse {
     private Integer availableSeats;
     private List<String> amenities;
     private String duration;
+    private String boardingPoint; // nearest boarding point, set by nearby search only
+    private Double boardingDistanceKm;
     
     public static BusSearchResponse fromSchedule(Schedule schedule, Integer availableSeats) {
         Bus bus = schedule.getBus();
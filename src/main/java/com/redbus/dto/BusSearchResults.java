@@ -0,0 +1,21 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusSearchResults {
+    
+    private List<BusSearchResponse> results;
+    private Long totalHits;
+    private Map<String, List<FacetBucket>> facets; // busType, operator, departureTime, price
+    private boolean degraded; // served from the database while Elasticsearch is unavailable; no facets
+}
@@ -0,0 +1,16 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CitySuggestion {
+    
+    private String name;
+    private Long scheduleCount;
+}
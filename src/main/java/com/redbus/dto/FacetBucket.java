@@ -0,0 +1,18 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetBucket {
+    
+    private String key;
+    private Double from; // range/histogram facets only
+    private Double to;
+    private Long count;
+}
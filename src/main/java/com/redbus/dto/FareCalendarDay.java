@@ -0,0 +1,20 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareCalendarDay {
+    
+    private LocalDate date;
+    private BigDecimal minFare; // null when nothing runs that day
+    private Long tripCount;
+}
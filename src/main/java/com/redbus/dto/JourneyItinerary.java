@@ -0,0 +1,24 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JourneyItinerary {
+    
+    private Integer transfers;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Integer totalDurationMinutes;
+    private BigDecimal totalPrice;
+    private List<JourneyLeg> legs;
+}
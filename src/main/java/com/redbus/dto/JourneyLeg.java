@@ -0,0 +1,27 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JourneyLeg {
+    
+    private Long scheduleId;
+    private String busNumber;
+    private String busType;
+    private String operatorName;
+    private String origin;
+    private String destination;
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private BigDecimal price;
+    private Integer layoverMinutes; // wait before this leg, null for the first leg
+}
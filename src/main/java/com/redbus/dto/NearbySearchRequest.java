@@ -0,0 +1,40 @@
+package com.redbus.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbySearchRequest {
+    
+    @NotNull(message = "Latitude is required")
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private Double latitude;
+    
+    @NotNull(message = "Longitude is required")
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private Double longitude;
+    
+    @Positive(message = "Radius must be positive")
+    private Double radiusKm; // defaults to 5 km, capped by app.search.nearby.max-radius-km
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate travelDate; // defaults to today
+    
+    private String destination; // optional; any destination when blank
+    private String busType;
+    private Double maxPrice;
+}
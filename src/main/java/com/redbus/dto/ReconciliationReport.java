@@ -0,0 +1,27 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+    
+    private boolean inSync;
+    private long databaseDocuments; // documents the index should hold within the horizon
+    private long indexDocuments;
+    private int rangesCompared;
+    private int mismatchedRanges;
+    private int queries; // aggregate queries issued, both sides together
+    private List<Long> mismatchedScheduleIds;
+    private int repairedSchedules;
+    private boolean truncated; // drill-down stopped at the id limit; a full resync is the better fix
+    private LocalDateTime checkedAt;
+}
@@ -0,0 +1,24 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexStatus {
+    
+    private String state; // IDLE, RUNNING, COMPLETED, FAILED
+    private String liveIndex;
+    private String targetIndex;
+    private Long totalDocuments;
+    private Long indexedDocuments;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,41 @@
+package com.redbus.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoundTripSearchRequest {
+    
+    @NotBlank(message = "Origin is required")
+    private String origin;
+    
+    @NotBlank(message = "Destination is required")
+    private String destination;
+    
+    @NotNull(message = "Outbound date is required")
+    private LocalDate outboundDate;
+    
+    @NotNull(message = "Return date is required")
+    private LocalDate returnDate;
+    
+    // Applied to both legs
+    private String busType;
+    private Double minPrice;
+    private Double maxPrice;
+    private List<String> amenities;
+    private String amenityMatch; // all (default) or any
+    @Builder.Default
+    private String sortBy = "departure"; // departure, price, duration, seats
+    @Builder.Default
+    private String sortOrder = "asc"; // asc, desc
+}
@@ -0,0 +1,28 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoundTripSearchResults {
+    
+    private List<BusSearchResponse> outbound;
+    private Long outboundTotalHits;
+    private List<BusSearchResponse> inbound;
+    private Long inboundTotalHits;
+    
+    // Cheapest and dearest outbound + return pairing over every match, not just the returned page;
+    // null when either leg has nothing
+    private BigDecimal minTotalFare;
+    private BigDecimal maxTotalFare;
+    
+    private boolean degraded; // served from the database while Elasticsearch is unavailable
+}
@@ -0,0 +1,36 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncJobStatus {
+    
+    private String jobId;
+    private String type; // FULL, INCREMENTAL, RECONCILE
+    private String state; // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED, SKIPPED
+    private long totalSchedules;
+    private long processedSchedules;
+    private long documents;
+    private long updated;
+    private long unchanged;
+    private long deleted;
+    private long failedSchedules;
+    private long failedPartitions;
+    private Double percentComplete;
+    private Long etaSeconds; // extrapolated from the rate so far, while running
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private List<SyncPartitionStatus> partitions; // full syncs only
+    private ReconciliationReport reconciliation; // reconcile jobs only, once finished
+}
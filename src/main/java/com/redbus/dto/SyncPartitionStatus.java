@@ -0,0 +1,64 @@
+package com.redbus.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Written by one partition worker while status requests read it from other threads: the
+// counters only change through add() and are only read together through copy(), both under
+// this object's lock
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncPartitionStatus {
+    
+    private int partition;
+    private Long fromId; // inclusive schedule id range
+    private Long toId;
+    private volatile String state; // PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
+    private int schedules;
+    private int documents;
+    private int indexed;
+    private int unchanged;
+    private int deleted;
+    @Builder.Default
+    private Set<Long> failedScheduleIds = ConcurrentHashMap.newKeySet();
+    private volatile String error;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    
+    public synchronized void add(BulkIndexResult result) {
+        schedules += result.getSchedules();
+        documents += result.getDocuments();
+        indexed += result.getIndexed();
+        unchanged += result.getUnchanged();
+        deleted += result.getDeleted();
+        failedScheduleIds.addAll(result.getFailedScheduleIds());
+    }
+    
+    // Detached from the worker, safe to aggregate and serialize while the partition keeps running
+    public synchronized SyncPartitionStatus copy() {
+        return SyncPartitionStatus.builder()
+                .partition(partition)
+                .fromId(fromId)
+                .toId(toId)
+                .state(state)
+                .schedules(schedules)
+                .documents(documents)
+                .indexed(indexed)
+                .unchanged(unchanged)
+                .deleted(deleted)
+                .failedScheduleIds(new HashSet<>(failedScheduleIds))
+                .error(error)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
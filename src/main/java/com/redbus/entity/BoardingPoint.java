@@ -0,0 +1,67 @@
+package com.redbus.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "boarding_points")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class BoardingPoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "route_id", nullable = false)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Route route;
+    
+    @Column(nullable = false, length = 150)
+    private String name;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "point_type", nullable = false, length = 20)
+    private PointType pointType;
+    
+    @Column(length = 255)
+    private String address;
+    
+    @Column(nullable = false, precision = 10, scale = 8)
+    private BigDecimal latitude;
+    
+    @Column(nullable = false, precision = 11, scale = 8)
+    private BigDecimal longitude;
+    
+    @Column(name = "is_active")
+    @Builder.Default
+    private Boolean isActive = true;
+    
+    @Column(name = "created_at")
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    @Column(name = "updated_at")
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    public enum PointType {
+        BOARDING, DROPPING
+    }
+}
@@ -41,6 +41,11 @@ public class Bus {
     @Column(name = "amenities", columnDefinition = "TEXT[]")
     private List<String> amenities;
     
+    // Same amenities as bits of com.redbus.search.Amenity, kept in step by BusService
+    @Column(name = "amenity_mask", nullable = false)
+    @Builder.Default
+    private Long amenityMask = 0L;
+    
     @Column(name = "is_active")
     @Builder.Default
     private Boolean isActive = true;
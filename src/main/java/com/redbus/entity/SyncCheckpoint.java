@@ -0,0 +1,30 @@
+package com.redbus.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sync_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCheckpoint {
+    
+    @Id
+    @Column(length = 50)
+    private String name;
+    
+    // updated_at of the newest row already pushed to the index
+    @Column(nullable = false)
+    private LocalDateTime watermark;
+    
+    @Column(name = "updated_at")
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
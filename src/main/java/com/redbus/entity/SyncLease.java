@@ -0,0 +1,36 @@
+package com.redbus.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sync_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncLease {
+    
+    @Id
+    @Column(length = 50)
+    private String name;
+    
+    @Column(nullable = false)
+    private String holder;
+    
+    // Incremented every time the lease changes hands
+    @Column(name = "fencing_token", nullable = false)
+    private Long fencingToken;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "updated_at")
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,6 @@
+package com.redbus.event;
+
+import java.time.LocalDate;
+
+public record BookingChangedEvent(Long scheduleId, LocalDate travelDate) {
+}
@@ -0,0 +1,4 @@
+package com.redbus.event;
+
+public record BusChangedEvent(Long busId) {
+}
@@ -28,8 +28,8 @@ public interface BusSearchRepository extends ElasticsearchRepository<BusSearchDo
     @Query("{\"bool\": {\"must\": [{\"match\": {\"origin\": \"?0\"}}, {\"match\": {\"destination\": \"?1\"}}], \"filter\": [{\"term\": {\"busType\": \"?2\"}}]}}")
     List<BusSearchDocument> searchByRouteAndBusType(String origin, String destination, String busType);
     
-    @Query("{\"bool\": {\"must\": [{\"match\": {\"origin\": \"?0\"}}, {\"match\": {\"destination\": \"?1\"}}], \"filter\": [{\"range\": {\"departureTime\": {\"gte\": \"?2\"}}}]}}")
-    List<BusSearchDocument> searchByRouteAndDepartureTime(String origin, String destination, String departureTime);
+    @Query("{\"bool\": {\"must\": [{\"match\": {\"origin\": \"?0\"}}, {\"match\": {\"destination\": \"?1\"}}], \"filter\": [{\"range\": {\"departureMinutes\": {\"gte\": ?2}}}]}}")
+    List<BusSearchDocument> searchByRouteAndDepartureTime(String origin, String destination, Integer departureMinuteOfDay);
     
     @Query("{\"bool\": {\"must\": [{\"match\": {\"origin\": \"?0\"}}, {\"match\": {\"destination\": \"?1\"}}], \"filter\": [{\"term\": {\"busType\": \"?2\"}}, {\"range\": {\"price\": {\"gte\": ?3, \"lte\": ?4}}}]}}")
     List<BusSearchDocument> searchByRouteBusTypeAndPriceRange(String origin, String destination, String busType, 
@@ -0,0 +1,13 @@
+package com.redbus.repository.jpa;
+
+import com.redbus.entity.BoardingPoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BoardingPointRepository extends JpaRepository<BoardingPoint, Long> {
+    
+    List<BoardingPoint> findByRouteIdAndIsActiveTrueOrderByPointTypeAscNameAsc(Long routeId);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,4 +32,38 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("SELECT sb.seatNumber FROM SeatBooking sb WHERE sb.booking.schedule.id = :scheduleId AND sb.booking.bookingDate = :bookingDate")
     List<Integer> findBookedSeatNumbers(@Param("scheduleId") Long scheduleId, 
                                        @Param("bookingDate") LocalDate bookingDate);
+    
+    // Seats held per (schedule, travel date); cancelled bookings release their seats
+    @Query("SELECT b.schedule.id, b.bookingDate, COUNT(sb) FROM SeatBooking sb JOIN sb.booking b " +
+           "WHERE b.bookingDate BETWEEN :fromDate AND :toDate AND b.status <> :excludedStatus " +
+           "GROUP BY b.schedule.id, b.bookingDate")
+    List<Object[]> countHeldSeatsBetween(@Param("fromDate") LocalDate fromDate,
+                                         @Param("toDate") LocalDate toDate,
+                                         @Param("excludedStatus") Booking.BookingStatus excludedStatus);
+    
+    @Query("SELECT b.schedule.id, COUNT(sb) FROM SeatBooking sb JOIN sb.booking b " +
+           "WHERE b.schedule.id IN :scheduleIds AND b.bookingDate = :bookingDate " +
+           "AND b.status <> :excludedStatus " +
+           "GROUP BY b.schedule.id")
+    List<Object[]> countHeldSeatsBySchedules(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                             @Param("bookingDate") LocalDate bookingDate,
+                                             @Param("excludedStatus") Booking.BookingStatus excludedStatus);
+    
+    @Query("SELECT b.schedule.id, b.bookingDate, COUNT(sb) FROM SeatBooking sb JOIN sb.booking b " +
+           "WHERE b.schedule.id IN :scheduleIds AND b.bookingDate BETWEEN :fromDate AND :toDate " +
+           "AND b.status <> :excludedStatus " +
+           "GROUP BY b.schedule.id, b.bookingDate")
+    List<Object[]> countHeldSeatsBySchedulesBetween(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                                    @Param("fromDate") LocalDate fromDate,
+                                                    @Param("toDate") LocalDate toDate,
+                                                    @Param("excludedStatus") Booking.BookingStatus excludedStatus);
+    
+    @Query("SELECT b.bookingDate, COUNT(sb) FROM SeatBooking sb JOIN sb.booking b " +
+           "WHERE b.schedule.id = :scheduleId AND b.bookingDate BETWEEN :fromDate AND :toDate " +
+           "AND b.status <> :excludedStatus " +
+           "GROUP BY b.bookingDate")
+    List<Object[]> countHeldSeatsByScheduleBetween(@Param("scheduleId") Long scheduleId,
+                                                   @Param("fromDate") LocalDate fromDate,
+                                                   @Param("toDate") LocalDate toDate,
+                                                   @Param("excludedStatus") Booking.BookingStatus excludedStatus);
 }
@@ -23,4 +23,7 @@ public interface BusRepository extends JpaRepository<Bus, Long> {
     
     @Query("SELECT b FROM Bus b WHERE b.busType = :busType AND b.isActive = true")
     List<Bus> findActiveBusesByType(@Param("busType") Bus.BusType busType);
+    
+    @Query("SELECT b.id FROM Bus b")
+    List<Long> findAllIds();
 }
@@ -19,4 +19,10 @@ public interface RouteRepository extends JpaRepository<Route, Long> {
     
     @Query("SELECT r FROM Route r WHERE r.origin LIKE %:origin% OR r.destination LIKE %:destination%")
     List<Route> findByOriginOrDestinationContaining(@Param("origin") String origin, @Param("destination") String destination);
+    
+    @Query("SELECT r.origin, r.destination, COUNT(s.id) FROM Route r " +
+           "LEFT JOIN r.schedules s ON s.isActive = true " +
+           "WHERE r.isActive = true " +
+           "GROUP BY r.id, r.origin, r.destination")
+    List<Object[]> findActiveRouteScheduleCounts();
 }
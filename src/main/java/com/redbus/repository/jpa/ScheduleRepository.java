@@ -1,14 +1,24 @@
 package com.redbus.repository.jpa;
 
 import com.redbus.entity.Schedule;
+import com.redbus.search.DigestRange;
+import com.redbus.search.RunningDays;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
@@ -57,4 +67,123 @@ public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
     List<Schedule> findSchedulesWithSorting(@Param("origin") String origin,
                                            @Param("destination") String destination,
                                            @Param("sortBy") String sortBy);
+    
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "WHERE s.isActive = true AND b.isActive = true AND r.isActive = true")
+    List<Schedule> findActiveSchedulesWithDetails();
+    
+    // Full-table read for sync jobs, as a cursor rather than a list: fetch joins mean no row
+    // triggers a lazy load, and the JDBC fetch size makes the driver pull rows in chunks instead
+    // of buffering the whole result. Ordering by id keeps each schedule's boarding point rows
+    // together, which a streamed collection fetch needs. Consume inside a transaction, close
+    // the stream, and clear the persistence context as you go so memory stays flat.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "LEFT JOIN FETCH r.boardingPoints " +
+           "ORDER BY s.id")
+    Stream<Schedule> streamAllWithDetails();
+    
+    // One id range of the streamed read above, for partitioned full syncs
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "LEFT JOIN FETCH r.boardingPoints " +
+           "WHERE s.id BETWEEN :fromId AND :toId " +
+           "ORDER BY s.id")
+    Stream<Schedule> streamByIdRangeWithDetails(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    @Query("SELECT MIN(s.id) FROM Schedule s")
+    Long findMinId();
+    
+    @Query("SELECT MAX(s.id) FROM Schedule s")
+    Long findMaxId();
+    
+    // Reconciliation digests: one row per child range of width :width inside [fromId, toId],
+    // holding the document count and digest sum the search index should have for it. Every
+    // active schedule contributes one term per horizon date it runs on, as the sync writes them.
+    @Query(value = "SELECT (s.id - :fromId) / :width AS bucket, COUNT(*) AS documents, " +
+                   "COALESCE(SUM(" + DigestRange.SQL_TERM + "), 0) AS digest " +
+                   "FROM schedules s " +
+                   "CROSS JOIN generate_series(CAST(:firstDate AS date), CAST(:lastDate AS date), INTERVAL '1 day') AS d(travel_date) " +
+                   "CROSS JOIN LATERAL (SELECT " + DigestRange.SQL_MIX + " AS h) x " +
+                   "WHERE s.is_active = true AND s.id BETWEEN :fromId AND :toId " +
+                   "AND " + RunningDays.SQL_RUNS_ON + " " +
+                   "GROUP BY 1",
+           nativeQuery = true)
+    List<Object[]> digestRanges(@Param("fromId") long fromId,
+                                @Param("toId") long toId,
+                                @Param("width") long width,
+                                @Param("firstDate") LocalDate firstDate,
+                                @Param("lastDate") LocalDate lastDate);
+    
+    // Admin listing: bus, operator and route come back in the same query rather than one
+    // lazy load each per row during serialization
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "ORDER BY s.id")
+    List<Schedule> findAllWithBusAndRoute();
+    
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "LEFT JOIN FETCH r.boardingPoints " +
+           "WHERE r.id = :routeId")
+    List<Schedule> findByRouteIdWithDetails(@Param("routeId") Long routeId);
+    
+    // Fallback search: every searchable departure on a corridor in one fetch-joined query.
+    // Cities are matched lower-cased so the expression index on routes applies.
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "WHERE LOWER(r.origin) = :origin AND LOWER(r.destination) = :destination " +
+           "AND s.isActive = true AND b.isActive = true AND r.isActive = true")
+    List<Schedule> findSearchableByCorridor(@Param("origin") String origin, @Param("destination") String destination);
+    
+    // Incremental sync: rows touched after a watermark, keyset-paged in (updatedAt, id) order
+    // so the index on schedules (updated_at, id) serves both the filter and the sort
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "WHERE s.updatedAt > :since OR (s.updatedAt = :since AND s.id > :afterId) " +
+           "ORDER BY s.updatedAt, s.id")
+    List<Schedule> findChangedSince(@Param("since") LocalDateTime since, @Param("afterId") Long afterId, Pageable pageable);
+    
+    // Every schedule touched by a batch of change notifications, directly or through its bus,
+    // route or operator. An IN list must not be empty, so callers pad unused kinds with 0.
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "LEFT JOIN FETCH r.boardingPoints " +
+           "WHERE s.id IN :scheduleIds OR b.id IN :busIds OR r.id IN :routeIds OR o.id IN :operatorIds")
+    List<Schedule> findAffectedWithDetails(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                           @Param("busIds") Collection<Long> busIds,
+                                           @Param("routeIds") Collection<Long> routeIds,
+                                           @Param("operatorIds") Collection<Long> operatorIds);
+    
+    @Query("SELECT s FROM Schedule s " +
+           "JOIN FETCH s.bus b " +
+           "JOIN FETCH b.operator o " +
+           "JOIN FETCH s.route r " +
+           "WHERE s.id = :id")
+    Optional<Schedule> findByIdWithDetails(@Param("id") Long id);
 }
@@ -0,0 +1,31 @@
+package com.redbus.repository.jpa;
+
+import com.redbus.entity.SyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SyncCheckpointRepository extends JpaRepository<SyncCheckpoint, String> {
+    
+    // Fenced write: the checkpoint only moves while :token is still the live token of the lease.
+    // FOR SHARE holds off a takeover until this transaction ends, and a takeover that already
+    // happened has bumped the token, so a node that lost the lease writes nothing. Expiry is
+    // checked against clock_timestamp(): now() is frozen at the start of the transaction, which
+    // may have spent a whole page of index writes before getting here.
+    @Modifying
+    @Query(value = "INSERT INTO sync_checkpoints (name, watermark) " +
+                   "SELECT :name, :watermark WHERE EXISTS (" +
+                   "SELECT 1 FROM sync_leases l WHERE l.name = :lease AND l.fencing_token = :token " +
+                   "AND l.expires_at > clock_timestamp() FOR SHARE) " +
+                   "ON CONFLICT (name) DO UPDATE SET watermark = EXCLUDED.watermark",
+           nativeQuery = true)
+    int advance(@Param("name") String name,
+                @Param("watermark") LocalDateTime watermark,
+                @Param("lease") String lease,
+                @Param("token") long token);
+}
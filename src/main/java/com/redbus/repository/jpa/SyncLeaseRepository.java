@@ -0,0 +1,38 @@
+package com.redbus.repository.jpa;
+
+import com.redbus.entity.SyncLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SyncLeaseRepository extends JpaRepository<SyncLease, String> {
+    
+    // Takes the lease if it is free or expired, or extends it if this holder already has it.
+    // The token only moves when the holder changes. Returns 0 when another node holds it.
+    // Times come from clock_timestamp(), the wall clock when the statement runs, like advance().
+    @Modifying
+    @Query(value = "INSERT INTO sync_leases (name, holder, fencing_token, expires_at) " +
+                   "VALUES (:name, :holder, 1, clock_timestamp() + :ttlMillis * INTERVAL '1 millisecond') " +
+                   "ON CONFLICT (name) DO UPDATE SET holder = EXCLUDED.holder, " +
+                   "fencing_token = CASE WHEN sync_leases.holder = EXCLUDED.holder " +
+                   "THEN sync_leases.fencing_token ELSE sync_leases.fencing_token + 1 END, " +
+                   "expires_at = EXCLUDED.expires_at " +
+                   "WHERE sync_leases.holder = EXCLUDED.holder OR sync_leases.expires_at < clock_timestamp()",
+           nativeQuery = true)
+    int acquire(@Param("name") String name, @Param("holder") String holder, @Param("ttlMillis") long ttlMillis);
+    
+    @Query("SELECT l.fencingToken FROM SyncLease l WHERE l.name = :name AND l.holder = :holder")
+    Optional<Long> findFencingToken(@Param("name") String name, @Param("holder") String holder);
+    
+    // Expires the lease immediately so another node can take over without waiting out the ttl
+    @Modifying
+    @Query(value = "UPDATE sync_leases SET expires_at = clock_timestamp() - INTERVAL '1 millisecond' " +
+                   "WHERE name = :name AND holder = :holder",
+           nativeQuery = true)
+    int release(@Param("name") String name, @Param("holder") String holder);
+}
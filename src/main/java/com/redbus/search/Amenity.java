@@ -0,0 +1,132 @@
+package com.redbus.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Canonical amenity catalogue. Each amenity owns one bit of a long mask that is stored on the
+// bus and on every search document, so "WiFi + charging point + blanket" is a single AND.
+// Bits are persisted: append new amenities, never renumber or reuse one.
+public enum Amenity {
+
+    WIFI(0, "WiFi", "wireless internet"),
+    CHARGING_POINT(1, "Charging Point", "charging", "mobile charging", "usb charging"),
+    BLANKET(2, "Blanket"),
+    PILLOW(3, "Pillow"),
+    WATER_BOTTLE(4, "Water Bottle", "water"),
+    SNACKS(5, "Snacks"),
+    READING_LIGHT(6, "Reading Light"),
+    ENTERTAINMENT(7, "Entertainment", "tv", "movies"),
+    TOILET(8, "Toilet", "washroom"),
+    CCTV(9, "CCTV"),
+    GPS_TRACKING(10, "GPS Tracking", "gps", "live tracking"),
+    EMERGENCY_EXIT(11, "Emergency Exit"),
+    RECLINING_SEATS(12, "Reclining Seats", "recliner"),
+    FIRST_AID(13, "First Aid", "first aid kit");
+
+    private static final Amenity[] BY_BIT = new Amenity[Long.SIZE];
+    private static final Map<String, Amenity> BY_KEY = new HashMap<>();
+
+    static {
+        for (Amenity amenity : values()) {
+            BY_BIT[amenity.bit] = amenity;
+            BY_KEY.put(key(amenity.name()), amenity);
+            BY_KEY.put(key(amenity.label), amenity);
+            for (String alias : amenity.aliases) {
+                BY_KEY.put(key(alias), amenity);
+            }
+        }
+    }
+
+    private final int bit;
+    private final String label;
+    private final String[] aliases;
+
+    Amenity(int bit, String label, String... aliases) {
+        this.bit = bit;
+        this.label = label;
+        this.aliases = aliases;
+    }
+
+    public long mask() {
+        return 1L << bit;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    // Accepts the enum name, the label or an alias in any case and punctuation: "Wi-Fi", "wifi", "WIFI"
+    public static Amenity parse(String name) {
+        Amenity amenity = name != null ? BY_KEY.get(key(name)) : null;
+        if (amenity == null) {
+            throw new IllegalArgumentException("Unknown amenity: " + name);
+        }
+        return amenity;
+    }
+
+    public static long maskOf(Collection<String> names) {
+        long mask = 0;
+        if (names != null) {
+            for (String name : names) {
+                mask |= parse(name).mask();
+            }
+        }
+        return mask;
+    }
+
+    // Display labels in catalogue order, each once
+    public static List<String> labelsOf(long mask) {
+        List<String> labels = new ArrayList<>(Long.bitCount(mask));
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            Amenity amenity = BY_BIT[Long.numberOfTrailingZeros(remaining)];
+            if (amenity != null) {
+                labels.add(amenity.label);
+            }
+        }
+        return labels;
+    }
+
+    public static List<String> canonicalLabels(Collection<String> names) {
+        return labelsOf(maskOf(names));
+    }
+
+    // Bits of the names that are in the catalogue; any other name is skipped rather than rejected
+    public static long catalogueMaskOf(Collection<String> names) {
+        long mask = 0;
+        if (names != null) {
+            for (String name : names) {
+                Amenity amenity = name != null ? BY_KEY.get(key(name)) : null;
+                if (amenity != null) {
+                    mask |= amenity.mask();
+                }
+            }
+        }
+        return mask;
+    }
+
+    // What a bus stores: canonical labels in catalogue order, then names outside the catalogue
+    // as given, each once. Labels such as "AC" predate the catalogue and V5 left them on existing
+    // buses; they stay for display but own no bit, so they cannot be filtered on.
+    public static List<String> storedLabels(Collection<String> names) {
+        List<String> labels = labelsOf(catalogueMaskOf(names));
+        if (names != null) {
+            Map<String, String> others = new LinkedHashMap<>();
+            for (String name : names) {
+                if (name != null && !name.isBlank() && !BY_KEY.containsKey(key(name))) {
+                    others.putIfAbsent(key(name), name.trim());
+                }
+            }
+            labels.addAll(others.values());
+        }
+        return labels;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+}
@@ -0,0 +1,32 @@
+package com.redbus.search;
+
+import java.util.Collection;
+
+// Required amenities as a mask. With matchAll a trip needs every bit, otherwise any one of them.
+public record AmenityFilter(long mask, boolean matchAll) {
+
+    public static final AmenityFilter NONE = new AmenityFilter(0, true);
+
+    public static AmenityFilter of(Collection<String> amenities, String match) {
+        long mask = Amenity.maskOf(amenities);
+        if (mask == 0) {
+            return NONE;
+        }
+        if (match == null || match.equalsIgnoreCase("all")) {
+            return new AmenityFilter(mask, true);
+        }
+        if (match.equalsIgnoreCase("any")) {
+            return new AmenityFilter(mask, false);
+        }
+        throw new IllegalArgumentException("Amenity match must be 'all' or 'any'");
+    }
+
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    public boolean accepts(long amenityMask) {
+        long shared = amenityMask & mask;
+        return matchAll ? shared == mask : mask == 0 || shared != 0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.redbus.search;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+// Debounces a stream of change keys into batches. A batch is ready once no new key has
+// arrived for the quiet period, or once its oldest key has waited maxDelay, so a steady
+// trickle of edits cannot postpone a flush indefinitely. Repeated keys collapse into one.
+public final class ChangeBatcher<T> {
+
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private Set<T> pending = new LinkedHashSet<>();
+    private long firstAddedAt;
+    private long lastAddedAt;
+
+    public ChangeBatcher(long quietMillis, long maxDelayMillis, int maxBatchSize) {
+        this(quietMillis, maxDelayMillis, maxBatchSize, System::nanoTime);
+    }
+
+    ChangeBatcher(long quietMillis, long maxDelayMillis, int maxBatchSize, LongSupplier clock) {
+        this.quietNanos = quietMillis * 1_000_000L;
+        this.maxDelayNanos = maxDelayMillis * 1_000_000L;
+        this.maxBatchSize = maxBatchSize;
+        this.clock = clock;
+    }
+
+    public synchronized void add(T key) {
+        long now = clock.getAsLong();
+        if (pending.isEmpty()) {
+            firstAddedAt = now;
+        }
+        lastAddedAt = now;
+        pending.add(key);
+    }
+
+    public synchronized boolean ready() {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        return pending.size() >= maxBatchSize
+                || now - lastAddedAt >= quietNanos
+                || now - firstAddedAt >= maxDelayNanos;
+    }
+
+    // Hands over everything pending, whether or not the batch is ready yet
+    public synchronized Set<T> drain() {
+        Set<T> batch = pending;
+        pending = new LinkedHashSet<>();
+        return batch;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,152 @@
+package com.redbus.search;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Count-based breaker that trips on failures and on slow calls alike. While CLOSED it keeps
+// the outcome of the last windowSize calls; once minimumCalls are in and the share of bad
+// ones reaches the threshold it goes OPEN and sends every call to the fallback. After
+// openDuration the next caller moves it to HALF_OPEN, where a few probe calls reach the
+// backend again: all of them good closes the breaker, a single bad one re-opens it.
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private final boolean[] window;
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int badCalls;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration slowCallThreshold, Duration openDuration, int halfOpenProbes) {
+        this(windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, openDuration, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration slowCallThreshold,
+                   Duration openDuration, int halfOpenProbes, LongSupplier clock) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+        this.window = new boolean[windowSize];
+    }
+
+    // Runs the call when the breaker admits it, the fallback otherwise or when the call throws.
+    // A call that returns but takes longer than the slow-call threshold counts against the backend.
+    public <T> T execute(Supplier<T> call, Supplier<T> fallback) {
+        if (!tryAcquire()) {
+            fallbacks.increment();
+            return fallback.get();
+        }
+        long start = clock.getAsLong();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            record(true);
+            fallbacks.increment();
+            return fallback.get();
+        }
+        record(clock.getAsLong() - start >= slowCallNanos);
+        return result;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    public long trips() {
+        return trips.sum();
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesIssued = 0;
+            probesSucceeded = 0;
+        }
+        if (probesIssued >= halfOpenProbes) {
+            return false;
+        }
+        probesIssued++;
+        return true;
+    }
+
+    private synchronized void record(boolean bad) {
+        if (state == State.HALF_OPEN) {
+            if (bad) {
+                open();
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                state = State.CLOSED;
+                clearWindow();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return; // admitted before the breaker tripped
+        }
+
+        if (recorded == windowSize) {
+            if (window[next]) {
+                badCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = bad;
+        if (bad) {
+            badCalls++;
+        }
+        next = (next + 1) % windowSize;
+
+        if (recorded >= minimumCalls && badCalls >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        trips.increment();
+        clearWindow();
+    }
+
+    private void clearWindow() {
+        recorded = 0;
+        next = 0;
+        badCalls = 0;
+    }
+}
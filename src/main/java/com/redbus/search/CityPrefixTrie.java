@@ -0,0 +1,194 @@
+package com.redbus.search;
+
+import com.redbus.dto.CitySuggestion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Immutable prefix trie packed into flat arrays. Nodes are numbered in BFS order so the
+// children of node n are the contiguous range [firstChild[n], firstChild[n + 1]), sorted by
+// label. Every node carries its precomputed top-K cities, so a lookup is a walk down the
+// prefix followed by a copy of at most TOP_K entries.
+public final class CityPrefixTrie {
+
+    public static final int TOP_K = 10;
+
+    private static final CityPrefixTrie EMPTY = build(Map.of());
+
+    // Cities are ranked by weight on build, so a lower index always means a more popular city
+    private final String[] names;
+    private final long[] weights;
+
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] topStart;
+    private final int[] topCities;
+
+    private CityPrefixTrie(String[] names, long[] weights, char[] labels, int[] firstChild,
+                           int[] topStart, int[] topCities) {
+        this.names = names;
+        this.weights = weights;
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.topStart = topStart;
+        this.topCities = topCities;
+    }
+
+    public static CityPrefixTrie empty() {
+        return EMPTY;
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public static CityPrefixTrie build(Map<String, Long> cityWeights) {
+        // Collapse spellings that normalise to the same key, keeping the most popular display name
+        Map<String, String> displayNames = new HashMap<>();
+        Map<String, Long> keyWeights = new HashMap<>();
+        Map<String, Long> displayWeights = new HashMap<>();
+        for (Map.Entry<String, Long> entry : cityWeights.entrySet()) {
+            String key = normalize(entry.getKey());
+            if (key.isEmpty()) {
+                continue;
+            }
+            long weight = entry.getValue() != null ? entry.getValue() : 0L;
+            keyWeights.merge(key, weight, Long::sum);
+            if (!displayNames.containsKey(key) || weight > displayWeights.get(key)) {
+                displayNames.put(key, entry.getKey().trim());
+                displayWeights.put(key, weight);
+            }
+        }
+
+        List<String> keys = new ArrayList<>(keyWeights.keySet());
+        keys.sort(Comparator.<String>comparingLong(keyWeights::get).reversed().thenComparing(Comparator.naturalOrder()));
+
+        String[] names = new String[keys.size()];
+        long[] weights = new long[keys.size()];
+        BuildNode root = new BuildNode();
+        for (int city = 0; city < keys.size(); city++) {
+            String key = keys.get(city);
+            names[city] = displayNames.get(key);
+            weights[city] = keyWeights.get(key);
+
+            BuildNode node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new BuildNode());
+            }
+            node.city = city;
+        }
+        computeTop(root);
+
+        // Pack in BFS order
+        List<BuildNode> order = new ArrayList<>();
+        List<Character> edgeLabels = new ArrayList<>();
+        Deque<BuildNode> queue = new ArrayDeque<>();
+        order.add(root);
+        edgeLabels.add('\0');
+        queue.add(root);
+        List<Integer> firstChildList = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            BuildNode node = queue.poll();
+            firstChildList.add(order.size());
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                order.add(child.getValue());
+                edgeLabels.add(child.getKey());
+                queue.add(child.getValue());
+            }
+        }
+        firstChildList.add(order.size());
+
+        int nodeCount = order.size();
+        char[] labels = new char[nodeCount];
+        int[] firstChild = new int[nodeCount + 1];
+        int[] topStart = new int[nodeCount + 1];
+        int topSize = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            labels[n] = edgeLabels.get(n);
+            firstChild[n] = firstChildList.get(n);
+            topStart[n] = topSize;
+            topSize += order.get(n).top.length;
+        }
+        firstChild[nodeCount] = firstChildList.get(nodeCount);
+        topStart[nodeCount] = topSize;
+
+        int[] topCities = new int[topSize];
+        for (int n = 0; n < nodeCount; n++) {
+            int[] top = order.get(n).top;
+            System.arraycopy(top, 0, topCities, topStart[n], top.length);
+        }
+
+        return new CityPrefixTrie(names, weights, labels, firstChild, topStart, topCities);
+    }
+
+    public List<CitySuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            node = findChild(node, key.charAt(i));
+            if (node < 0) {
+                return List.of();
+            }
+        }
+
+        int from = topStart[node];
+        int to = Math.min(topStart[node + 1], from + Math.max(0, limit));
+        List<CitySuggestion> suggestions = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int city = topCities[i];
+            suggestions.add(new CitySuggestion(names[city], weights[city]));
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    private int findChild(int node, char label) {
+        int low = firstChild[node];
+        int high = firstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midLabel = labels[mid];
+            if (midLabel < label) {
+                low = mid + 1;
+            } else if (midLabel > label) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] computeTop(BuildNode node) {
+        int[] candidates = node.city >= 0 ? new int[]{node.city} : new int[0];
+        for (BuildNode child : node.children.values()) {
+            int[] childTop = computeTop(child);
+            int[] merged = Arrays.copyOf(candidates, candidates.length + childTop.length);
+            System.arraycopy(childTop, 0, merged, candidates.length, childTop.length);
+            Arrays.sort(merged);
+            candidates = merged.length > TOP_K ? Arrays.copyOf(merged, TOP_K) : merged;
+        }
+        node.top = candidates;
+        return candidates;
+    }
+
+    private static final class BuildNode {
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private int city = -1;
+        private int[] top;
+    }
+}
@@ -0,0 +1,177 @@
+package com.redbus.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Immutable trigram index over canonical city names. A lookup counts shared trigrams through
+// the posting lists to shortlist candidates, then confirms them with a bounded edit distance
+// that treats adjacent transpositions ("Mumbia") as a single edit. Resolutions are cached per
+// index instance, so a rebuild invalidates the cache for free.
+public final class CityTrigramIndex {
+
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final int MAX_CACHE_SIZE = 10_000;
+    private static final String NO_MATCH = "";
+
+    private final Map<String, String> canonicalByKey;
+    private final String[] keys;
+    private final String[] names;
+    private final int[] trigramCounts;
+    private final Map<String, int[]> postings;
+    private final Map<String, String> cache = new ConcurrentHashMap<>();
+
+    private CityTrigramIndex(Map<String, String> canonicalByKey, String[] keys, String[] names,
+                             int[] trigramCounts, Map<String, int[]> postings) {
+        this.canonicalByKey = canonicalByKey;
+        this.keys = keys;
+        this.names = names;
+        this.trigramCounts = trigramCounts;
+        this.postings = postings;
+    }
+
+    public static CityTrigramIndex empty() {
+        return build(List.of());
+    }
+
+    // Names are expected in preference order: on equal scores the earlier name wins
+    public static CityTrigramIndex build(Collection<String> cityNames) {
+        Map<String, String> canonicalByKey = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (String name : cityNames) {
+            String key = CityPrefixTrie.normalize(name);
+            if (!key.isEmpty() && canonicalByKey.putIfAbsent(key, name.trim()) == null) {
+                keys.add(key);
+                names.add(name.trim());
+            }
+        }
+
+        Map<String, List<Integer>> postingLists = new HashMap<>();
+        int[] trigramCounts = new int[keys.size()];
+        for (int city = 0; city < keys.size(); city++) {
+            Set<String> trigrams = trigrams(keys.get(city));
+            trigramCounts[city] = trigrams.size();
+            for (String trigram : trigrams) {
+                postingLists.computeIfAbsent(trigram, t -> new ArrayList<>()).add(city);
+            }
+        }
+
+        Map<String, int[]> postings = new HashMap<>();
+        postingLists.forEach((trigram, cities) ->
+                postings.put(trigram, cities.stream().mapToInt(Integer::intValue).toArray()));
+
+        return new CityTrigramIndex(canonicalByKey, keys.toArray(String[]::new), names.toArray(String[]::new),
+                trigramCounts, postings);
+    }
+
+    public Optional<String> resolve(String input) {
+        String key = CityPrefixTrie.normalize(input);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String exact = canonicalByKey.get(key);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+
+        String cached = cache.get(key);
+        if (cached == null) {
+            cached = findClosest(key);
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(key, cached);
+        }
+        return cached.equals(NO_MATCH) ? Optional.empty() : Optional.of(cached);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    private String findClosest(String key) {
+        Set<String> queryTrigrams = trigrams(key);
+        int[] shared = new int[keys.length];
+        for (String trigram : queryTrigrams) {
+            int[] cities = postings.get(trigram);
+            if (cities != null) {
+                for (int city : cities) {
+                    shared[city]++;
+                }
+            }
+        }
+
+        int maxEdits = key.length() <= 4 ? 1 : 2;
+        int bestCity = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        double bestSimilarity = 0;
+        for (int city = 0; city < keys.length; city++) {
+            if (shared[city] == 0) {
+                continue;
+            }
+            double similarity = 2.0 * shared[city] / (queryTrigrams.size() + trigramCounts[city]);
+            if (similarity < MIN_SIMILARITY || Math.abs(keys[city].length() - key.length()) > maxEdits) {
+                continue;
+            }
+            int distance = editDistance(key, keys[city], maxEdits);
+            if (distance > maxEdits) {
+                continue;
+            }
+            if (distance < bestDistance || (distance == bestDistance && similarity > bestSimilarity)) {
+                bestCity = city;
+                bestDistance = distance;
+                bestSimilarity = similarity;
+            }
+        }
+        return bestCity >= 0 ? names[bestCity] : NO_MATCH;
+    }
+
+    private static Set<String> trigrams(String key) {
+        String padded = "  " + key + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    // Optimal string alignment distance, abandoning early once every cell in a row exceeds the bound
+    static int editDistance(String a, String b, int bound) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
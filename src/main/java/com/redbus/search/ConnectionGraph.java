@@ -0,0 +1,337 @@
+package com.redbus.search;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Immutable, array-packed graph of city-to-city trips. Connections leaving city c occupy
+// [outStart[c], outStart[c + 1]) and are sorted by departure minute, so every scan is a
+// binary search followed by a linear walk. Times during a search are absolute minutes
+// from midnight of the travel date, which makes overnight legs and next-day
+// connections ordinary integers.
+public final class ConnectionGraph {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    // First leg leaves on the travel date; onward legs may leave up to two days later
+    private static final int HORIZON_DAYS = 3;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int INHERITED = -1;
+
+    private final String[] cityNames;
+    private final Map<String, Integer> cityIndex;
+    private final TripConnection[] trips;
+    private final int[] outStart;
+    private final int[] fromCity;
+    private final int[] toCity;
+    private final int[] departure;
+    private final int[] duration;
+    private final int[] dayMask;
+    private final long[] amenityMask;
+
+    private ConnectionGraph(String[] cityNames, Map<String, Integer> cityIndex, TripConnection[] trips,
+                            int[] outStart, int[] fromCity, int[] toCity) {
+        this.cityNames = cityNames;
+        this.cityIndex = cityIndex;
+        this.trips = trips;
+        this.outStart = outStart;
+        this.fromCity = fromCity;
+        this.toCity = toCity;
+        this.departure = new int[trips.length];
+        this.duration = new int[trips.length];
+        this.dayMask = new int[trips.length];
+        this.amenityMask = new long[trips.length];
+        for (int i = 0; i < trips.length; i++) {
+            departure[i] = trips[i].departureMinute();
+            duration[i] = trips[i].durationMinutes();
+            dayMask[i] = trips[i].dayMask();
+            amenityMask[i] = trips[i].amenityMask();
+        }
+    }
+
+    public static ConnectionGraph empty() {
+        return build(List.of());
+    }
+
+    public static ConnectionGraph build(Collection<TripConnection> connections) {
+        Map<String, Integer> cityIndex = new HashMap<>();
+        List<String> cityNames = new ArrayList<>();
+        for (TripConnection connection : connections) {
+            register(connection.origin(), cityIndex, cityNames);
+            register(connection.destination(), cityIndex, cityNames);
+        }
+
+        TripConnection[] trips = connections.stream()
+                .filter(c -> !CityPrefixTrie.normalize(c.origin()).equals(CityPrefixTrie.normalize(c.destination())))
+                .sorted(Comparator.<TripConnection>comparingInt(c -> cityIndex.get(CityPrefixTrie.normalize(c.origin())))
+                        .thenComparingInt(TripConnection::departureMinute))
+                .toArray(TripConnection[]::new);
+
+        int[] fromCity = new int[trips.length];
+        int[] toCity = new int[trips.length];
+        int[] outStart = new int[cityNames.size() + 1];
+        for (int i = 0; i < trips.length; i++) {
+            fromCity[i] = cityIndex.get(CityPrefixTrie.normalize(trips[i].origin()));
+            toCity[i] = cityIndex.get(CityPrefixTrie.normalize(trips[i].destination()));
+            outStart[fromCity[i] + 1]++;
+        }
+        for (int c = 0; c < cityNames.size(); c++) {
+            outStart[c + 1] += outStart[c];
+        }
+
+        return new ConnectionGraph(cityNames.toArray(String[]::new), cityIndex, trips, outStart, fromCity, toCity);
+    }
+
+    public int size() {
+        return trips.length;
+    }
+
+    // Round-based range search (rRAPTOR): departures from the origin are processed latest
+    // first while labels persist between them, so each journey reported is Pareto-optimal
+    // on (later departure, earlier arrival, fewer transfers).
+    public List<Journey> search(String origin, String destination, LocalDate travelDate,
+                                int maxTransfers, int minLayoverMinutes, int maxLayoverMinutes) {
+        return search(origin, destination, travelDate, maxTransfers, minLayoverMinutes, maxLayoverMinutes, AmenityFilter.NONE);
+    }
+
+    // Every leg of a journey has to pass the amenity filter
+    public List<Journey> search(String origin, String destination, LocalDate travelDate, int maxTransfers,
+                                int minLayoverMinutes, int maxLayoverMinutes, AmenityFilter amenities) {
+        Integer from = cityIndex.get(CityPrefixTrie.normalize(origin));
+        Integer to = cityIndex.get(CityPrefixTrie.normalize(destination));
+        if (from == null || to == null || from.equals(to)) {
+            return List.of();
+        }
+
+        int rounds = maxTransfers + 1;
+        int cityCount = cityNames.length;
+        int[][] arrival = new int[rounds + 1][cityCount];
+        int[][] parentTrip = new int[rounds + 1][cityCount];
+        int[][] parentDeparture = new int[rounds + 1][cityCount];
+        for (int k = 0; k <= rounds; k++) {
+            Arrays.fill(arrival[k], UNREACHED);
+            Arrays.fill(parentTrip[k], INHERITED);
+        }
+
+        int[] runsOn = new int[HORIZON_DAYS];
+        for (int day = 0; day < HORIZON_DAYS; day++) {
+            runsOn[day] = 1 << (travelDate.plusDays(day).getDayOfWeek().getValue() - 1);
+        }
+
+        List<Journey> journeys = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        boolean[] marked = new boolean[cityCount];
+        boolean[] nextMarked = new boolean[cityCount];
+
+        for (int start : departuresFrom(from, runsOn[0])) {
+            int[] bestBefore = new int[rounds + 1];
+            for (int k = 1; k <= rounds; k++) {
+                bestBefore[k] = arrival[k][to];
+            }
+
+            arrival[0][from] = start;
+            Arrays.fill(marked, false);
+            marked[from] = true;
+
+            for (int k = 1; k <= rounds; k++) {
+                for (int c = 0; c < cityCount; c++) {
+                    if (arrival[k - 1][c] < arrival[k][c]) {
+                        arrival[k][c] = arrival[k - 1][c];
+                        parentTrip[k][c] = INHERITED;
+                    }
+                }
+
+                Arrays.fill(nextMarked, false);
+                boolean anyMarked = false;
+                for (int p = 0; p < cityCount; p++) {
+                    if (!marked[p]) {
+                        continue;
+                    }
+                    if (k == 1) {
+                        anyMarked |= scanFirstLeg(p, start, runsOn[0], to, amenities,
+                                arrival, parentTrip, parentDeparture, nextMarked);
+                    } else {
+                        int ready = arrival[k - 1][p] + minLayoverMinutes;
+                        int latest = arrival[k - 1][p] + maxLayoverMinutes;
+                        anyMarked |= scanTransfer(k, p, ready, latest, from, to, runsOn, amenities,
+                                arrival, parentTrip, parentDeparture, nextMarked);
+                    }
+                }
+
+                boolean[] swap = marked;
+                marked = nextMarked;
+                nextMarked = swap;
+                if (!anyMarked) {
+                    break;
+                }
+            }
+
+            for (int k = 1; k <= rounds; k++) {
+                boolean improved = arrival[k][to] < bestBefore[k] && parentTrip[k][to] != INHERITED;
+                boolean dominatesFewerTrips = k == 1 || arrival[k][to] < arrival[k - 1][to];
+                if (improved && dominatesFewerTrips) {
+                    Journey journey = extract(k, from, to, arrival, parentTrip, parentDeparture,
+                            minLayoverMinutes, maxLayoverMinutes);
+                    if (journey != null && seen.add(journey.key())) {
+                        journeys.add(journey);
+                    }
+                }
+            }
+        }
+
+        journeys.sort(Comparator.comparingInt(Journey::arrivalMinute)
+                .thenComparingInt(Journey::transfers)
+                .thenComparing(Comparator.comparingInt(Journey::departureMinute).reversed()));
+        return journeys;
+    }
+
+    private boolean scanFirstLeg(int p, int start, int dayBit, int to, AmenityFilter amenities, int[][] arrival,
+                                 int[][] parentTrip, int[][] parentDeparture, boolean[] nextMarked) {
+        boolean anyMarked = false;
+        for (int i = firstDepartingAtOrAfter(p, start); i < outStart[p + 1] && departure[i] == start; i++) {
+            if ((dayMask[i] & dayBit) == 0 || !amenities.accepts(amenityMask[i])) {
+                continue;
+            }
+            anyMarked |= relax(1, i, start, to, arrival, parentTrip, parentDeparture, nextMarked);
+        }
+        return anyMarked;
+    }
+
+    private boolean scanTransfer(int k, int p, int ready, int latest, int from, int to, int[] runsOn,
+                                 AmenityFilter amenities, int[][] arrival, int[][] parentTrip, int[][] parentDeparture,
+                                 boolean[] nextMarked) {
+        boolean anyMarked = false;
+        for (int day = 0; day < HORIZON_DAYS; day++) {
+            int dayStart = day * MINUTES_PER_DAY;
+            if (dayStart + MINUTES_PER_DAY <= ready) {
+                continue;
+            }
+            if (dayStart > latest) {
+                break;
+            }
+            for (int i = firstDepartingAtOrAfter(p, Math.max(0, ready - dayStart)); i < outStart[p + 1]; i++) {
+                int absoluteDeparture = dayStart + departure[i];
+                if (absoluteDeparture > latest) {
+                    break;
+                }
+                if ((dayMask[i] & runsOn[day]) == 0 || toCity[i] == from || !amenities.accepts(amenityMask[i])) {
+                    continue;
+                }
+                anyMarked |= relax(k, i, absoluteDeparture, to, arrival, parentTrip, parentDeparture, nextMarked);
+            }
+        }
+        return anyMarked;
+    }
+
+    private boolean relax(int k, int trip, int absoluteDeparture, int to, int[][] arrival,
+                          int[][] parentTrip, int[][] parentDeparture, boolean[] nextMarked) {
+        int q = toCity[trip];
+        int arrivesAt = absoluteDeparture + duration[trip];
+        // Local pruning plus target pruning: nothing arriving after the best known arrival matters
+        if (arrivesAt >= arrival[k][q] || arrivesAt >= arrival[k][to]) {
+            return false;
+        }
+        arrival[k][q] = arrivesAt;
+        parentTrip[k][q] = trip;
+        parentDeparture[k][q] = absoluteDeparture;
+        nextMarked[q] = true;
+        return true;
+    }
+
+    private Journey extract(int round, int from, int to, int[][] arrival, int[][] parentTrip,
+                            int[][] parentDeparture, int minLayoverMinutes, int maxLayoverMinutes) {
+        List<Leg> legs = new ArrayList<>();
+        int k = round;
+        int city = to;
+        while (city != from) {
+            while (k > 0 && parentTrip[k][city] == INHERITED) {
+                k--;
+            }
+            if (k == 0) {
+                return null;
+            }
+            int trip = parentTrip[k][city];
+            int legDeparture = parentDeparture[k][city];
+            legs.add(0, new Leg(trips[trip], legDeparture, legDeparture + duration[trip]));
+            city = fromCity[trip];
+            k--;
+        }
+
+        // Labels persist across departures, so re-check the chain still honours the layover window
+        for (int i = 1; i < legs.size(); i++) {
+            int layover = legs.get(i).departureMinute() - legs.get(i - 1).arrivalMinute();
+            if (layover < minLayoverMinutes || layover > maxLayoverMinutes) {
+                return null;
+            }
+        }
+        if (legs.isEmpty() || legs.get(0).departureMinute() >= MINUTES_PER_DAY) {
+            return null;
+        }
+        return new Journey(legs);
+    }
+
+    private List<Integer> departuresFrom(int city, int dayBit) {
+        List<Integer> starts = new ArrayList<>();
+        for (int i = outStart[city + 1] - 1; i >= outStart[city]; i--) {
+            if ((dayMask[i] & dayBit) != 0 && (starts.isEmpty() || starts.get(starts.size() - 1) != departure[i])) {
+                starts.add(departure[i]);
+            }
+        }
+        return starts;
+    }
+
+    private int firstDepartingAtOrAfter(int city, int minute) {
+        int low = outStart[city];
+        int high = outStart[city + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departure[mid] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void register(String city, Map<String, Integer> cityIndex, List<String> cityNames) {
+        String key = CityPrefixTrie.normalize(city);
+        if (!cityIndex.containsKey(key)) {
+            cityIndex.put(key, cityNames.size());
+            cityNames.add(city.trim());
+        }
+    }
+
+    public record Leg(TripConnection trip, int departureMinute, int arrivalMinute) {
+    }
+
+    public record Journey(List<Leg> legs) {
+
+        public int departureMinute() {
+            return legs.get(0).departureMinute();
+        }
+
+        public int arrivalMinute() {
+            return legs.get(legs.size() - 1).arrivalMinute();
+        }
+
+        public int transfers() {
+            return legs.size() - 1;
+        }
+
+        private String key() {
+            StringBuilder key = new StringBuilder();
+            for (Leg leg : legs) {
+                key.append(leg.trip().scheduleId()).append('@').append(leg.departureMinute()).append(';');
+            }
+            return key.toString();
+        }
+    }
+}
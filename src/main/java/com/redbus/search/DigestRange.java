@@ -0,0 +1,67 @@
+package com.redbus.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One id range of the search reconciliation: how many (schedule, travel date) documents fall in
+// [fromId, toId] and the sum of their per-document digests. Sums are order independent, so
+// Postgres and Elasticsearch can each aggregate a range without agreeing on row order, and a
+// range whose count and digest match on both sides needs no further look.
+public record DigestRange(long fromId, long toId, long documents, long digest) {
+
+    // Each term is the square of a mixed value modulo a Mersenne prime, reduced again so
+    // that a sum over millions of documents stays exact in the double the index sums into
+    public static final String SQL_TERM =
+            "MOD(MOD(x.h * x.h, 2147483647), 999983)";
+    public static final String SQL_MIX =
+            "MOD(MOD(MOD(s.id, 2147483647) * 1000003 " +
+            "+ MOD(CAST(FLOOR(EXTRACT(EPOCH FROM s.updated_at) * 1000) AS bigint), 2147483647), 2147483647) * 1000003 " +
+            "+ (CAST(d.travel_date AS date) - DATE '1970-01-01'), 2147483647)";
+    public static final String PAINLESS_TERM =
+            "long p = 2147483647L;" +
+            "long id = doc['scheduleId'].value;" +
+            "long millis = doc['updatedAt'].value.toInstant().toEpochMilli();" +
+            "long day = doc['travelDate'].value.toLocalDate().toEpochDay();" +
+            "long h = ((id % p) * 1000003L + millis % p) % p;" +
+            "h = (h * 1000003L + day) % p;" +
+            "return (h * h) % p % 999983L;";
+
+    public static DigestRange empty(long fromId, long toId) {
+        return new DigestRange(fromId, toId, 0, 0);
+    }
+
+    // Same formula as SQL_MIX/SQL_TERM and PAINLESS_TERM, for a single document
+    public static long term(long scheduleId, long updatedAtMillis, long travelEpochDay) {
+        long p = 2147483647L;
+        long h = ((scheduleId % p) * 1000003L + updatedAtMillis % p) % p;
+        h = (h * 1000003L + travelEpochDay) % p;
+        return (h * h) % p % 999983L;
+    }
+
+    // Width of each child when [fromId, toId] is cut into at most fanout equal ranges
+    public static long childWidth(long fromId, long toId, int fanout) {
+        long span = toId - fromId + 1;
+        return Math.max(1, (span + fanout - 1) / fanout);
+    }
+
+    public static List<DigestRange> split(long fromId, long toId, int fanout) {
+        long width = childWidth(fromId, toId, fanout);
+        List<DigestRange> children = new ArrayList<>();
+        for (long from = fromId; from <= toId; from += width) {
+            children.add(empty(from, Math.min(toId, from + width - 1)));
+        }
+        return children;
+    }
+
+    public DigestRange plus(long documents, long digest) {
+        return new DigestRange(fromId, toId, this.documents + documents, this.digest + digest);
+    }
+
+    public boolean isSingleId() {
+        return fromId == toId;
+    }
+
+    public boolean matches(DigestRange other) {
+        return documents == other.documents && digest == other.digest;
+    }
+}
@@ -0,0 +1,37 @@
+package com.redbus.search;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// The one rule for which dates a schedule runs on, shared by the search documents, the
+// connection graph and the reconciliation SQL. No day list means every day; otherwise only
+// the ISO days listed (1 = Monday), so an empty list means the schedule never runs.
+public final class RunningDays {
+
+    // Bit (isoDayOfWeek - 1) per day the trip runs
+    public static final int ALL_DAYS = 0b1111111;
+
+    // Same rule in Postgres, for a schedule "s" and a date "d.travel_date"
+    public static final String SQL_RUNS_ON =
+            "(s.days_of_week IS NULL OR CAST(EXTRACT(ISODOW FROM d.travel_date) AS integer) = ANY(s.days_of_week))";
+
+    private RunningDays() {
+    }
+
+    public static int mask(List<Integer> daysOfWeek) {
+        if (daysOfWeek == null) {
+            return ALL_DAYS;
+        }
+        int mask = 0;
+        for (Integer day : daysOfWeek) {
+            if (day != null && day >= 1 && day <= 7) {
+                mask |= 1 << (day - 1);
+            }
+        }
+        return mask;
+    }
+
+    public static boolean runsOn(List<Integer> daysOfWeek, LocalDate date) {
+        return (mask(daysOfWeek) & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+    }
+}
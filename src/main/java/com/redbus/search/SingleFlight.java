@@ -0,0 +1,104 @@
+package com.redbus.search;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Collapses concurrent calls for the same key into one: the first caller runs the loader,
+// everyone arriving while it is in flight blocks on its result. Nothing is cached once the
+// call completes. The number of blocked followers is capped across all keys, so a slow
+// backend cannot pile up an unbounded number of waiting request threads.
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final int maxWaiters;
+    private final long waitTimeoutMillis;
+
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public SingleFlight(int maxWaiters, long waitTimeoutMillis) {
+        this.maxWaiters = maxWaiters;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing == null) {
+            return lead(key, call, loader);
+        }
+        return follow(existing);
+    }
+
+    private V lead(K key, CompletableFuture<V> call, Supplier<V> loader) {
+        leaders.increment();
+        try {
+            V result = loader.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private V follow(CompletableFuture<V> call) {
+        if (waiters.incrementAndGet() > maxWaiters) {
+            waiters.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Too many callers waiting on in-flight requests");
+        }
+        followers.increment();
+        try {
+            return call.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RejectedExecutionException("Timed out waiting on an in-flight request");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting on an in-flight request");
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    public int waiters() {
+        return waiters.get();
+    }
+
+    public long leaders() {
+        return leaders.sum();
+    }
+
+    public long followers() {
+        return followers.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public double coalescingRatio() {
+        long shared = followers.sum();
+        long total = shared + leaders.sum();
+        return total == 0 ? 0.0 : (double) shared / total;
+    }
+}
@@ -0,0 +1,22 @@
+package com.redbus.search;
+
+import java.math.BigDecimal;
+
+// One scheduled departure between two cities, flattened for the connection graph.
+// dayMask has bit (isoDayOfWeek - 1) set for every day the trip runs; amenityMask uses the
+// Amenity catalogue bits.
+public record TripConnection(
+        long scheduleId,
+        String origin,
+        String destination,
+        int departureMinute,
+        int durationMinutes,
+        int dayMask,
+        BigDecimal price,
+        String busNumber,
+        String busType,
+        String operatorName,
+        long amenityMask) {
+
+    public static final int ALL_DAYS = RunningDays.ALL_DAYS;
+}
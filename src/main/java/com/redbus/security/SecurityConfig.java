@@ -44,7 +44,7 @@ public class SecurityConfig {
                        .requestMatchers("/auth/**").permitAll()
                        .requestMatchers("/public/**").permitAll()
                        .requestMatchers("/search/**").permitAll()
-                       .requestMatchers("/sync/**").permitAll()
+                       .requestMatchers("/sync/**").hasRole("ADMIN")
                        .requestMatchers("/actuator/**").permitAll()
                        .requestMatchers("/tracking/bus/*/current").permitAll()
                        .requestMatchers("/tracking/bus/*/history").permitAll()
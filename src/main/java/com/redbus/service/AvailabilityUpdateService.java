@@ -0,0 +1,150 @@
+package com.redbus.service;
+
+import com.redbus.document.BusSearchDocument;
+import com.redbus.entity.Booking;
+import com.redbus.event.BookingChangedEvent;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.search.ChangeBatcher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps seat availability in the search index current without a read-modify-write per
+// booking. Commits only record which (schedule, travel date) documents changed; a flusher
+// drains them once per window, recounts held seats for the whole batch in one query and
+// sends one scripted partial update per document. A burst of bookings on one trip becomes a
+// single index write. Counts are absolute, so a retried or duplicated flush cannot drift.
+// A document that keeps failing is retried a bounded number of windows and then dropped;
+// the next full resync finds its content hash stale and rewrites it from Postgres.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityUpdateService {
+    
+    private final BookingRepository bookingRepository;
+    private final SearchIndexService searchIndexService;
+    
+    @Value("${app.search.availability.flush-ms:250}")
+    private long flushMillis;
+    
+    @Value("${app.search.availability.max-batch:1000}")
+    private int maxBatch;
+    
+    @Value("${app.search.availability.horizon-days:60}")
+    private int horizonDays;
+    
+    @Value("${app.search.availability.max-retries:5}")
+    private int maxRetries;
+    
+    private ChangeBatcher<BookingChangedEvent> batcher;
+    private final Map<BookingChangedEvent, Integer> failures = new ConcurrentHashMap<>(); // consecutive failed flushes
+    private ScheduledExecutorService flusher;
+    
+    @PostConstruct
+    public void init() {
+        // The window runs from the first change, however busy the trip stays
+        batcher = new ChangeBatcher<>(flushMillis, flushMillis, maxBatch);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = Math.max(10, flushMillis / 10);
+        flusher.scheduleWithFixedDelay(this::flushIfReady, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        if (batcher.size() > 0) {
+            flush();
+        }
+    }
+    
+    // Bookings, cancellations and refunds all publish this once they commit
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        batcher.add(event);
+    }
+    
+    private void flushIfReady() {
+        if (batcher.ready()) {
+            flush();
+        }
+    }
+    
+    public void flush() {
+        Set<BookingChangedEvent> batch = batcher.drain();
+        LocalDate firstDate = LocalDate.now();
+        LocalDate lastDate = firstDate.plusDays(horizonDays - 1L);
+        // Nothing is indexed outside the horizon
+        List<BookingChangedEvent> changes = batch.stream()
+                .filter(change -> !change.travelDate().isBefore(firstDate) && !change.travelDate().isAfter(lastDate))
+                .toList();
+        if (changes.isEmpty()) {
+            return;
+        }
+        
+        try {
+            Set<Long> scheduleIds = new HashSet<>();
+            LocalDate from = lastDate;
+            LocalDate to = firstDate;
+            for (BookingChangedEvent change : changes) {
+                scheduleIds.add(change.scheduleId());
+                from = change.travelDate().isBefore(from) ? change.travelDate() : from;
+                to = change.travelDate().isAfter(to) ? change.travelDate() : to;
+            }
+            Map<String, Long> held = new HashMap<>();
+            for (Object[] row : bookingRepository.countHeldSeatsBySchedulesBetween(scheduleIds, from, to,
+                    Booking.BookingStatus.CANCELLED)) {
+                held.put(BusSearchDocument.documentId((Long) row[0], (LocalDate) row[1]), ((Number) row[2]).longValue());
+            }
+            
+            Map<String, Long> heldSeatsById = new HashMap<>();
+            for (BookingChangedEvent change : changes) {
+                String id = BusSearchDocument.documentId(change.scheduleId(), change.travelDate());
+                heldSeatsById.put(id, held.getOrDefault(id, 0L)); // no row means every seat is free again
+            }
+            Set<String> failed = searchIndexService.updateHeldSeats(heldSeatsById);
+            for (BookingChangedEvent change : changes) {
+                if (failed.contains(BusSearchDocument.documentId(change.scheduleId(), change.travelDate()))) {
+                    retryLater(change);
+                } else {
+                    failures.remove(change);
+                }
+            }
+            log.debug("Flushed availability of {} documents, {} failed", heldSeatsById.size(), failed.size());
+        } catch (Exception e) {
+            // Keep the changes for the next window; the recount then picks up anything newer as well
+            log.error("Failed to update availability for {} documents: {}", changes.size(), e.getMessage());
+            changes.forEach(this::retryLater);
+        }
+    }
+    
+    private void retryLater(BookingChangedEvent change) {
+        int attempts = failures.merge(change, 1, Integer::sum);
+        if (attempts > maxRetries) {
+            failures.remove(change);
+            log.warn("Dropping availability update for schedule {} on {} after {} failed flushes",
+                    change.scheduleId(), change.travelDate(), attempts);
+            return;
+        }
+        batcher.add(change);
+    }
+}
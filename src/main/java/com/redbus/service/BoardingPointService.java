@@ -0,0 +1,63 @@
+package com.redbus.service;
+
+import com.redbus.entity.BoardingPoint;
+import com.redbus.entity.Route;
+import com.redbus.event.RouteChangedEvent;
+import com.redbus.repository.jpa.BoardingPointRepository;
+import com.redbus.repository.jpa.RouteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class BoardingPointService {
+    
+    private final BoardingPointRepository boardingPointRepository;
+    private final RouteRepository routeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Transactional(readOnly = true)
+    public List<BoardingPoint> getBoardingPointsByRoute(Long routeId) {
+        return boardingPointRepository.findByRouteIdAndIsActiveTrueOrderByPointTypeAscNameAsc(routeId);
+    }
+    
+    @Transactional
+    public BoardingPoint createBoardingPoint(Long routeId, BoardingPoint boardingPoint) {
+        Route route = routeRepository.findById(routeId)
+                .orElseThrow(() -> new IllegalArgumentException("Route not found with id: " + routeId));
+        boardingPoint.setRoute(route);
+        BoardingPoint savedPoint = boardingPointRepository.save(boardingPoint);
+        // Search documents embed the route's points, so the route's schedules are re-indexed
+        eventPublisher.publishEvent(new RouteChangedEvent(routeId));
+        return savedPoint;
+    }
+    
+    @Transactional
+    public BoardingPoint updateBoardingPoint(Long id, BoardingPoint boardingPoint) {
+        BoardingPoint existingPoint = boardingPointRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Boarding point not found with id: " + id));
+        
+        existingPoint.setName(boardingPoint.getName());
+        existingPoint.setPointType(boardingPoint.getPointType());
+        existingPoint.setAddress(boardingPoint.getAddress());
+        existingPoint.setLatitude(boardingPoint.getLatitude());
+        existingPoint.setLongitude(boardingPoint.getLongitude());
+        
+        BoardingPoint updatedPoint = boardingPointRepository.save(existingPoint);
+        eventPublisher.publishEvent(new RouteChangedEvent(existingPoint.getRoute().getId()));
+        return updatedPoint;
+    }
+    
+    @Transactional
+    public void deleteBoardingPoint(Long id) {
+        BoardingPoint existingPoint = boardingPointRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Boarding point not found with id: " + id));
+        existingPoint.setIsActive(false);
+        boardingPointRepository.save(existingPoint);
+        eventPublisher.publishEvent(new RouteChangedEvent(existingPoint.getRoute().getId()));
+    }
+}
@@ -5,7 +5,9 @@ import com.redbus.dto.BookingResponse;
 import com.redbus.dto.SeatBookingRequest;
 import com.redbus.entity.*;
 import com.redbus.repository.jpa.*;
+import com.redbus.event.BookingChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,7 @@ public class BookingService {
     private final ScheduleRepository scheduleRepository;
     private final UserService userService;
     private final SeatBookingRepository seatBookingRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<Booking> getUserBookings(Long userId) {
@@ -77,6 +80,8 @@ public class BookingService {
             seatBookingRepository.save(seatBooking);
         }
         
+        // Search availability is updated once the booking commits
+        eventPublisher.publishEvent(new BookingChangedEvent(schedule.getId(), booking.getBookingDate()));
         return BookingResponse.fromBooking(booking);
     }
     
@@ -96,6 +101,7 @@ public class BookingService {
         
         booking.setStatus(Booking.BookingStatus.CANCELLED);
         bookingRepository.save(booking);
+        eventPublisher.publishEvent(new BookingChangedEvent(booking.getSchedule().getId(), booking.getBookingDate()));
     }
     
     @Transactional
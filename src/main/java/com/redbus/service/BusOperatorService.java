@@ -1,8 +1,10 @@
 package com.redbus.service;
 
 import com.redbus.entity.BusOperator;
+import com.redbus.event.OperatorChangedEvent;
 import com.redbus.repository.jpa.BusOperatorRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +16,7 @@ import java.util.Optional;
 public class BusOperatorService {
     
     private final BusOperatorRepository busOperatorRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<BusOperator> getAllOperators() {
@@ -42,7 +45,9 @@ public class BusOperatorService {
         existingOperator.setContactEmail(operator.getContactEmail());
         existingOperator.setContactPhone(operator.getContactPhone());
         
-        return busOperatorRepository.save(existingOperator);
+        BusOperator savedOperator = busOperatorRepository.save(existingOperator);
+        eventPublisher.publishEvent(new OperatorChangedEvent(id));
+        return savedOperator;
     }
     
     @Transactional
@@ -52,5 +57,6 @@ public class BusOperatorService {
         
         operator.setIsActive(false);
         busOperatorRepository.save(operator);
+        eventPublisher.publishEvent(new OperatorChangedEvent(id));
     }
 }
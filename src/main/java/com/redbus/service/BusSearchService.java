@@ -2,90 +2,387 @@ package com.redbus.service;
 
 import com.redbus.dto.BusSearchRequest;
 import com.redbus.dto.BusSearchResponse;
+import com.redbus.dto.BusSearchResults;
+import com.redbus.dto.NearbySearchRequest;
+import com.redbus.dto.RoundTripSearchRequest;
+import com.redbus.dto.RoundTripSearchResults;
+import co.elastic.clients.elasticsearch._types.aggregations.StatsAggregate;
+import com.redbus.document.BoardingPointLocation;
 import com.redbus.document.BusSearchDocument;
 import com.redbus.entity.Schedule;
 import com.redbus.repository.jpa.ScheduleRepository;
 import com.redbus.repository.jpa.BookingRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.redbus.search.Amenity;
+import com.redbus.search.AmenityFilter;
+import com.redbus.search.CircuitBreaker;
+import com.redbus.search.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class BusSearchService {
     
+    private static final int STREAM_FLUSH_EVERY = 100;
+    
     private final ScheduleRepository scheduleRepository;
     private final BookingRepository bookingRepository;
     private final ElasticsearchService elasticsearchService;
+    private final DatabaseSearchService databaseSearchService;
+    private final CityIndexService cityIndexService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${app.search.coalescing.max-waiters:1000}")
+    private int maxWaiters;
+    
+    @Value("${app.search.coalescing.wait-timeout-ms:5000}")
+    private long waitTimeoutMillis;
+    
+    @Value("${app.search.breaker.window-size:20}")
+    private int breakerWindowSize;
+    
+    @Value("${app.search.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+    
+    @Value("${app.search.breaker.failure-rate-threshold:0.5}")
+    private double breakerFailureRateThreshold;
+    
+    @Value("${app.search.breaker.slow-call-ms:1000}")
+    private long breakerSlowCallMillis;
+    
+    @Value("${app.search.breaker.open-ms:30000}")
+    private long breakerOpenMillis;
+    
+    @Value("${app.search.breaker.half-open-probes:3}")
+    private int breakerHalfOpenProbes;
+    
+    // Identical searches that arrive while one is already running share its result
+    private SingleFlight<SearchKey, BusSearchResults> singleFlight;
+    
+    // Errors or slow responses from Elasticsearch switch searches to the database until probes succeed
+    private CircuitBreaker circuitBreaker;
+    
+    @PostConstruct
+    public void init() {
+        circuitBreaker = new CircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRateThreshold,
+                Duration.ofMillis(breakerSlowCallMillis), Duration.ofMillis(breakerOpenMillis), breakerHalfOpenProbes);
+        Gauge.builder("search.breaker.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Elasticsearch circuit: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        FunctionCounter.builder("search.breaker.fallbacks", circuitBreaker, CircuitBreaker::fallbacks)
+                .description("Searches served from the database instead of Elasticsearch")
+                .register(meterRegistry);
+        FunctionCounter.builder("search.breaker.trips", circuitBreaker, CircuitBreaker::trips)
+                .description("Times the Elasticsearch circuit opened")
+                .register(meterRegistry);
+        
+        singleFlight = new SingleFlight<>(maxWaiters, waitTimeoutMillis);
+        FunctionCounter.builder("search.coalescing.calls", singleFlight, SingleFlight::leaders)
+                .tag("role", "leader")
+                .description("Searches that went to Elasticsearch")
+                .register(meterRegistry);
+        FunctionCounter.builder("search.coalescing.calls", singleFlight, SingleFlight::followers)
+                .tag("role", "follower")
+                .description("Searches served by an identical in-flight search")
+                .register(meterRegistry);
+        FunctionCounter.builder("search.coalescing.calls", singleFlight, SingleFlight::rejected)
+                .tag("role", "rejected")
+                .description("Searches rejected because too many callers were already waiting")
+                .register(meterRegistry);
+        Gauge.builder("search.coalescing.waiters", singleFlight, SingleFlight::waiters)
+                .description("Callers currently blocked on an in-flight search")
+                .register(meterRegistry);
+        Gauge.builder("search.coalescing.ratio", singleFlight, SingleFlight::coalescingRatio)
+                .description("Share of searches served without their own backend call")
+                .register(meterRegistry);
+    }
     
-    @Transactional(readOnly = true)
     public List<BusSearchResponse> searchBuses(BusSearchRequest request) {
-        List<BusSearchDocument> documents;
+        return search(request, false).getResults();
+    }
+    
+    public BusSearchResults search(BusSearchRequest request) {
+        return search(request, false);
+    }
+    
+    public BusSearchResults searchBusesWithFacets(BusSearchRequest request) {
+        return search(request, true);
+    }
+    
+    public RoundTripSearchResults searchRoundTrip(RoundTripSearchRequest request) {
+        if (request.getReturnDate().isBefore(request.getOutboundDate())) {
+            throw new IllegalArgumentException("Return date cannot be before the outbound date");
+        }
+        
+        BusSearchRequest outbound = normalize(BusSearchRequest.builder()
+                .origin(request.getOrigin())
+                .destination(request.getDestination())
+                .travelDate(request.getOutboundDate())
+                .busType(request.getBusType())
+                .minPrice(request.getMinPrice())
+                .maxPrice(request.getMaxPrice())
+                .amenities(request.getAmenities())
+                .amenityMatch(request.getAmenityMatch())
+                .sortBy(request.getSortBy())
+                .sortOrder(request.getSortOrder())
+                .build());
+        BusSearchRequest inbound = outbound.toBuilder()
+                .origin(outbound.getDestination())
+                .destination(outbound.getOrigin())
+                .travelDate(request.getReturnDate())
+                .build();
+        
+        return circuitBreaker.execute(
+                () -> indexedRoundTrip(outbound, inbound),
+                () -> databaseRoundTrip(outbound, inbound));
+    }
+    
+    private RoundTripSearchResults indexedRoundTrip(BusSearchRequest outbound, BusSearchRequest inbound) {
+        List<SearchHits<BusSearchDocument>> legs = elasticsearchService.searchLegs(List.of(outbound, inbound));
+        SearchHits<BusSearchDocument> outboundHits = legs.get(0);
+        SearchHits<BusSearchDocument> inboundHits = legs.get(1);
+        
+        RoundTripSearchResults.RoundTripSearchResultsBuilder results = RoundTripSearchResults.builder()
+                .outbound(toResponses(outboundHits))
+                .outboundTotalHits(outboundHits.getTotalHits())
+                .inbound(toResponses(inboundHits))
+                .inboundTotalHits(inboundHits.getTotalHits());
         
-        // Use Elasticsearch for powerful search
-        if (request.getBusType() != null && request.getMinPrice() != null && request.getMaxPrice() != null) {
-            documents = elasticsearchService.searchBusesWithFilters(
-                request.getOrigin(), 
-                request.getDestination(), 
-                request.getBusType(),
-                request.getMinPrice() != null ? BigDecimal.valueOf(request.getMinPrice()) : null,
-                request.getMaxPrice() != null ? BigDecimal.valueOf(request.getMaxPrice()) : null
-            );
-        } else if (request.getBusType() != null) {
-            documents = elasticsearchService.searchBusesByBusType(
-                request.getOrigin(), 
-                request.getDestination(), 
-                request.getBusType()
-            );
-        } else if (request.getMinPrice() != null && request.getMaxPrice() != null) {
-            documents = elasticsearchService.searchBusesByPriceRange(
-                request.getOrigin(), 
-                request.getDestination(), 
-                request.getMinPrice() != null ? BigDecimal.valueOf(request.getMinPrice()) : null,
-                request.getMaxPrice() != null ? BigDecimal.valueOf(request.getMaxPrice()) : null
-            );
-        } else {
-            documents = elasticsearchService.searchBuses(request.getOrigin(), request.getDestination());
+        Optional<StatsAggregate> outboundPrices = elasticsearchService.priceStats(outboundHits);
+        Optional<StatsAggregate> inboundPrices = elasticsearchService.priceStats(inboundHits);
+        if (outboundPrices.isPresent() && inboundPrices.isPresent()) {
+            results.minTotalFare(BigDecimal.valueOf(outboundPrices.get().min() + inboundPrices.get().min()))
+                    .maxTotalFare(BigDecimal.valueOf(outboundPrices.get().max() + inboundPrices.get().max()));
         }
+        return results.build();
+    }
+    
+    private RoundTripSearchResults databaseRoundTrip(BusSearchRequest outbound, BusSearchRequest inbound) {
+        BusSearchResults outboundResults = databaseSearchService.search(outbound);
+        BusSearchResults inboundResults = databaseSearchService.search(inbound);
+        RoundTripSearchResults.RoundTripSearchResultsBuilder results = RoundTripSearchResults.builder()
+                .outbound(outboundResults.getResults())
+                .outboundTotalHits(outboundResults.getTotalHits())
+                .inbound(inboundResults.getResults())
+                .inboundTotalHits(inboundResults.getTotalHits())
+                .degraded(true);
+        // No aggregations on this path; the bounds cover the departures returned
+        if (!outboundResults.getResults().isEmpty() && !inboundResults.getResults().isEmpty()) {
+            results.minTotalFare(minPrice(outboundResults).add(minPrice(inboundResults)))
+                    .maxTotalFare(maxPrice(outboundResults).add(maxPrice(inboundResults)));
+        }
+        return results.build();
+    }
+    
+    private BigDecimal minPrice(BusSearchResults results) {
+        return results.getResults().stream().map(BusSearchResponse::getPrice).min(BigDecimal::compareTo).orElseThrow();
+    }
+    
+    private BigDecimal maxPrice(BusSearchResults results) {
+        return results.getResults().stream().map(BusSearchResponse::getPrice).max(BigDecimal::compareTo).orElseThrow();
+    }
+    
+    public List<BusSearchResponse> searchNearby(NearbySearchRequest request) {
+        NearbySearchRequest resolved = request.toBuilder()
+                .destination(cityIndexService.resolveCity(request.getDestination()))
+                .busType(request.getBusType() != null ? request.getBusType().toUpperCase(Locale.ROOT) : null)
+                .build();
         
-        // Apply sorting if specified
-        if (request.getSortBy() != null) {
-            documents = applyElasticsearchSorting(documents, request.getSortBy(), request.getSortOrder());
+        return elasticsearchService.searchNearby(resolved).getSearchHits().stream()
+                .map(hit -> {
+                    BusSearchResponse response = convertToResponse(hit.getContent());
+                    // The first sort value is the distance Elasticsearch ranked by
+                    if (!hit.getSortValues().isEmpty() && hit.getSortValues().get(0) instanceof Number distance) {
+                        response.setBoardingDistanceKm(Math.round(distance.doubleValue() * 100) / 100.0);
+                    }
+                    response.setBoardingPoint(nearestBoardingPoint(hit.getContent(), request.getLatitude(), request.getLongitude()));
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+    
+    public void streamBuses(BusSearchRequest request, OutputStream outputStream) throws IOException {
+        openStream(request).writeTo(outputStream);
+    }
+    
+    // Opening the scroll fetches the first batch, so it goes through the breaker like any other
+    // search and falls back to the database results when Elasticsearch is unavailable. This
+    // runs before the response starts, so the caller knows whether the stream is degraded
+    // while it can still set headers.
+    public SearchStream openStream(BusSearchRequest request) {
+        BusSearchRequest normalized = normalize(request);
+        Optional<SearchHitsIterator<BusSearchDocument>> scroll = circuitBreaker.execute(
+                () -> Optional.of(elasticsearchService.streamSearch(normalized)),
+                Optional::empty);
+        if (scroll.isPresent()) {
+            return new SearchStream(normalized, scroll.get(), null);
+        }
+        return new SearchStream(normalized, null, databaseSearchService.search(normalized).getResults());
+    }
+    
+    // Writes one JSON object per line as hits arrive from the scroll, so memory stays flat
+    // however large the corridor is and the first line goes out after the first batch
+    public final class SearchStream {
+        
+        private final BusSearchRequest request;
+        private final SearchHitsIterator<BusSearchDocument> scroll;
+        private final List<BusSearchResponse> fallback;
+        
+        private SearchStream(BusSearchRequest request, SearchHitsIterator<BusSearchDocument> scroll,
+                             List<BusSearchResponse> fallback) {
+            this.request = request;
+            this.scroll = scroll;
+            this.fallback = fallback;
+        }
+        
+        // True when the lines come from the database fallback rather than the index
+        public boolean isDegraded() {
+            return scroll == null;
         }
         
-        // Convert to response DTOs and filter by available seats
-        return documents.stream()
-            .filter(doc -> doc.getAvailableSeats() > 0) // Only show buses with available seats
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // The servlet container owns the response stream
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                
+                if (scroll == null) {
+                    for (BusSearchResponse response : fallback) {
+                        writeLine(writer, generator, response);
+                    }
+                } else {
+                    try (SearchHitsIterator<BusSearchDocument> hits = scroll) {
+                        int written = 0;
+                        while (hits.hasNext()) {
+                            writeLine(writer, generator, convertToResponse(hits.next().getContent()));
+                            if (++written % STREAM_FLUSH_EVERY == 0) {
+                                generator.flush();
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        // The 200 and earlier lines are already out, so a last line has to tell the
+                        // client the stream is incomplete rather than letting it end as if it were whole
+                        log.warn("Search stream {} -> {} failed part-way: {}",
+                                request.getOrigin(), request.getDestination(), e.getMessage());
+                        writeLine(writer, generator, new StreamError("Search failed before all results were sent"));
+                    }
+                }
+                generator.flush();
+            }
+        }
+    }
+    
+    private void writeLine(ObjectWriter writer, JsonGenerator generator, Object value) throws IOException {
+        writer.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+    
+    private BusSearchResults search(BusSearchRequest request, boolean includeFacets) {
+        BusSearchRequest normalized = normalize(request);
+        try {
+            return singleFlight.execute(new SearchKey(normalized, includeFacets),
+                    () -> executeSearch(normalized, includeFacets));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search is busy, please retry", e);
+        }
+    }
+    
+    private BusSearchResults executeSearch(BusSearchRequest request, boolean includeFacets) {
+        return circuitBreaker.execute(
+                () -> searchIndex(request, includeFacets),
+                () -> databaseSearchService.search(request));
+    }
+    
+    private BusSearchResults searchIndex(BusSearchRequest request, boolean includeFacets) {
+        // Filtering, availability and sorting all happen inside Elasticsearch
+        SearchHits<BusSearchDocument> searchHits = elasticsearchService.search(request, includeFacets);
+        
+        return BusSearchResults.builder()
+                .results(toResponses(searchHits))
+                .totalHits(searchHits.getTotalHits())
+                .facets(includeFacets ? elasticsearchService.extractFacets(searchHits) : null)
+                .build();
+    }
+    
+    private List<BusSearchResponse> toResponses(SearchHits<BusSearchDocument> searchHits) {
+        return searchHits.getSearchHits().stream()
+            .map(SearchHit::getContent)
             .map(this::convertToResponse)
             .collect(Collectors.toList());
     }
     
-    private List<BusSearchDocument> applyElasticsearchSorting(List<BusSearchDocument> documents, String sortBy, String sortOrder) {
-        return documents.stream()
-            .sorted((d1, d2) -> {
-                int comparison = 0;
-                switch (sortBy.toLowerCase()) {
-                    case "price":
-                        comparison = d1.getPrice().compareTo(d2.getPrice());
-                        break;
-                    case "departure":
-                        comparison = d1.getDepartureTime().compareTo(d2.getDepartureTime());
-                        break;
-                    case "duration":
-                        comparison = Integer.compare(d1.getDurationMinutes(), d2.getDurationMinutes());
-                        break;
-                    default:
-                        comparison = d1.getDepartureTime().compareTo(d2.getDepartureTime());
-                }
-                return "desc".equalsIgnoreCase(sortOrder) ? -comparison : comparison;
-            })
-            .collect(Collectors.toList());
+    // Resolve typos and stray whitespace in city names before they reach the query. The result
+    // is also the coalescing key, so requests that differ only in spelling or case share a call.
+    private BusSearchRequest normalize(BusSearchRequest request) {
+        // Rejects bad amenity parameters here, before they could count as an Elasticsearch failure
+        AmenityFilter.of(request.getAmenities(), request.getAmenityMatch());
+        return request.toBuilder()
+                .origin(cityIndexService.resolveCity(request.getOrigin()))
+                .destination(cityIndexService.resolveCity(request.getDestination()))
+                .travelDate(request.getTravelDate() != null ? request.getTravelDate() : LocalDate.now())
+                .busType(request.getBusType() != null ? request.getBusType().toUpperCase(Locale.ROOT) : null)
+                .amenities(request.getAmenities() != null && !request.getAmenities().isEmpty()
+                        ? Amenity.canonicalLabels(request.getAmenities()) : null)
+                .amenityMatch(request.getAmenityMatch() != null ? request.getAmenityMatch().toLowerCase(Locale.ROOT) : "all")
+                .sortBy(request.getSortBy() != null ? request.getSortBy().toLowerCase(Locale.ROOT) : "departure")
+                .sortOrder(request.getSortOrder() != null ? request.getSortOrder().toLowerCase(Locale.ROOT) : "asc")
+                .build();
+    }
+    
+    // Picks the name to show; the document's handful of points makes this a trivial scan
+    private String nearestBoardingPoint(BusSearchDocument document, double latitude, double longitude) {
+        if (document.getBoardingPoints() == null) {
+            return null;
+        }
+        return document.getBoardingPoints().stream()
+                .min(Comparator.comparingDouble(point -> squaredDistance(point.getLocation(), latitude, longitude)))
+                .map(BoardingPointLocation::getName)
+                .orElse(null);
+    }
+    
+    private double squaredDistance(GeoPoint point, double latitude, double longitude) {
+        double dLat = point.getLat() - latitude;
+        double dLon = (point.getLon() - longitude) * Math.cos(Math.toRadians(latitude));
+        return dLat * dLat + dLon * dLon;
+    }
+    
+    private record SearchKey(BusSearchRequest request, boolean includeFacets) {
+    }
+    
+    // Final NDJSON line of a stream cut short; result lines never carry an "error" field
+    private record StreamError(String error) {
     }
     
     private BusSearchResponse convertToResponse(BusSearchDocument document) {
@@ -2,9 +2,12 @@ package com.redbus.service;
 
 import com.redbus.entity.Bus;
 import com.redbus.entity.BusOperator;
+import com.redbus.event.BusChangedEvent;
 import com.redbus.repository.jpa.BusRepository;
 import com.redbus.repository.jpa.BusOperatorRepository;
+import com.redbus.search.Amenity;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +20,7 @@ public class BusService {
     
     private final BusRepository busRepository;
     private final BusOperatorRepository busOperatorRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<Bus> getAllBuses() {
@@ -43,7 +47,10 @@ public class BusService {
                 .orElseThrow(() -> new IllegalArgumentException("Bus operator not found with id: " + bus.getOperator().getId()));
         
         bus.setOperator(operator);
-        return busRepository.save(bus);
+        applyAmenities(bus, bus.getAmenities());
+        Bus savedBus = busRepository.save(bus);
+        eventPublisher.publishEvent(new BusChangedEvent(savedBus.getId()));
+        return savedBus;
     }
     
     @Transactional
@@ -59,9 +66,11 @@ public class BusService {
         existingBus.setBusNumber(bus.getBusNumber());
         existingBus.setBusType(bus.getBusType());
         existingBus.setTotalSeats(bus.getTotalSeats());
-        existingBus.setAmenities(bus.getAmenities());
+        applyAmenities(existingBus, bus.getAmenities());
         
-        return busRepository.save(existingBus);
+        Bus savedBus = busRepository.save(existingBus);
+        eventPublisher.publishEvent(new BusChangedEvent(id));
+        return savedBus;
     }
     
     @Transactional
@@ -71,5 +80,13 @@ public class BusService {
         
         bus.setIsActive(false);
         busRepository.save(bus);
+        eventPublisher.publishEvent(new BusChangedEvent(id));
+    }
+    
+    // Catalogue amenities are stored under their canonical labels and set their bits; other
+    // labels, such as "AC" on buses from before the catalogue, are kept but stay out of the mask
+    private void applyAmenities(Bus bus, List<String> amenities) {
+        bus.setAmenities(Amenity.storedLabels(amenities));
+        bus.setAmenityMask(Amenity.catalogueMaskOf(amenities));
     }
 }
@@ -1,13 +1,11 @@
 package com.redbus.service;
 
-import com.redbus.dto.BusTrackingRequest;
 import com.redbus.dto.BusTrackingResponse;
 import com.redbus.entity.Bus;
 import com.redbus.entity.BusTracking;
 import com.redbus.repository.jpa.BusTrackingRepository;
 import com.redbus.repository.jpa.BusRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -55,30 +53,6 @@ public class BusTrackingService {
                 .collect(Collectors.toList());
     }
     
-    @Transactional
-    public BusTrackingResponse updateLocation(BusTrackingRequest request) {
-        Bus bus = busRepository.findById(request.getBusId())
-                .orElseThrow(() -> new IllegalArgumentException("Bus not found with id: " + request.getBusId()));
-        
-        BusTracking tracking = BusTracking.builder()
-                .bus(bus)
-                .latitude(request.getLatitude())
-                .longitude(request.getLongitude())
-                .speedKmh(request.getSpeedKmh())
-                .directionDegrees(request.getDirectionDegrees())
-                .timestamp(LocalDateTime.now())
-                .build();
-        
-        tracking = busTrackingRepository.save(tracking);
-        return BusTrackingResponse.fromBusTracking(tracking);
-    }
-    
-    @Async
-    @Transactional
-    public void updateLocationAsync(BusTrackingRequest request) {
-        updateLocation(request);
-    }
-    
     @Transactional(readOnly = true)
     public List<BusTrackingResponse> getAllActiveBusLocations() {
         // Get all active buses and their latest locations
@@ -0,0 +1,89 @@
+package com.redbus.service;
+
+import com.redbus.dto.CitySuggestion;
+import com.redbus.event.RouteChangedEvent;
+import com.redbus.repository.jpa.RouteRepository;
+import com.redbus.search.CityPrefixTrie;
+import com.redbus.search.CityTrigramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CityIndexService {
+    
+    private final RouteRepository routeRepository;
+    
+    // Swapped atomically on rebuild; readers never touch Postgres
+    private volatile CityPrefixTrie trie = CityPrefixTrie.empty();
+    private volatile CityTrigramIndex trigramIndex = CityTrigramIndex.empty();
+    
+    public List<CitySuggestion> suggest(String query, int limit) {
+        return trie.suggest(query, Math.min(limit, CityPrefixTrie.TOP_K));
+    }
+    
+    // Maps misspelt or badly spaced input ("Banglore", "Mumbai ") to the canonical city name.
+    // Unknown names are passed through trimmed so the search simply finds nothing.
+    public String resolveCity(String input) {
+        if (input == null) {
+            return null;
+        }
+        return trigramIndex.resolve(input).orElse(input.trim());
+    }
+    
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        rebuild();
+    }
+    
+    // Popularity drifts as schedules come and go, so refresh periodically as well
+    @Scheduled(fixedDelayString = "${app.search.cities.refresh-interval:300000}",
+               initialDelayString = "${app.search.cities.refresh-interval:300000}")
+    public void refresh() {
+        rebuild();
+    }
+    
+    public synchronized void rebuild() {
+        try {
+            Map<String, Long> cityWeights = new HashMap<>();
+            for (Object[] row : routeRepository.findActiveRouteScheduleCounts()) {
+                long scheduleCount = ((Number) row[2]).longValue();
+                cityWeights.merge((String) row[0], scheduleCount, Long::sum);
+                cityWeights.merge((String) row[1], scheduleCount, Long::sum);
+            }
+            
+            // Most popular spelling first, so it wins ties during typo resolution
+            List<String> cityNames = cityWeights.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            
+            trie = CityPrefixTrie.build(cityWeights);
+            trigramIndex = CityTrigramIndex.build(cityNames);
+            log.debug("City index rebuilt with {} cities", trie.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild city index: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.redbus.service;
+
+import com.redbus.dto.JourneyItinerary;
+import com.redbus.dto.JourneyLeg;
+import com.redbus.entity.Schedule;
+import com.redbus.event.BusChangedEvent;
+import com.redbus.event.OperatorChangedEvent;
+import com.redbus.event.RouteChangedEvent;
+import com.redbus.event.ScheduleChangedEvent;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.search.AmenityFilter;
+import com.redbus.search.ChangeBatcher;
+import com.redbus.search.ConnectionGraph;
+import com.redbus.search.RunningDays;
+import com.redbus.search.TripConnection;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConnectionSearchService {
+    
+    private final ScheduleRepository scheduleRepository;
+    private final CityIndexService cityIndexService;
+    
+    // Source of truth for incremental rebuilds: one entry per searchable schedule
+    private final Map<Long, TripConnection> connections = new ConcurrentHashMap<>();
+    
+    private volatile ConnectionGraph graph = ConnectionGraph.empty();
+    
+    @Value("${app.search.connections.max-transfers:2}")
+    private int maxTransfersLimit;
+    
+    @Value("${app.search.connections.min-layover-minutes:30}")
+    private int defaultMinLayoverMinutes;
+    
+    @Value("${app.search.connections.max-layover-minutes:720}")
+    private int maxLayoverMinutes;
+    
+    @Value("${app.search.connections.quiet-ms:500}")
+    private long quietMillis;
+    
+    @Value("${app.search.connections.max-delay-ms:5000}")
+    private long maxDelayMillis;
+    
+    @Value("${app.search.connections.max-batch:1000}")
+    private int maxBatch;
+    
+    // Schedule, route, bus and operator change events waiting for the next rebuild
+    private ChangeBatcher<Object> batcher;
+    private ScheduledExecutorService rebuilder;
+    
+    @PostConstruct
+    public void init() {
+        batcher = new ChangeBatcher<>(quietMillis, maxDelayMillis, maxBatch);
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-graph");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = Math.max(10, quietMillis / 5);
+        rebuilder.scheduleWithFixedDelay(this::flushIfReady, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+    
+    public List<JourneyItinerary> searchConnections(String origin, String destination, LocalDate travelDate,
+                                                    Integer maxTransfers, Integer minLayoverMinutes,
+                                                    AmenityFilter amenities) {
+        int transfers = Math.max(0, Math.min(maxTransfers != null ? maxTransfers : maxTransfersLimit, maxTransfersLimit));
+        int minLayover = minLayoverMinutes != null ? Math.max(0, minLayoverMinutes) : defaultMinLayoverMinutes;
+        
+        return graph.search(cityIndexService.resolveCity(origin), cityIndexService.resolveCity(destination), travelDate, transfers, minLayover, Math.max(minLayover, maxLayoverMinutes), amenities)
+                .stream()
+                .map(journey -> toItinerary(journey, travelDate))
+                .collect(Collectors.toList());
+    }
+    
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+    
+    // Full reload as a safety net; day-to-day changes arrive through the events below
+    @Scheduled(fixedDelayString = "${app.search.connections.reload-interval:900000}",
+               initialDelayString = "${app.search.connections.reload-interval:900000}")
+    public void refresh() {
+        reload();
+    }
+    
+    // Change events only queue the edit; the rebuilder applies a whole burst with one fetch and one rebuild
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        batcher.add(event);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        batcher.add(event);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBusChanged(BusChangedEvent event) {
+        batcher.add(event);
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOperatorChanged(OperatorChangedEvent event) {
+        batcher.add(event);
+    }
+    
+    private void flushIfReady() {
+        if (batcher.ready()) {
+            flush();
+        }
+    }
+    
+    public synchronized void reload() {
+        try {
+            Map<Long, TripConnection> loaded = new HashMap<>();
+            for (Schedule schedule : scheduleRepository.findActiveSchedulesWithDetails()) {
+                loaded.put(schedule.getId(), toConnection(schedule));
+            }
+            connections.clear();
+            connections.putAll(loaded);
+            rebuildGraph();
+        } catch (Exception e) {
+            log.error("Failed to load connection graph: {}", e.getMessage());
+        }
+    }
+    
+    // Re-reads only the schedules the queued changes touch and rebuilds the graph once. Trips
+    // carry no bus, route or operator id, so a bus, route or operator that no longer matches any
+    // schedule (deleted along with its schedules) falls back to a full reload.
+    public synchronized void flush() {
+        Set<Object> batch = batcher.drain();
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<Long> scheduleIds = new HashSet<>();
+        Set<Long> busIds = new HashSet<>();
+        Set<Long> routeIds = new HashSet<>();
+        Set<Long> operatorIds = new HashSet<>();
+        for (Object change : batch) {
+            if (change instanceof ScheduleChangedEvent event) {
+                scheduleIds.add(event.scheduleId());
+            } else if (change instanceof BusChangedEvent event) {
+                busIds.add(event.busId());
+            } else if (change instanceof RouteChangedEvent event) {
+                routeIds.add(event.routeId());
+            } else if (change instanceof OperatorChangedEvent event) {
+                operatorIds.add(event.operatorId());
+            }
+        }
+        
+        try {
+            List<Schedule> schedules = scheduleRepository.findAffectedWithDetails(
+                    orNone(scheduleIds), orNone(busIds), orNone(routeIds), orNone(operatorIds));
+            if (!busIds.isEmpty() || !routeIds.isEmpty() || !operatorIds.isEmpty()) {
+                Set<Long> matchedBuses = new HashSet<>();
+                Set<Long> matchedRoutes = new HashSet<>();
+                Set<Long> matchedOperators = new HashSet<>();
+                for (Schedule schedule : schedules) {
+                    matchedBuses.add(schedule.getBus().getId());
+                    matchedRoutes.add(schedule.getRoute().getId());
+                    matchedOperators.add(schedule.getBus().getOperator().getId());
+                }
+                if (!matchedBuses.containsAll(busIds) || !matchedRoutes.containsAll(routeIds)
+                        || !matchedOperators.containsAll(operatorIds)) {
+                    reload();
+                    return;
+                }
+            }
+            
+            Set<Long> removed = new HashSet<>(scheduleIds);
+            for (Schedule schedule : schedules) {
+                removed.remove(schedule.getId());
+                if (isSearchable(schedule)) {
+                    connections.put(schedule.getId(), toConnection(schedule));
+                } else {
+                    connections.remove(schedule.getId());
+                }
+            }
+            removed.forEach(connections::remove);
+            rebuildGraph();
+        } catch (Exception e) {
+            // Keep the changes for the next window; the periodic reload is the backstop
+            log.error("Failed to apply {} changes to connection graph: {}", batch.size(), e.getMessage());
+            batch.forEach(batcher::add);
+        }
+    }
+    
+    private static Collection<Long> orNone(Set<Long> ids) {
+        return ids.isEmpty() ? List.of(0L) : ids;
+    }
+    
+    private void rebuildGraph() {
+        graph = ConnectionGraph.build(new ArrayList<>(connections.values()));
+        log.debug("Connection graph rebuilt with {} trips", graph.size());
+    }
+    
+    private boolean isSearchable(Schedule schedule) {
+        return Boolean.TRUE.equals(schedule.getIsActive())
+                && Boolean.TRUE.equals(schedule.getBus().getIsActive())
+                && Boolean.TRUE.equals(schedule.getRoute().getIsActive());
+    }
+    
+    private TripConnection toConnection(Schedule schedule) {
+        int departureMinute = toMinuteOfDay(schedule.getDepartureTime());
+        int durationMinutes = toMinuteOfDay(schedule.getArrivalTime()) - departureMinute;
+        if (durationMinutes <= 0) {
+            durationMinutes += ConnectionGraph.MINUTES_PER_DAY; // Next day
+        }
+        
+        return new TripConnection(
+                schedule.getId(),
+                schedule.getRoute().getOrigin(),
+                schedule.getRoute().getDestination(),
+                departureMinute,
+                durationMinutes,
+                RunningDays.mask(schedule.getDaysOfWeek()),
+                schedule.getPrice(),
+                schedule.getBus().getBusNumber(),
+                schedule.getBus().getBusType().name(),
+                schedule.getBus().getOperator().getName(),
+                schedule.getBus().getAmenityMask() != null ? schedule.getBus().getAmenityMask() : 0L);
+    }
+    
+    private JourneyItinerary toItinerary(ConnectionGraph.Journey journey, LocalDate travelDate) {
+        LocalDateTime midnight = travelDate.atStartOfDay();
+        List<JourneyLeg> legs = new ArrayList<>();
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        Integer previousArrival = null;
+        
+        for (ConnectionGraph.Leg leg : journey.legs()) {
+            TripConnection trip = leg.trip();
+            legs.add(JourneyLeg.builder()
+                    .scheduleId(trip.scheduleId())
+                    .busNumber(trip.busNumber())
+                    .busType(trip.busType())
+                    .operatorName(trip.operatorName())
+                    .origin(trip.origin())
+                    .destination(trip.destination())
+                    .departureTime(midnight.plusMinutes(leg.departureMinute()))
+                    .arrivalTime(midnight.plusMinutes(leg.arrivalMinute()))
+                    .price(trip.price())
+                    .layoverMinutes(previousArrival != null ? leg.departureMinute() - previousArrival : null)
+                    .build());
+            totalPrice = totalPrice.add(trip.price());
+            previousArrival = leg.arrivalMinute();
+        }
+        
+        return JourneyItinerary.builder()
+                .transfers(journey.transfers())
+                .departureTime(midnight.plusMinutes(journey.departureMinute()))
+                .arrivalTime(midnight.plusMinutes(journey.arrivalMinute()))
+                .totalDurationMinutes(journey.arrivalMinute() - journey.departureMinute())
+                .totalPrice(totalPrice)
+                .legs(legs)
+                .build();
+    }
+    
+    private int toMinuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
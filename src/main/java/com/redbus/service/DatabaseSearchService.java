@@ -0,0 +1,140 @@
+package com.redbus.service;
+
+import com.redbus.document.BusSearchDocument;
+import com.redbus.dto.BusSearchRequest;
+import com.redbus.dto.BusSearchResponse;
+import com.redbus.dto.BusSearchResults;
+import com.redbus.entity.Booking;
+import com.redbus.entity.Schedule;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.search.AmenityFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// Degraded search path used while the Elasticsearch circuit is open. One fetch-joined query
+// loads the corridor and one grouped count gives held seats for the date; the remaining
+// filters and the sort mirror the index query and run in memory over that small set.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseSearchService {
+    
+    private final ScheduleRepository scheduleRepository;
+    private final BookingRepository bookingRepository;
+    
+    @Value("${app.search.max-results:500}")
+    private int maxResults;
+    
+    @Transactional(readOnly = true)
+    public BusSearchResults search(BusSearchRequest request) {
+        LocalDate travelDate = request.getTravelDate();
+        List<Schedule> schedules = scheduleRepository.findSearchableByCorridor(
+                        request.getOrigin().trim().toLowerCase(Locale.ROOT),
+                        request.getDestination().trim().toLowerCase(Locale.ROOT)).stream()
+                .filter(schedule -> BusSearchDocument.runsOn(schedule, travelDate))
+                .filter(matches(request))
+                .collect(Collectors.toList());
+        
+        Map<Long, Long> heldSeats = new HashMap<>();
+        if (!schedules.isEmpty()) {
+            List<Long> scheduleIds = schedules.stream().map(Schedule::getId).collect(Collectors.toList());
+            for (Object[] row : bookingRepository.countHeldSeatsBySchedules(scheduleIds, travelDate, Booking.BookingStatus.CANCELLED)) {
+                heldSeats.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        
+        List<BusSearchResponse> matches = schedules.stream()
+                .map(schedule -> BusSearchResponse.fromSchedule(schedule,
+                        (int) Math.max(0, schedule.getBus().getTotalSeats() - heldSeats.getOrDefault(schedule.getId(), 0L))))
+                .filter(response -> response.getAvailableSeats() > 0)
+                .sorted(comparator(request))
+                .collect(Collectors.toList());
+        
+        log.debug("Fallback search {} -> {} on {} matched {} departures",
+                request.getOrigin(), request.getDestination(), travelDate, matches.size());
+        return BusSearchResults.builder()
+                .results(matches.size() > maxResults ? matches.subList(0, maxResults) : matches)
+                .totalHits((long) matches.size())
+                .degraded(true)
+                .build();
+    }
+    
+    private Predicate<Schedule> matches(BusSearchRequest request) {
+        AmenityFilter amenities = AmenityFilter.of(request.getAmenities(), request.getAmenityMatch());
+        BigDecimal minPrice = request.getMinPrice() != null ? BigDecimal.valueOf(request.getMinPrice()) : null;
+        BigDecimal maxPrice = request.getMaxPrice() != null ? BigDecimal.valueOf(request.getMaxPrice()) : null;
+        Integer fromMinute = request.getDepartureTime() != null ? BusSearchDocument.toMinuteOfDay(request.getDepartureTime()) : null;
+        Integer toMinute = request.getDepartureTimeTo() != null ? BusSearchDocument.toMinuteOfDay(request.getDepartureTimeTo()) : null;
+        
+        return schedule -> {
+            if (request.getBusType() != null && !schedule.getBus().getBusType().name().equals(request.getBusType())) {
+                return false;
+            }
+            if (minPrice != null && schedule.getPrice().compareTo(minPrice) < 0) {
+                return false;
+            }
+            if (maxPrice != null && schedule.getPrice().compareTo(maxPrice) > 0) {
+                return false;
+            }
+            if (!amenities.accepts(schedule.getBus().getAmenityMask() != null ? schedule.getBus().getAmenityMask() : 0L)) {
+                return false;
+            }
+            return inDepartureWindow(BusSearchDocument.toMinuteOfDay(schedule.getDepartureTime()), fromMinute, toMinute);
+        };
+    }
+    
+    // Same semantics as the index query, including windows that wrap midnight
+    private boolean inDepartureWindow(int minute, Integer fromMinute, Integer toMinute) {
+        if (fromMinute == null && toMinute == null) {
+            return true;
+        }
+        if (toMinute == null) {
+            return minute >= fromMinute;
+        }
+        if (fromMinute == null) {
+            return minute <= toMinute;
+        }
+        if (fromMinute <= toMinute) {
+            return minute >= fromMinute && minute <= toMinute;
+        }
+        return minute >= fromMinute || minute <= toMinute;
+    }
+    
+    private Comparator<BusSearchResponse> comparator(BusSearchRequest request) {
+        String sortBy = request.getSortBy() != null ? request.getSortBy() : "departure";
+        Comparator<BusSearchResponse> comparator;
+        switch (sortBy) {
+            case "price":
+                comparator = Comparator.comparing(BusSearchResponse::getPrice);
+                break;
+            case "duration":
+                comparator = Comparator.comparingInt(this::durationMinutes);
+                break;
+            case "seats":
+                comparator = Comparator.comparing(BusSearchResponse::getAvailableSeats);
+                break;
+            default:
+                comparator = Comparator.comparing(BusSearchResponse::getDepartureTime);
+        }
+        return "desc".equalsIgnoreCase(request.getSortOrder()) ? comparator.reversed() : comparator;
+    }
+    
+    private int durationMinutes(BusSearchResponse response) {
+        int minutes = BusSearchDocument.toMinuteOfDay(response.getArrivalTime()) - BusSearchDocument.toMinuteOfDay(response.getDepartureTime());
+        return minutes < 0 ? minutes + 24 * 60 : minutes;
+    }
+}
@@ -1,85 +1,772 @@
 package com.redbus.service;
 
+import co.elastic.clients.elasticsearch._types.DistanceUnit;
+import co.elastic.clients.elasticsearch._types.GeoLocation;
+import co.elastic.clients.elasticsearch._types.SortMode;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.AggregationRange;
+import co.elastic.clients.elasticsearch._types.aggregations.Buckets;
+import co.elastic.clients.elasticsearch._types.aggregations.FiltersBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.RangeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StatsAggregate;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
 import com.redbus.document.BusSearchDocument;
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.dto.BusSearchRequest;
+import com.redbus.dto.FacetBucket;
+import com.redbus.dto.FareCalendarDay;
+import com.redbus.dto.NearbySearchRequest;
+import com.redbus.entity.Booking;
 import com.redbus.entity.Schedule;
+import com.redbus.event.BusChangedEvent;
+import com.redbus.event.OperatorChangedEvent;
+import com.redbus.event.RouteChangedEvent;
 import com.redbus.repository.elasticsearch.BusSearchRepository;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.repository.jpa.BusOperatorRepository;
+import com.redbus.repository.jpa.BusRepository;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.search.AmenityFilter;
+import com.redbus.search.DigestRange;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ElasticsearchService {
     
+    public static final String FACET_BUS_TYPE = "busType";
+    public static final String FACET_OPERATOR = "operator";
+    public static final String FACET_DEPARTURE_TIME = "departureTime";
+    public static final String FACET_PRICE = "price";
+    
+    private static final String BOARDING_LOCATION = "boardingPoints.location";
+    private static final String FARE_CALENDAR = "fareCalendar";
+    private static final String MIN_FARE = "minFare";
+    private static final String INDEXED_SCHEDULES = "indexedSchedules";
+    private static final String PRICE_STATS = "priceStats";
+    private static final String DIGEST_RANGES = "digestRanges";
+    private static final String DIGEST = "digest";
+    private static final String MAX_SCHEDULE_ID = "maxScheduleId";
+    private static final int SYNC_CHUNK_SCHEDULES = 100; // x horizon days = documents built per round
+    private static final int WRITE_BATCH_DOCUMENTS = 1000;
+    
+    // Seats held stay the same when a bus is resized, so availability moves by the same delta.
+    // Deactivation is one-way in this application, so the scripts only ever clear isActive.
+    // Both drop the content hash, since the document no longer matches what it was taken from.
+    private static final String BUS_UPDATE_SCRIPT =
+            "ctx._source.availableSeats = (int) Math.max(0, ctx._source.availableSeats + params.totalSeats - ctx._source.totalSeats);" +
+            "ctx._source.totalSeats = params.totalSeats;" +
+            "ctx._source.busNumber = params.busNumber;" +
+            "ctx._source.busType = params.busType;" +
+            "ctx._source.amenities = params.amenities;" +
+            "ctx._source.amenityMask = params.amenityMask;" +
+            "if (!params.active) { ctx._source.isActive = false; }" +
+            "ctx._source.contentHash = null;";
+    private static final String OPERATOR_UPDATE_SCRIPT =
+            "ctx._source.operatorName = params.operatorName;" +
+            "if (!params.active) { ctx._source.isActive = false; }" +
+            "ctx._source.contentHash = null;";
+    
     private final BusSearchRepository busSearchRepository;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final SearchIndexService searchIndexService;
+    private final ScheduleRepository scheduleRepository;
+    private final BookingRepository bookingRepository;
+    private final BusRepository busRepository;
+    private final BusOperatorRepository busOperatorRepository;
+    private final EntityManager entityManager;
+    
+    @Value("${app.search.availability.horizon-days:60}")
+    private int horizonDays;
+    
+    @Value("${app.search.max-results:500}")
+    private int maxResults;
+    
+    @Value("${app.search.nearby.max-radius-km:50}")
+    private double maxNearbyRadiusKm;
+    
+    @Value("${app.search.stream.batch-size:500}")
+    private int streamBatchSize;
+    
+    @Value("${app.search.facets.price-interval:500}")
+    private double priceFacetInterval;
+    
+    // Same switch as SearchChangeListener: when it is on, the notifications own propagation
+    @Value("${app.search.notify.enabled:true}")
+    private boolean changeNotifications;
     
     public boolean indexSchedule(Schedule schedule) {
-        String documentId = schedule.getId().toString();
-        
-        // Check if document already exists
-        if (busSearchRepository.existsById(documentId)) {
-            // Check if the schedule has been updated since last sync
-            var existingDoc = busSearchRepository.findById(documentId);
-            if (existingDoc.isPresent()) {
-                String existingUpdatedAt = existingDoc.get().getUpdatedAt();
-                String currentUpdatedAt = schedule.getUpdatedAt().toString();
-                
-                // Only update if the schedule has been modified
-                if (existingUpdatedAt.equals(currentUpdatedAt)) {
-                    return false; // No update needed
+        BulkIndexResult result = indexSchedules(List.of(schedule));
+        if (!result.getFailedScheduleIds().isEmpty()) {
+            throw new IllegalStateException("Failed to index schedule " + schedule.getId());
+        }
+        return result.getIndexed() > 0 || result.getDeleted() > 0;
+    }
+    
+    // Bulk sync: builds every horizon document locally, fetches only the stored content hashes
+    // and writes just the documents that differ, so an unchanged fleet costs a few multi-gets
+    // rather than a lookup and a write per document. Schedules go in chunks to bound memory.
+    public BulkIndexResult indexSchedules(List<Schedule> schedules) {
+        return indexSchedules(schedules, null);
+    }
+    
+    // Full-fleet callers pass the held seats of the whole horizon from heldSeatsInHorizon(), so
+    // the booking counts cost one query in total instead of one per chunk
+    public BulkIndexResult indexSchedules(List<Schedule> schedules, Map<String, Long> horizonHeldSeats) {
+        List<LocalDate> dates = horizonDates();
+        BulkIndexResult result = BulkIndexResult.builder()
+                .schedules(schedules.size())
+                .failedScheduleIds(new HashSet<>())
+                .build();
+        for (int from = 0; from < schedules.size(); from += SYNC_CHUNK_SCHEDULES) {
+            List<Schedule> chunk = schedules.subList(from, Math.min(schedules.size(), from + SYNC_CHUNK_SCHEDULES));
+            Map<String, Long> heldSeats = horizonHeldSeats;
+            if (heldSeats == null) {
+                List<Long> scheduleIds = chunk.stream().map(Schedule::getId).collect(Collectors.toList());
+                heldSeats = new HashMap<>();
+                for (Object[] row : bookingRepository.countHeldSeatsBySchedulesBetween(scheduleIds,
+                        dates.get(0), dates.get(dates.size() - 1), Booking.BookingStatus.CANCELLED)) {
+                    heldSeats.put(BusSearchDocument.documentId((Long) row[0], (LocalDate) row[1]), ((Number) row[2]).longValue());
+                }
+            }
+            
+            Map<String, BusSearchDocument> documents = new LinkedHashMap<>();
+            List<String> notRunning = new ArrayList<>();
+            for (Schedule schedule : chunk) {
+                for (LocalDate date : dates) {
+                    String id = BusSearchDocument.documentId(schedule.getId(), date);
+                    if (BusSearchDocument.runsOn(schedule, date)) {
+                        documents.put(id, BusSearchDocument.fromSchedule(schedule, date, heldSeats.getOrDefault(id, 0L)));
+                    } else {
+                        notRunning.add(id);
+                    }
                 }
             }
+            
+            List<String> ids = new ArrayList<>(documents.keySet());
+            ids.addAll(notRunning);
+            Map<String, String> storedHashes = searchIndexService.contentHashes(ids);
+            List<BusSearchDocument> changed = documents.values().stream()
+                    .filter(document -> !document.getContentHash().equals(storedHashes.get(document.getId())))
+                    .collect(Collectors.toList());
+            List<String> stale = notRunning.stream()
+                    .filter(storedHashes::containsKey)
+                    .collect(Collectors.toList());
+            
+            List<String> failed = searchIndexService.indexAll(changed);
+            searchIndexService.deleteAll(stale);
+            failed.forEach(id -> result.getFailedScheduleIds().add(documents.get(id).getScheduleId()));
+            
+            result.setDocuments(result.getDocuments() + documents.size());
+            result.setIndexed(result.getIndexed() + changed.size() - failed.size());
+            result.setUnchanged(result.getUnchanged() + documents.size() - changed.size());
+            result.setDeleted(result.getDeleted() + stale.size());
+        }
+        return result;
+    }
+    
+    // Unconditional write of every horizon date, for changes that do not touch the schedule row itself.
+    // Dates the schedule no longer runs on are removed, and so is everything of a deactivated schedule.
+    public void reindexSchedule(Schedule schedule) {
+        if (!Boolean.TRUE.equals(schedule.getIsActive())) {
+            deleteSchedules(List.of(schedule.getId()));
+            return;
+        }
+        List<LocalDate> dates = horizonDates();
+        Map<LocalDate, Long> heldSeats = new HashMap<>();
+        for (Object[] row : bookingRepository.countHeldSeatsByScheduleBetween(schedule.getId(),
+                dates.get(0), dates.get(dates.size() - 1), Booking.BookingStatus.CANCELLED)) {
+            heldSeats.put((LocalDate) row[0], ((Number) row[1]).longValue());
         }
         
-        BusSearchDocument document = BusSearchDocument.builder()
-                .id(documentId)
-                .scheduleId(schedule.getId())
-                .busId(schedule.getBus().getId())
-                .busNumber(schedule.getBus().getBusNumber())
-                .busType(schedule.getBus().getBusType().name())
-                .operatorName(schedule.getBus().getOperator().getName())
-                .operatorId(schedule.getBus().getOperator().getId())
-                .origin(schedule.getRoute().getOrigin())
-                .destination(schedule.getRoute().getDestination())
-                .route(schedule.getRoute().getOrigin() + " to " + schedule.getRoute().getDestination())
-                .departureTime(schedule.getDepartureTime().format(DateTimeFormatter.ISO_LOCAL_TIME))
-                .arrivalTime(schedule.getArrivalTime().format(DateTimeFormatter.ISO_LOCAL_TIME))
-                .price(schedule.getPrice())
-                .totalSeats(schedule.getBus().getTotalSeats())
-                .availableSeats(schedule.getBus().getTotalSeats()) // Will be updated based on bookings
-                .amenities(schedule.getBus().getAmenities())
-                .distanceKm(schedule.getRoute().getDistanceKm())
-                .estimatedDurationHours(schedule.getRoute().getEstimatedDurationHours())
-                .durationMinutes(calculateDurationMinutes(schedule.getDepartureTime(), schedule.getArrivalTime()))
-                .isActive(schedule.getIsActive())
-                .isRecurring(schedule.getIsRecurring())
-                .daysOfWeek(schedule.getDaysOfWeek())
-                .createdAt(schedule.getCreatedAt().toString())
-                .updatedAt(schedule.getUpdatedAt().toString())
-                .build();
+        List<BusSearchDocument> documents = new ArrayList<>();
+        List<String> notRunning = new ArrayList<>();
+        for (LocalDate date : dates) {
+            if (BusSearchDocument.runsOn(schedule, date)) {
+                documents.add(BusSearchDocument.fromSchedule(schedule, date, heldSeats.getOrDefault(date, 0L)));
+            } else {
+                notRunning.add(BusSearchDocument.documentId(schedule.getId(), date));
+            }
+        }
+        searchIndexService.saveAll(documents);
+        searchIndexService.deleteAll(notRunning);
+    }
+    
+    // Route edits and boarding point changes live outside the schedule row, so the updatedAt
+    // watermark never picks them up. They go through the same content-hash path as the
+    // change notifications, chunked by indexSchedules.
+    //
+    // One path per deployment: with notifications on (the default) the V8/V10 triggers
+    // announce every route, boarding point, bus and operator edit to the lease holder, so
+    // these listeners stand down. Running both would write each edit twice, since the
+    // update-by-query below clears the stored hashes the notification pass compares against.
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        if (changeNotifications) {
+            return;
+        }
+        try {
+            BulkIndexResult result = syncChanges(Set.of(), Set.of(), Set.of(event.routeId()), Set.of());
+            log.debug("Synced {} schedules after change to route {}", result.getSchedules(), event.routeId());
+        } catch (Exception e) {
+            log.error("Failed to re-index schedules for route {}: {}", event.routeId(), e.getMessage());
+        }
+    }
+    
+    // Bus and operator fields are copied into every trip-date document, so a change is pushed
+    // with one update-by-query over the affected documents instead of rebuilding them
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBusChanged(BusChangedEvent event) {
+        if (changeNotifications) {
+            return;
+        }
+        try {
+            busRepository.findById(event.busId()).ifPresent(bus -> {
+                Map<String, Object> params = new HashMap<>();
+                params.put("busNumber", bus.getBusNumber());
+                params.put("busType", bus.getBusType().name());
+                params.put("totalSeats", bus.getTotalSeats());
+                params.put("amenities", bus.getAmenities() != null ? bus.getAmenities() : List.of());
+                params.put("amenityMask", bus.getAmenityMask());
+                params.put("active", Boolean.TRUE.equals(bus.getIsActive()));
+                long updated = searchIndexService.updateByQuery(
+                        Query.of(q -> q.term(t -> t.field("busId").value(bus.getId()))), BUS_UPDATE_SCRIPT, params);
+                log.debug("Updated {} search documents after change to bus {}", updated, bus.getId());
+            });
+        } catch (Exception e) {
+            log.error("Failed to propagate change to bus {}: {}", event.busId(), e.getMessage());
+        }
+    }
+    
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOperatorChanged(OperatorChangedEvent event) {
+        if (changeNotifications) {
+            return;
+        }
+        try {
+            busOperatorRepository.findById(event.operatorId()).ifPresent(operator -> {
+                Map<String, Object> params = new HashMap<>();
+                params.put("operatorName", operator.getName());
+                params.put("active", Boolean.TRUE.equals(operator.getIsActive()));
+                long updated = searchIndexService.updateByQuery(
+                        Query.of(q -> q.term(t -> t.field("operatorId").value(operator.getId()))), OPERATOR_UPDATE_SCRIPT, params);
+                log.debug("Updated {} search documents after change to operator {}", updated, operator.getId());
+            });
+        } catch (Exception e) {
+            log.error("Failed to propagate change to operator {}: {}", event.operatorId(), e.getMessage());
+        }
+    }
+    
+    // Drops departed dates and adds the day that just entered the horizon. holdsLease is
+    // checked before every write, and a lost lease ends the roll with a CancellationException.
+    @Transactional(readOnly = true)
+    public int rollHorizon(BooleanSupplier holdsLease) {
+        if (!holdsLease.getAsBoolean()) {
+            throw new CancellationException("Sync lease lost before rolling the horizon");
+        }
+        LocalDate today = LocalDate.now();
+        searchIndexService.deleteByQuery(Query.of(q -> q.range(r -> r
+                .field("travelDate")
+                .lt(JsonData.of(today.toString())))));
+        
+        LocalDate lastDate = today.plusDays(horizonDays - 1L);
+        Map<Long, Long> heldSeats = new HashMap<>();
+        for (Object[] row : bookingRepository.countHeldSeatsBetween(lastDate, lastDate, Booking.BookingStatus.CANCELLED)) {
+            heldSeats.put((Long) row[0], ((Number) row[2]).longValue());
+        }
         
-        busSearchRepository.save(document);
-        return true; // Document was indexed/updated
+        int indexed = 0;
+        List<BusSearchDocument> batch = new ArrayList<>(WRITE_BATCH_DOCUMENTS);
+        try (Stream<Schedule> schedules = scheduleRepository.streamAllWithDetails()) {
+            for (Iterator<Schedule> it = schedules.iterator(); it.hasNext(); ) {
+                Schedule schedule = it.next();
+                if (Boolean.TRUE.equals(schedule.getIsActive()) && BusSearchDocument.runsOn(schedule, lastDate)) {
+                    batch.add(BusSearchDocument.fromSchedule(schedule, lastDate, heldSeats.getOrDefault(schedule.getId(), 0L)));
+                }
+                detach(schedule);
+                if (batch.size() >= WRITE_BATCH_DOCUMENTS) {
+                    if (!holdsLease.getAsBoolean()) {
+                        throw new CancellationException("Sync lease lost while rolling the horizon");
+                    }
+                    searchIndexService.saveAll(batch);
+                    indexed += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (!holdsLease.getAsBoolean()) {
+            throw new CancellationException("Sync lease lost while rolling the horizon");
+        }
+        searchIndexService.saveAll(batch);
+        return indexed + batch.size();
     }
     
-    @Transactional
-    public void updateAvailableSeats(Long scheduleId, Integer availableSeats) {
-        busSearchRepository.findById(scheduleId.toString())
-                .ifPresent(document -> {
-                    document.setAvailableSeats(availableSeats);
-                    busSearchRepository.save(document);
-                });
+    // Held seats for every schedule and date in the horizon, keyed by document id, in one query
+    public Map<String, Long> heldSeatsInHorizon() {
+        List<LocalDate> dates = horizonDates();
+        Map<String, Long> heldSeats = new HashMap<>();
+        for (Object[] row : bookingRepository.countHeldSeatsBetween(dates.get(0), dates.get(dates.size() - 1),
+                Booking.BookingStatus.CANCELLED)) {
+            heldSeats.put(BusSearchDocument.documentId((Long) row[0], (LocalDate) row[1]), ((Number) row[2]).longValue());
+        }
+        return heldSeats;
+    }
+    
+    // Lets a streamed schedule and its bus be collected once processed. Only entities already
+    // handed out are detached: the stream may be part-way through assembling the next schedule,
+    // so clearing the whole context here would pull it out from under the cursor. Routes and
+    // operators stay managed; there are far fewer of them and later rows reuse them.
+    public void detach(Schedule schedule) {
+        entityManager.detach(schedule.getBus());
+        entityManager.detach(schedule);
+    }
+    
+    public BulkIndexResult syncSchedules(List<Schedule> schedules) {
+        return syncSchedules(schedules, null);
+    }
+    
+    // A deactivated schedule leaves the index instead of lingering as an inactive document
+    public BulkIndexResult syncSchedules(List<Schedule> schedules, Map<String, Long> horizonHeldSeats) {
+        List<Schedule> active = new ArrayList<>();
+        List<Long> inactive = new ArrayList<>();
+        for (Schedule schedule : schedules) {
+            if (Boolean.TRUE.equals(schedule.getIsActive())) {
+                active.add(schedule);
+            } else {
+                inactive.add(schedule.getId());
+            }
+        }
+        BulkIndexResult result = indexSchedules(active, horizonHeldSeats);
+        if (!inactive.isEmpty()) {
+            deleteSchedules(inactive);
+            result.setSchedules(schedules.size());
+            result.setDeleted(result.getDeleted() + inactive.size());
+        }
+        if (!result.getFailedScheduleIds().isEmpty()) {
+            log.error("Failed to sync schedule IDs: {}", result.getFailedScheduleIds());
+        }
+        return result;
+    }
+    
+    // Applies one debounced batch of change notifications. Schedule ids that no longer
+    // resolve were deleted from the table, so their documents go as well.
+    @Transactional(readOnly = true)
+    public BulkIndexResult syncChanges(Set<Long> scheduleIds, Set<Long> busIds, Set<Long> routeIds, Set<Long> operatorIds) {
+        List<Schedule> schedules = scheduleRepository.findAffectedWithDetails(
+                orNone(scheduleIds), orNone(busIds), orNone(routeIds), orNone(operatorIds));
+        BulkIndexResult result = syncSchedules(schedules);
+        
+        Set<Long> removed = new HashSet<>(scheduleIds);
+        schedules.forEach(schedule -> removed.remove(schedule.getId()));
+        if (!removed.isEmpty()) {
+            deleteSchedules(removed);
+            result.setSchedules(result.getSchedules() + removed.size());
+            result.setDeleted(result.getDeleted() + removed.size());
+        }
+        return result;
+    }
+    
+    private static Collection<Long> orNone(Set<Long> ids) {
+        return ids.isEmpty() ? List.of(0L) : ids;
     }
     
     @Transactional
     public void deleteSchedule(Long scheduleId) {
-        busSearchRepository.deleteById(scheduleId.toString());
+        deleteSchedules(List.of(scheduleId));
+    }
+    
+    public void deleteSchedules(Collection<Long> scheduleIds) {
+        List<LocalDate> dates = horizonDates();
+        searchIndexService.deleteAll(scheduleIds.stream()
+                .flatMap(scheduleId -> dates.stream().map(date -> BusSearchDocument.documentId(scheduleId, date)))
+                .collect(Collectors.toList()));
+    }
+    
+    private List<LocalDate> horizonDates() {
+        LocalDate today = LocalDate.now();
+        List<LocalDate> dates = new ArrayList<>(horizonDays);
+        for (int day = 0; day < horizonDays; day++) {
+            dates.add(today.plusDays(day));
+        }
+        return dates;
+    }
+    
+    // Filters, sorting and (optionally) facet aggregations in a single request. With facets on,
+    // the facet-dimension filters move to post_filter and each facet only sees the other
+    // dimensions' filters, so picking a bus type still shows the counts for every other type.
+    public SearchHits<BusSearchDocument> search(BusSearchRequest request, boolean includeFacets) {
+        if (!includeFacets) {
+            return elasticsearchOperations.search(searchQuery(request).build(), BusSearchDocument.class);
+        }
+        
+        Map<String, Query> facetFilters = facetFilters(request);
+        NativeQueryBuilder queryBuilder = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.bool(b -> b.filter(baseFilters(request)))))
+                .withSort(buildSort(request))
+                .withMaxResults(maxResults)
+                .withTrackTotalHits(true);
+        if (!facetFilters.isEmpty()) {
+            queryBuilder.withFilter(Query.of(q -> q.bool(b -> b.filter(List.copyOf(facetFilters.values())))));
+        }
+        
+        queryBuilder
+            .withAggregation(FACET_BUS_TYPE, facet(FACET_BUS_TYPE, facetFilters, Aggregation.of(a -> a
+                .terms(t -> t.field("busType").size(20)))))
+            .withAggregation(FACET_OPERATOR, facet(FACET_OPERATOR, facetFilters, Aggregation.of(a -> a
+                .terms(t -> t.field("operatorName.keyword").size(50)))))
+            .withAggregation(FACET_DEPARTURE_TIME, facet(FACET_DEPARTURE_TIME, facetFilters, Aggregation.of(a -> a
+                .range(r -> r.field("departureMinutes").ranges(
+                    departureBand("night", 0, 360),
+                    departureBand("morning", 360, 720),
+                    departureBand("afternoon", 720, 1080),
+                    departureBand("evening", 1080, 1440))))))
+            .withAggregation(FACET_PRICE, facet(FACET_PRICE, facetFilters, Aggregation.of(a -> a
+                .histogram(h -> h.field("price").interval(priceFacetInterval).minDocCount(1)))));
+        
+        return elasticsearchOperations.search(queryBuilder.build(), BusSearchDocument.class);
+    }
+    
+    // Wraps the facet in a filter aggregation holding every facet filter but its own; extractFacets
+    // unwraps it again under the same name
+    private Aggregation facet(String name, Map<String, Query> facetFilters, Aggregation aggregation) {
+        List<Query> others = facetFilters.entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(name))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+        if (others.isEmpty()) {
+            return aggregation;
+        }
+        return Aggregation.of(a -> a
+                .filter(f -> f.bool(b -> b.filter(others)))
+                .aggregations(name, aggregation));
+    }
+    
+    // All legs go out as one _msearch, so a round trip costs the slower leg rather than the sum
+    // of both. Each leg carries a price stats aggregation over every match.
+    public List<SearchHits<BusSearchDocument>> searchLegs(List<BusSearchRequest> legs) {
+        List<NativeQuery> queries = legs.stream()
+                .map(leg -> searchQuery(leg)
+                        .withAggregation(PRICE_STATS, Aggregation.of(a -> a.stats(st -> st.field("price"))))
+                        .build())
+                .collect(Collectors.toList());
+        return elasticsearchOperations.multiSearch(queries, BusSearchDocument.class);
+    }
+    
+    // Empty when the leg matched nothing
+    public Optional<StatsAggregate> priceStats(SearchHits<BusSearchDocument> searchHits) {
+        if (searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations
+                && aggregations.get(PRICE_STATS) != null) {
+            StatsAggregate stats = aggregations.get(PRICE_STATS).aggregation().getAggregate().stats();
+            return stats.count() > 0 ? Optional.of(stats) : Optional.empty();
+        }
+        return Optional.empty();
+    }
+    
+    private NativeQueryBuilder searchQuery(BusSearchRequest request) {
+        return NativeQuery.builder()
+                .withQuery(buildFilterQuery(request))
+                .withSort(buildSort(request))
+                .withMaxResults(maxResults)
+                .withTrackTotalHits(true);
+    }
+    
+    // Trips with a boarding point inside the radius, nearest boarding point first. Both the
+    // distance filter and the ranking run inside Elasticsearch.
+    public SearchHits<BusSearchDocument> searchNearby(NearbySearchRequest request) {
+        double radiusKm = Math.min(request.getRadiusKm() != null ? request.getRadiusKm() : 5.0, maxNearbyRadiusKm);
+        GeoLocation origin = GeoLocation.of(g -> g.latlon(ll -> ll.lat(request.getLatitude()).lon(request.getLongitude())));
+        
+        List<Query> filters = new ArrayList<>();
+        filters.add(Query.of(q -> q.geoDistance(g -> g
+                .field(BOARDING_LOCATION)
+                .distance(radiusKm + "km")
+                .location(origin))));
+        filters.add(onDate(request.getTravelDate() != null ? request.getTravelDate() : LocalDate.now()));
+        filters.add(Query.of(q -> q.term(t -> t.field("isActive").value(true))));
+        filters.add(Query.of(q -> q.range(r -> r.field("availableSeats").gt(JsonData.of(0)))));
+        if (request.getDestination() != null && !request.getDestination().isBlank()) {
+            filters.add(exactCity("destination", request.getDestination()));
+        }
+        if (request.getBusType() != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field("busType").value(request.getBusType()))));
+        }
+        if (request.getMaxPrice() != null) {
+            filters.add(Query.of(q -> q.range(r -> r.field("price").lte(JsonData.of(request.getMaxPrice())))));
+        }
+        
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.bool(b -> b.filter(filters))))
+                .withSort(SortOptions.of(so -> so.geoDistance(g -> g
+                        .field(BOARDING_LOCATION)
+                        .location(origin)
+                        .mode(SortMode.Min)
+                        .unit(DistanceUnit.Kilometers)
+                        .order(SortOrder.Asc))))
+                .withSort(SortOptions.of(so -> so.field(f -> f.field("departureMinutes").order(SortOrder.Asc))))
+                .withMaxResults(maxResults)
+                .build();
+        return elasticsearchOperations.search(query, BusSearchDocument.class);
+    }
+    
+    // One size-0 request for the whole window: a filters bucket per date, each matching that
+    // date's departures with seats left, with a min-price sub-aggregation
+    public List<FareCalendarDay> fareCalendar(String origin, String destination, List<LocalDate> dates) {
+        Map<String, Query> dayFilters = new LinkedHashMap<>();
+        for (LocalDate date : dates) {
+            dayFilters.put(date.toString(), onDate(date));
+        }
+        
+        List<Query> filters = new ArrayList<>();
+        filters.add(exactCity("origin", origin));
+        filters.add(exactCity("destination", destination));
+        filters.add(Query.of(q -> q.term(t -> t.field("isActive").value(true))));
+        filters.add(Query.of(q -> q.range(r -> r.field("availableSeats").gt(JsonData.of(0)))));
+        
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.bool(b -> b.filter(filters))))
+                .withMaxResults(0)
+                .withAggregation(FARE_CALENDAR, Aggregation.of(a -> a
+                        .filters(f -> f.filters(Buckets.of(b -> b.keyed(dayFilters))))
+                        .aggregations(MIN_FARE, Aggregation.of(m -> m.min(min -> min.field("price"))))))
+                .build();
+        SearchHits<BusSearchDocument> searchHits = elasticsearchOperations.search(query, BusSearchDocument.class);
+        
+        Map<String, FiltersBucket> buckets = Map.of();
+        if (searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations) {
+            ElasticsearchAggregation calendar = aggregations.get(FARE_CALENDAR);
+            if (calendar != null) {
+                buckets = calendar.aggregation().getAggregate().filters().buckets().keyed();
+            }
+        }
+        
+        List<FareCalendarDay> days = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            FiltersBucket bucket = buckets.get(date.toString());
+            long tripCount = bucket != null ? bucket.docCount() : 0;
+            BigDecimal minFare = tripCount > 0
+                    ? BigDecimal.valueOf(bucket.aggregations().get(MIN_FARE).min().value())
+                    : null;
+            days.add(FareCalendarDay.builder().date(date).minFare(minFare).tripCount(tripCount).build());
+        }
+        return days;
+    }
+    
+    // Scrolls through every match in batches instead of capping at max-results; the caller must close the iterator
+    public SearchHitsIterator<BusSearchDocument> streamSearch(BusSearchRequest request) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(buildFilterQuery(request))
+                .withSort(buildSort(request))
+                .withPageable(PageRequest.of(0, streamBatchSize))
+                .build();
+        return elasticsearchOperations.searchForStream(query, BusSearchDocument.class);
+    }
+    
+    public Map<String, List<FacetBucket>> extractFacets(SearchHits<BusSearchDocument> searchHits) {
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        if (!(searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations)) {
+            return facets;
+        }
+        
+        for (Map.Entry<String, ElasticsearchAggregation> entry : aggregations.aggregationsAsMap().entrySet()) {
+            Aggregate aggregate = entry.getValue().aggregation().getAggregate();
+            if (aggregate.isFilter()) {
+                aggregate = aggregate.filter().aggregations().get(entry.getKey());
+                if (aggregate == null) {
+                    continue;
+                }
+            }
+            List<FacetBucket> buckets = new ArrayList<>();
+            
+            if (aggregate.isSterms()) {
+                aggregate.sterms().buckets().array().forEach(bucket -> buckets.add(FacetBucket.builder()
+                        .key(bucket.key().stringValue())
+                        .count(bucket.docCount())
+                        .build()));
+            } else if (aggregate.isRange()) {
+                aggregate.range().buckets().array().forEach(bucket -> buckets.add(FacetBucket.builder()
+                        .key(bucket.key())
+                        .from(bucket.from())
+                        .to(bucket.to())
+                        .count(bucket.docCount())
+                        .build()));
+            } else if (aggregate.isHistogram()) {
+                aggregate.histogram().buckets().array().forEach(bucket -> buckets.add(FacetBucket.builder()
+                        .key(BigDecimal.valueOf(bucket.key()).stripTrailingZeros().toPlainString())
+                        .from(bucket.key())
+                        .to(bucket.key() + priceFacetInterval)
+                        .count(bucket.docCount())
+                        .build()));
+            }
+            
+            facets.put(entry.getKey(), buckets);
+        }
+        return facets;
+    }
+    
+    private Query buildFilterQuery(BusSearchRequest request) {
+        // Everything runs in filter context: no scoring, and the clauses are cacheable
+        List<Query> filters = baseFilters(request);
+        filters.addAll(facetFilters(request).values());
+        return Query.of(q -> q.bool(b -> b.filter(filters)));
+    }
+    
+    // The filters that narrow the trip itself; facets are counted within these
+    private List<Query> baseFilters(BusSearchRequest request) {
+        List<Query> filters = new ArrayList<>();
+        filters.add(exactCity("origin", request.getOrigin()));
+        filters.add(exactCity("destination", request.getDestination()));
+        filters.add(onDate(request.getTravelDate()));
+        filters.add(Query.of(q -> q.term(t -> t.field("isActive").value(true))));
+        filters.add(Query.of(q -> q.range(r -> r.field("availableSeats").gt(JsonData.of(0)))));
+        
+        AmenityFilter amenities = AmenityFilter.of(request.getAmenities(), request.getAmenityMatch());
+        if (!amenities.isEmpty()) {
+            filters.add(amenityFilter(amenities));
+        }
+        return filters;
+    }
+    
+    // The filters a facet refines, keyed by the facet they belong to
+    private Map<String, Query> facetFilters(BusSearchRequest request) {
+        Map<String, Query> filters = new LinkedHashMap<>();
+        if (request.getDepartureTime() != null || request.getDepartureTimeTo() != null) {
+            filters.put(FACET_DEPARTURE_TIME, departureWindow(request.getDepartureTime(), request.getDepartureTimeTo()));
+        }
+        if (request.getBusType() != null) {
+            filters.put(FACET_BUS_TYPE, Query.of(q -> q.term(t -> t.field("busType").value(request.getBusType()))));
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            filters.put(FACET_PRICE, Query.of(q -> q.range(r -> {
+                r.field("price");
+                if (request.getMinPrice() != null) {
+                    r.gte(JsonData.of(request.getMinPrice()));
+                }
+                if (request.getMaxPrice() != null) {
+                    r.lte(JsonData.of(request.getMaxPrice()));
+                }
+                return r;
+            })));
+        }
+        return filters;
+    }
+    
+    // The keyword sub-field is lower-cased on both sides, so "mumbai" matches "Mumbai" exactly
+    private Query exactCity(String field, String value) {
+        return Query.of(q -> q.term(t -> t.field(field + ".keyword").value(value.trim())));
+    }
+    
+    // Script queries are evaluated as a second phase, only on documents the other filters already matched
+    private Query amenityFilter(AmenityFilter amenities) {
+        String check = amenities.matchAll() ? "(doc['amenityMask'].value & mask) == mask" : "(doc['amenityMask'].value & mask) != 0";
+        String source = "long mask = params.mask; return doc['amenityMask'].size() != 0 && " + check + ";";
+        return Query.of(q -> q.script(s -> s.script(script -> script.inline(i -> i
+                .source(source)
+                .params("mask", JsonData.of(amenities.mask()))))));
+    }
+    
+    private Query onDate(LocalDate travelDate) {
+        return Query.of(q -> q.term(t -> t.field("travelDate").value(travelDate.toString())));
+    }
+    
+    private Query departureWindow(LocalTime from, LocalTime to) {
+        if (to == null) {
+            return minuteRange(BusSearchDocument.toMinuteOfDay(from), null);
+        }
+        if (from == null) {
+            return minuteRange(null, BusSearchDocument.toMinuteOfDay(to));
+        }
+        
+        int fromMinute = BusSearchDocument.toMinuteOfDay(from);
+        int toMinute = BusSearchDocument.toMinuteOfDay(to);
+        if (fromMinute <= toMinute) {
+            return minuteRange(fromMinute, toMinute);
+        }
+        // Window wraps midnight, e.g. 22:00-02:00
+        return Query.of(q -> q.bool(b -> b
+                .should(minuteRange(fromMinute, null), minuteRange(null, toMinute))
+                .minimumShouldMatch("1")));
+    }
+    
+    private Query minuteRange(Integer fromMinute, Integer toMinute) {
+        return Query.of(q -> q.range(r -> {
+            r.field("departureMinutes");
+            if (fromMinute != null) {
+                r.gte(JsonData.of(fromMinute));
+            }
+            if (toMinute != null) {
+                r.lte(JsonData.of(toMinute));
+            }
+            return r;
+        }));
+    }
+    
+    private Sort buildSort(BusSearchRequest request) {
+        Sort.Direction direction = "desc".equalsIgnoreCase(request.getSortOrder())
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        String sortBy = request.getSortBy() != null ? request.getSortBy().toLowerCase() : "departure";
+        
+        String field;
+        switch (sortBy) {
+            case "price":
+                field = "price";
+                break;
+            case "duration":
+                field = "durationMinutes";
+                break;
+            case "seats":
+                field = "availableSeats";
+                break;
+            default:
+                field = "departureMinutes";
+        }
+        return Sort.by(direction, field);
+    }
+    
+    private AggregationRange departureBand(String key, int fromMinute, int toMinute) {
+        return AggregationRange.of(r -> r.key(key).from(String.valueOf(fromMinute)).to(String.valueOf(toMinute)));
     }
     
     public List<BusSearchDocument> searchBuses(String origin, String destination) {
@@ -125,14 +812,75 @@ public class ElasticsearchService {
         return (int) busSearchRepository.count();
     }
     
-    private int calculateDurationMinutes(LocalTime departure, LocalTime arrival) {
-        int departureMinutes = departure.getHour() * 60 + departure.getMinute();
-        int arrivalMinutes = arrival.getHour() * 60 + arrival.getMinute();
-        
-        if (arrivalMinutes < departureMinutes) {
-            arrivalMinutes += 24 * 60; // Next day
+    // Index side of the reconciliation: document count and digest sum per range, limited to the
+    // horizon so departed dates still waiting for the nightly roll are not counted
+    public List<DigestRange> digestRanges(List<DigestRange> ranges, LocalDate firstDate, LocalDate lastDate) {
+        List<AggregationRange> aggregationRanges = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            DigestRange range = ranges.get(i);
+            String key = String.valueOf(i);
+            aggregationRanges.add(AggregationRange.of(r -> r.key(key)
+                    .from(String.valueOf(range.fromId()))
+                    .to(String.valueOf(range.toId() + 1))));
         }
+        long fromId = ranges.get(0).fromId();
+        long toId = ranges.get(ranges.size() - 1).toId();
+        
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.bool(b -> b
+                        .filter(f -> f.range(r -> r.field("scheduleId").gte(JsonData.of(fromId)).lte(JsonData.of(toId))))
+                        .filter(f -> f.range(r -> r.field("travelDate")
+                                .gte(JsonData.of(firstDate.toString()))
+                                .lte(JsonData.of(lastDate.toString())))))))
+                .withMaxResults(0)
+                .withAggregation(DIGEST_RANGES, Aggregation.of(a -> a
+                        .range(r -> r.field("scheduleId").ranges(aggregationRanges))
+                        .aggregations(DIGEST, Aggregation.of(d -> d.sum(sum -> sum.script(script -> script.inline(i -> i
+                                .source(DigestRange.PAINLESS_TERM))))))))
+                .build();
+        SearchHits<BusSearchDocument> searchHits = elasticsearchOperations.search(query, BusSearchDocument.class);
         
-        return arrivalMinutes - departureMinutes;
+        List<DigestRange> digests = new ArrayList<>(ranges);
+        if (searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations
+                && aggregations.get(DIGEST_RANGES) != null) {
+            for (RangeBucket bucket : aggregations.get(DIGEST_RANGES).aggregation().getAggregate().range().buckets().array()) {
+                int index = Integer.parseInt(bucket.key());
+                long digest = Math.round(bucket.aggregations().get(DIGEST).sum().value());
+                digests.set(index, ranges.get(index).plus(bucket.docCount(), digest));
+            }
+        }
+        return digests;
+    }
+    
+    // Highest schedule id with a document, so reconciliation also covers schedules deleted from Postgres
+    public long getMaxIndexedScheduleId() {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.matchAll(m -> m)))
+                .withMaxResults(0)
+                .withAggregation(MAX_SCHEDULE_ID, Aggregation.of(a -> a.max(m -> m.field("scheduleId"))))
+                .build();
+        SearchHits<BusSearchDocument> searchHits = elasticsearchOperations.search(query, BusSearchDocument.class);
+        if (searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations
+                && aggregations.get(MAX_SCHEDULE_ID) != null) {
+            Double max = aggregations.get(MAX_SCHEDULE_ID).aggregation().getAggregate().max().value();
+            return max != null && Double.isFinite(max) ? max.longValue() : 0; // empty index has no max
+        }
+        return 0;
+    }
+    
+    // Documents are per travel date, so this is the figure comparable with the schedule table
+    public long getIndexedScheduleCount() {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.matchAll(m -> m)))
+                .withMaxResults(0)
+                .withAggregation(INDEXED_SCHEDULES, Aggregation.of(a -> a
+                        .cardinality(c -> c.field("scheduleId"))))
+                .build();
+        SearchHits<BusSearchDocument> searchHits = elasticsearchOperations.search(query, BusSearchDocument.class);
+        if (searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations
+                && aggregations.get(INDEXED_SCHEDULES) != null) {
+            return aggregations.get(INDEXED_SCHEDULES).aggregation().getAggregate().cardinality().value();
+        }
+        return 0;
     }
 }
@@ -0,0 +1,69 @@
+package com.redbus.service;
+
+import com.redbus.dto.FareCalendarDay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FareCalendarService {
+    
+    private static final int MAX_CACHE_SIZE = 10_000;
+    
+    private final ElasticsearchService elasticsearchService;
+    private final CityIndexService cityIndexService;
+    
+    @Value("${app.search.fare-calendar.max-days:31}")
+    private int maxDays;
+    
+    @Value("${app.search.fare-calendar.cache-ttl-ms:60000}")
+    private long cacheTtlMillis;
+    
+    private final Map<String, CachedCalendar> cache = new ConcurrentHashMap<>();
+    
+    // Cheapest available fare and trip count per day, from one aggregation query per route and window
+    public List<FareCalendarDay> getFareCalendar(String origin, String destination, LocalDate startDate, int days) {
+        if (days < 1 || days > maxDays) {
+            throw new IllegalArgumentException("Days must be between 1 and " + maxDays);
+        }
+        String resolvedOrigin = cityIndexService.resolveCity(origin);
+        String resolvedDestination = cityIndexService.resolveCity(destination);
+        String key = resolvedOrigin.toLowerCase(Locale.ROOT) + '|' + resolvedDestination.toLowerCase(Locale.ROOT)
+                + '|' + startDate + '|' + days;
+        
+        long now = System.currentTimeMillis();
+        CachedCalendar cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.days();
+        }
+        
+        List<LocalDate> dates = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            dates.add(startDate.plusDays(i));
+        }
+        List<FareCalendarDay> calendar = List.copyOf(
+                elasticsearchService.fareCalendar(resolvedOrigin, resolvedDestination, dates));
+        
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedCalendar(calendar, now + cacheTtlMillis));
+        return calendar;
+    }
+    
+    private record CachedCalendar(List<FareCalendarDay> days, long expiresAt) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.redbus.service;
+
+import com.redbus.dto.SyncPartitionStatus;
+import com.redbus.entity.Schedule;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.util.Throttle;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Full resync split over the schedule id space. Each id range is streamed, built and bulk
+// indexed by its own worker in its own read-only transaction. The fixed pool is the global
+// concurrency limit: at most that many cursors are open on Postgres and that many workers
+// send bulk requests to Elasticsearch, however many partitions there are. The sync throttle,
+// shared with the incremental sync, caps the schedules synced per second across all workers,
+// so a resync cannot starve live traffic on either store.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionedSyncService {
+    
+    private final ScheduleRepository scheduleRepository;
+    private final ElasticsearchService elasticsearchService;
+    private final PlatformTransactionManager transactionManager;
+    private final Throttle throttle;
+    
+    @Value("${app.search.sync.partitions:8}")
+    private int partitions;
+    
+    @Value("${app.search.sync.concurrency:4}")
+    private int concurrency;
+    
+    @Value("${app.search.sync.batch-size:500}")
+    private int batchSize;
+    
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private ExecutorService executor;
+    private TransactionTemplate readOnlyTransaction;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "sync-partition-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    public boolean isRunning() {
+        return running.get();
+    }
+    
+    // Blocks until every partition has finished. A failing partition does not stop the others;
+    // its state and error are reported alongside their results. The partitions are published
+    // on the job as soon as they are planned so progress can be read while they run, and a
+    // cancelled job stops each partition at its next chunk.
+    List<SyncPartitionStatus> syncAll(SyncJob job) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A full sync is already running");
+        }
+        try {
+            Long minId = scheduleRepository.findMinId();
+            Long maxId = scheduleRepository.findMaxId();
+            if (minId == null || maxId == null) {
+                return List.of();
+            }
+            // Shared read-only by every worker: one query for the whole horizon
+            Map<String, Long> heldSeats = elasticsearchService.heldSeatsInHorizon();
+            
+            List<SyncPartitionStatus> statuses = split(minId, maxId);
+            job.setTotalSchedules(scheduleRepository.count());
+            job.setPartitions(statuses);
+            log.info("Starting full sync of schedule ids {}..{} in {} partitions, {} at a time",
+                    minId, maxId, statuses.size(), concurrency);
+            List<Future<?>> futures = new ArrayList<>(statuses.size());
+            for (SyncPartitionStatus status : statuses) {
+                futures.add(executor.submit(() -> syncPartition(status, heldSeats, job)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Sync partition worker failed unexpectedly", e.getCause());
+                } catch (InterruptedException e) {
+                    futures.forEach(pending -> pending.cancel(true));
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for sync partitions");
+                }
+            }
+            return statuses;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    // Equal-width ranges over [minId, maxId]; ids are allocated sequentially, so widths are close to equal counts
+    private List<SyncPartitionStatus> split(long minId, long maxId) {
+        long span = maxId - minId + 1;
+        long width = Math.max(1, (span + partitions - 1) / partitions);
+        List<SyncPartitionStatus> statuses = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += width) {
+            statuses.add(SyncPartitionStatus.builder()
+                    .partition(statuses.size())
+                    .fromId(from)
+                    .toId(Math.min(maxId, from + width - 1))
+                    .state("PENDING")
+                    .build());
+        }
+        return statuses;
+    }
+    
+    private void syncPartition(SyncPartitionStatus status, Map<String, Long> heldSeats, SyncJob job) {
+        if (job.isCancelled()) {
+            status.setState("CANCELLED");
+            return;
+        }
+        status.setState("RUNNING");
+        status.setStartedAt(LocalDateTime.now());
+        try {
+            readOnlyTransaction.executeWithoutResult(tx -> {
+                List<Schedule> chunk = new ArrayList<>(batchSize);
+                try (Stream<Schedule> schedules = scheduleRepository.streamByIdRangeWithDetails(status.getFromId(), status.getToId())) {
+                    for (Iterator<Schedule> it = schedules.iterator(); it.hasNext(); ) {
+                        chunk.add(it.next());
+                        if (chunk.size() >= batchSize) {
+                            syncChunk(chunk, heldSeats, status, job);
+                        }
+                    }
+                }
+                syncChunk(chunk, heldSeats, status, job);
+            });
+            status.setState("COMPLETED");
+            log.debug("Sync partition {} ({}..{}) completed: {} schedules, {} documents written",
+                    status.getPartition(), status.getFromId(), status.getToId(), status.getSchedules(), status.getIndexed());
+        } catch (CancellationException e) {
+            status.setState("CANCELLED");
+            log.info("Sync partition {} ({}..{}) cancelled after {} schedules",
+                    status.getPartition(), status.getFromId(), status.getToId(), status.getSchedules());
+        } catch (Exception e) {
+            status.setState("FAILED");
+            status.setError(e.getMessage());
+            log.error("Sync partition {} ({}..{}) failed after {} schedules: {}",
+                    status.getPartition(), status.getFromId(), status.getToId(), status.getSchedules(), e.getMessage());
+        } finally {
+            status.setFinishedAt(LocalDateTime.now());
+        }
+    }
+    
+    private void syncChunk(List<Schedule> chunk, Map<String, Long> heldSeats, SyncPartitionStatus status, SyncJob job) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        if (job.isCancelled()) {
+            throw new CancellationException("Sync job " + job.getId() + " cancelled");
+        }
+        try {
+            throttle.acquire(chunk.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while throttled");
+        }
+        status.add(elasticsearchService.syncSchedules(chunk, heldSeats));
+        chunk.forEach(elasticsearchService::detach);
+        chunk.clear();
+    }
+}
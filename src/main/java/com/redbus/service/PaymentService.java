@@ -4,9 +4,11 @@ import com.redbus.dto.PaymentRequest;
 import com.redbus.dto.PaymentResponse;
 import com.redbus.entity.Booking;
 import com.redbus.entity.Payment;
+import com.redbus.event.BookingChangedEvent;
 import com.redbus.repository.jpa.PaymentRepository;
 import com.redbus.repository.jpa.BookingRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,7 @@ public class PaymentService {
     
     private final PaymentRepository paymentRepository;
     private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<Payment> getPaymentsByBookingId(Long bookingId) {
@@ -103,6 +106,8 @@ public class PaymentService {
         Booking booking = payment.getBooking();
         booking.setStatus(Booking.BookingStatus.CANCELLED);
         bookingRepository.save(booking);
+        // The seats are free again once this commits
+        eventPublisher.publishEvent(new BookingChangedEvent(booking.getSchedule().getId(), booking.getBookingDate()));
         
         return PaymentResponse.fromPayment(payment);
     }
@@ -0,0 +1,161 @@
+package com.redbus.service;
+
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.dto.ReconciliationReport;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.search.DigestRange;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Compares Postgres and the search index without reading either side row by row. Each side
+// aggregates a count and an order-independent digest per schedule id range; matching ranges
+// are done, differing ones are split into fanout children and compared again, down to single
+// schedules. A handful of stale documents costs a few aggregate queries per level of the id
+// space rather than a full scan, and only the schedules that actually differ are resynced.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationService {
+    
+    private final ScheduleRepository scheduleRepository;
+    private final ElasticsearchService elasticsearchService;
+    
+    @Value("${app.search.availability.horizon-days:60}")
+    private int horizonDays;
+    
+    @Value("${app.search.reconcile.fanout:16}")
+    private int fanout;
+    
+    @Value("${app.search.reconcile.max-repairs:1000}")
+    private int maxRepairs;
+    
+    private static final int REPAIR_CHUNK = 100;
+    
+    // Root comparison only: one aggregate on each side, answers whether the two agree
+    public ReconciliationReport check() {
+        return compare(false);
+    }
+    
+    // Drills into every differing range and resyncs the schedules found at the bottom
+    public ReconciliationReport reconcile() {
+        return compare(true);
+    }
+    
+    private ReconciliationReport compare(boolean drill) {
+        LocalDate firstDate = LocalDate.now();
+        LocalDate lastDate = firstDate.plusDays(horizonDays - 1);
+        Long maxId = scheduleRepository.findMaxId();
+        long fromId = 1; // not the current minimum, so documents of deleted low ids are still covered
+        long toId = Math.max(maxId != null ? maxId : 0, elasticsearchService.getMaxIndexedScheduleId());
+        
+        ReconciliationReport report = ReconciliationReport.builder()
+                .mismatchedScheduleIds(new ArrayList<>())
+                .checkedAt(LocalDateTime.now())
+                .build();
+        if (toId < fromId) {
+            report.setInSync(true); // nothing on either side
+            return report;
+        }
+        
+        DigestRange root = DigestRange.empty(fromId, toId);
+        DigestRange expected = databaseDigests(List.of(root), 1, firstDate, lastDate).get(0);
+        DigestRange actual = elasticsearchService.digestRanges(List.of(root), firstDate, lastDate).get(0);
+        report.setQueries(2);
+        report.setRangesCompared(1);
+        report.setDatabaseDocuments(expected.documents());
+        report.setIndexDocuments(actual.documents());
+        report.setInSync(expected.matches(actual));
+        if (report.isInSync() || !drill) {
+            report.setMismatchedRanges(report.isInSync() ? 0 : 1);
+            return report;
+        }
+        
+        Set<Long> mismatched = drill(root, firstDate, lastDate, report);
+        report.getMismatchedScheduleIds().addAll(mismatched);
+        if (report.isTruncated()) {
+            log.warn("Reconciliation found more than {} differing schedules; run a full resync instead", maxRepairs);
+            return report;
+        }
+        report.setRepairedSchedules(repair(mismatched));
+        log.info("Reconciliation compared {} ranges in {} queries and repaired {} schedules",
+                report.getRangesCompared(), report.getQueries(), report.getRepairedSchedules());
+        return report;
+    }
+    
+    // Depth-first over the differing ranges; each level costs one query per side for all
+    // children of a range, and a range that matches is never looked into again
+    private Set<Long> drill(DigestRange root, LocalDate firstDate, LocalDate lastDate, ReconciliationReport report) {
+        Set<Long> mismatched = new HashSet<>();
+        Deque<DigestRange> pending = new ArrayDeque<>();
+        pending.push(root);
+        int mismatchedRanges = 1;
+        while (!pending.isEmpty()) {
+            DigestRange range = pending.pop();
+            if (range.isSingleId()) {
+                mismatched.add(range.fromId());
+                if (mismatched.size() > maxRepairs) {
+                    report.setTruncated(true);
+                    break;
+                }
+                continue;
+            }
+            long width = DigestRange.childWidth(range.fromId(), range.toId(), fanout);
+            List<DigestRange> children = DigestRange.split(range.fromId(), range.toId(), fanout);
+            List<DigestRange> expected = databaseDigests(children, width, firstDate, lastDate);
+            List<DigestRange> actual = elasticsearchService.digestRanges(children, firstDate, lastDate);
+            report.setQueries(report.getQueries() + 2);
+            report.setRangesCompared(report.getRangesCompared() + children.size());
+            for (int i = 0; i < children.size(); i++) {
+                if (!expected.get(i).matches(actual.get(i))) {
+                    mismatchedRanges++;
+                    pending.push(children.get(i));
+                }
+            }
+        }
+        report.setMismatchedRanges(mismatchedRanges);
+        return mismatched;
+    }
+    
+    // Database side of one level: the rows come back per bucket of the children's width,
+    // so bucket n belongs to the n-th child
+    private List<DigestRange> databaseDigests(List<DigestRange> ranges, long width,
+                                              LocalDate firstDate, LocalDate lastDate) {
+        long fromId = ranges.get(0).fromId();
+        long toId = ranges.get(ranges.size() - 1).toId();
+        long bucketWidth = ranges.size() == 1 ? toId - fromId + 1 : width;
+        List<DigestRange> digests = new ArrayList<>(ranges);
+        for (Object[] row : scheduleRepository.digestRanges(fromId, toId, bucketWidth, firstDate, lastDate)) {
+            int index = ((Number) row[0]).intValue();
+            digests.set(index, digests.get(index).plus(((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
+        }
+        return digests;
+    }
+    
+    // Resyncs each schedule from Postgres: rewritten if active, its documents deleted if it
+    // is inactive or gone
+    private int repair(Set<Long> scheduleIds) {
+        List<Long> ids = new ArrayList<>(scheduleIds);
+        int repaired = 0;
+        for (int from = 0; from < ids.size(); from += REPAIR_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + REPAIR_CHUNK));
+            try {
+                BulkIndexResult result = elasticsearchService.syncChanges(new HashSet<>(chunk), Set.of(), Set.of(), Set.of());
+                repaired += chunk.size() - result.getFailedScheduleIds().size();
+            } catch (Exception e) {
+                log.error("Failed to repair schedules {}", chunk, e);
+            }
+        }
+        return repaired;
+    }
+}
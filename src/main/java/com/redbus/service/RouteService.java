@@ -1,8 +1,10 @@
 package com.redbus.service;
 
 import com.redbus.entity.Route;
+import com.redbus.event.RouteChangedEvent;
 import com.redbus.repository.jpa.RouteRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +16,7 @@ import java.util.Optional;
 public class RouteService {
     
     private final RouteRepository routeRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<Route> getAllRoutes() {
@@ -40,7 +43,9 @@ public class RouteService {
         if (routeRepository.findByOriginAndDestination(route.getOrigin(), route.getDestination()).isPresent()) {
             throw new IllegalArgumentException("Route already exists between " + route.getOrigin() + " and " + route.getDestination());
         }
-        return routeRepository.save(route);
+        Route savedRoute = routeRepository.save(route);
+        eventPublisher.publishEvent(new RouteChangedEvent(savedRoute.getId()));
+        return savedRoute;
     }
     
     @Transactional
@@ -60,7 +65,9 @@ public class RouteService {
         existingRoute.setDistanceKm(route.getDistanceKm());
         existingRoute.setEstimatedDurationHours(route.getEstimatedDurationHours());
         
-        return routeRepository.save(existingRoute);
+        Route updatedRoute = routeRepository.save(existingRoute);
+        eventPublisher.publishEvent(new RouteChangedEvent(id));
+        return updatedRoute;
     }
     
     @Transactional
@@ -70,5 +77,6 @@ public class RouteService {
         
         route.setIsActive(false);
         routeRepository.save(route);
+        eventPublisher.publishEvent(new RouteChangedEvent(id));
     }
 }
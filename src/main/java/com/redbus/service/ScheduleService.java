@@ -3,10 +3,12 @@ package com.redbus.service;
 import com.redbus.entity.Schedule;
 import com.redbus.entity.Bus;
 import com.redbus.entity.Route;
+import com.redbus.event.ScheduleChangedEvent;
 import com.redbus.repository.jpa.ScheduleRepository;
 import com.redbus.repository.jpa.BusRepository;
 import com.redbus.repository.jpa.RouteRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,10 +24,16 @@ public class ScheduleService {
     private final BusRepository busRepository;
     private final RouteRepository routeRepository;
     private final ElasticsearchService elasticsearchService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<Schedule> getAllSchedules() {
-        return scheduleRepository.findAll();
+        return scheduleRepository.findAllWithBusAndRoute();
+    }
+    
+    @Transactional(readOnly = true)
+    public long countSchedules() {
+        return scheduleRepository.count();
     }
     
     @Transactional(readOnly = true)
@@ -73,6 +81,7 @@ public class ScheduleService {
         
         // Index in Elasticsearch
         elasticsearchService.indexSchedule(savedSchedule);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(savedSchedule.getId()));
         
         return savedSchedule;
     }
@@ -92,6 +101,7 @@ public class ScheduleService {
         
         // Update in Elasticsearch
         elasticsearchService.indexSchedule(updatedSchedule);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(id));
         
         return updatedSchedule;
     }
@@ -106,5 +116,6 @@ public class ScheduleService {
         
         // Remove from Elasticsearch
         elasticsearchService.deleteSchedule(id);
+        eventPublisher.publishEvent(new ScheduleChangedEvent(id));
     }
 }
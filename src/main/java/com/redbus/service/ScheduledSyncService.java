@@ -1,15 +1,27 @@
 package com.redbus.service;
 
+import com.redbus.dto.BulkIndexResult;
 import com.redbus.entity.Schedule;
+import com.redbus.entity.SyncCheckpoint;
 import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.repository.jpa.SyncCheckpointRepository;
+import com.redbus.util.Throttle;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @EnableScheduling
@@ -17,95 +29,182 @@ import java.util.List;
 @Slf4j
 public class ScheduledSyncService {
     
+    private static final String CHECKPOINT = "schedules";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
     private final ScheduleRepository scheduleRepository;
+    private final SyncCheckpointRepository syncCheckpointRepository;
     private final ElasticsearchService elasticsearchService;
+    private final SearchChangeListener searchChangeListener;
+    private final TransactionTemplate transactionTemplate;
+    private final SyncLeaseService syncLeaseService;
+    private final Throttle throttle; // shared with full resyncs
+    
+    // Re-read window behind the watermark. updated_at is stamped when the writing transaction
+    // starts, so a slow transaction can commit a row that is already older than the checkpoint.
+    @Value("${app.search.sync.overlap-ms:60000}")
+    private long overlapMillis;
+    
+    @Value("${app.search.sync.batch-size:500}")
+    private int batchSize;
+    
+    // While change notifications are flowing the poll is only a safety net for anything they
+    // missed, so it runs at the much longer interval; when the listener drops it is back every tick
+    @Value("${app.search.notify.safety-poll-ms:300000}")
+    private long safetyPollMillis;
+    
+    private volatile long lastPollMillis;
+    private final AtomicBoolean syncing = new AtomicBoolean(false);
     
-    @Scheduled(fixedRate = 10000) // Run every 10 seconds
-    @Transactional(readOnly = true)
-    public void syncToElasticsearch() {
+    // Only the node holding the sync lease polls. Fixed delay, so a slow pass pushes the next
+    // one back instead of queueing behind it.
+    @Scheduled(fixedDelay = 10000) // 10 seconds after the previous pass
+    public void pollForChanges() {
+        if (!syncLeaseService.isLeader()) {
+            lastPollMillis = 0; // a new leader polls straight away to cover the handover
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (searchChangeListener.isListening() && now - lastPollMillis < safetyPollMillis) {
+            return;
+        }
+        lastPollMillis = now;
+        syncToElasticsearch();
+    }
+    
+    // Returns false without syncing if this node does not hold the lease or a pass is
+    // already running here. Each page is read, written to the index and checkpointed in its
+    // own transaction, so no connection or snapshot is held across a long pass and a pass
+    // that stops part-way resumes from the last page it finished. The lease is re-checked
+    // before every page, so a node that lost it stops writing the index straight away
+    // rather than at its next checkpoint write.
+    public boolean syncToElasticsearch() {
+        OptionalLong token = syncLeaseService.currentToken();
+        if (token.isEmpty()) {
+            log.debug("Skipping incremental sync, another node holds the sync lease");
+            return false;
+        }
+        if (!syncing.compareAndSet(false, true)) {
+            log.debug("Skipping incremental sync, a pass is already running");
+            return false;
+        }
         try {
-            log.debug("Starting scheduled sync to Elasticsearch...");
-            
-            List<Schedule> schedules = scheduleRepository.findAll();
-            log.debug("Found {} schedules to sync", schedules.size());
-            
-            int syncedCount = 0;
-            int skippedCount = 0;
-            int updatedCount = 0;
+            LocalDateTime checkpoint = getWatermark().orElse(EPOCH);
+            log.debug("Starting incremental sync to Elasticsearch from {}", checkpoint);
             
-            for (Schedule schedule : schedules) {
-                try {
-                    // Validate schedule has required relationships
-                    if (schedule.getBus() != null && schedule.getRoute() != null && 
-                        schedule.getBus().getOperator() != null) {
-                        boolean wasIndexed = elasticsearchService.indexSchedule(schedule);
-                        if (wasIndexed) {
-                            syncedCount++;
-                            updatedCount++;
-                            log.debug("Successfully synced schedule ID: {}", schedule.getId());
-                        } else {
-                            syncedCount++;
-                            log.debug("Schedule ID: {} already up-to-date in Elasticsearch", schedule.getId());
-                        }
-                    } else {
-                        skippedCount++;
-                        log.debug("Skipping schedule ID: {} - Missing required relationships", schedule.getId());
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to sync schedule ID: {} - Error: {}", schedule.getId(), e.getMessage());
+            SyncPass pass = new SyncPass(checkpoint.minus(overlapMillis, ChronoUnit.MILLIS), checkpoint);
+            do {
+                if (!holdsLease(token.getAsLong())
+                        || !Boolean.TRUE.equals(transactionTemplate.execute(status -> syncPage(pass, token.getAsLong())))) {
+                    log.warn("Sync lease lost during the pass, checkpoint left at {}", pass.watermark);
+                    return true;
                 }
-            }
+            } while (pass.pageSize == batchSize);
             
-            if (updatedCount > 0) {
-                log.info("Scheduled sync completed. Updated: {}, Already synced: {}, Skipped: {}, Total: {}", 
-                        updatedCount, syncedCount - updatedCount, skippedCount, schedules.size());
+            if (pass.updated > 0 || pass.deleted > 0) {
+                log.info("Scheduled sync completed. Updated: {}, Deleted: {}, Scanned: {}, Watermark: {}", 
+                        pass.updated, pass.deleted, pass.scanned, pass.watermark);
             } else {
-                log.debug("Scheduled sync completed. No updates needed. Total: {}", schedules.size());
+                log.debug("Scheduled sync completed. No updates needed. Scanned: {}", pass.scanned);
             }
             
         } catch (Exception e) {
             log.error("Scheduled sync failed: {}", e.getMessage());
+        } finally {
+            syncing.set(false);
         }
+        return true;
     }
     
-    // Manual sync method for immediate sync
-    public int manualSync() {
+    // One keyset page: (updated_at, id) continues exactly after the last row, even when many
+    // rows share a timestamp across the page boundary. Returns false if the lease was lost.
+    private boolean syncPage(SyncPass pass, long token) {
+        List<Schedule> page = scheduleRepository.findChangedSince(pass.since, pass.afterId, PageRequest.of(0, batchSize));
+        // A pass after a long outage can cover most of the table, so it is paced like a resync
         try {
-            log.info("Starting manual sync to Elasticsearch...");
-            
-            List<Schedule> schedules = scheduleRepository.findAll();
-            log.info("Found {} schedules to sync", schedules.size());
-            
-            int syncedCount = 0;
-            int updatedCount = 0;
-            for (Schedule schedule : schedules) {
-                try {
-                    // Validate schedule has required relationships
-                    if (schedule.getBus() != null && schedule.getRoute() != null && 
-                        schedule.getBus().getOperator() != null) {
-                        boolean wasIndexed = elasticsearchService.indexSchedule(schedule);
-                        if (wasIndexed) {
-                            updatedCount++;
-                            log.info("Successfully synced schedule ID: {}", schedule.getId());
-                        } else {
-                            log.info("Schedule ID: {} already up-to-date in Elasticsearch", schedule.getId());
-                        }
-                        syncedCount++;
-                    } else {
-                        log.warn("Skipping schedule ID: {} - Missing required relationships", schedule.getId());
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to sync schedule ID: {} - Error: {}", schedule.getId(), e.getMessage());
-                }
+            throttle.acquire(page.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while throttled");
+        }
+        BulkIndexResult result = elasticsearchService.syncSchedules(page);
+        for (Schedule schedule : page) {
+            if (result.getFailedScheduleIds().contains(schedule.getId())
+                    && (pass.firstFailure == null || schedule.getUpdatedAt().isBefore(pass.firstFailure))) {
+                pass.firstFailure = schedule.getUpdatedAt();
             }
-            
-            log.info("Manual sync completed. Updated: {}, Already synced: {}, Total: {}", 
-                    updatedCount, syncedCount - updatedCount, schedules.size());
-            return updatedCount;
-            
+        }
+        pass.updated += result.getIndexed();
+        pass.deleted += result.getDeleted();
+        pass.scanned += page.size();
+        pass.pageSize = page.size();
+        if (!page.isEmpty()) {
+            Schedule last = page.get(page.size() - 1);
+            pass.since = last.getUpdatedAt();
+            pass.afterId = last.getId();
+            if (pass.since.isAfter(pass.newest)) {
+                pass.newest = pass.since;
+            }
+        }
+        page.forEach(elasticsearchService::detach);
+        
+        // Never move the checkpoint past a row that failed, so the next pass retries it
+        LocalDateTime watermark = pass.newest;
+        if (pass.firstFailure != null && !pass.firstFailure.isAfter(watermark)) {
+            watermark = pass.firstFailure.minusNanos(1);
+        }
+        if (!watermark.isAfter(pass.watermark)) {
+            return true;
+        }
+        if (syncCheckpointRepository.advance(CHECKPOINT, watermark, SyncLeaseService.SYNC_LEASE, token) == 0) {
+            return false;
+        }
+        pass.watermark = watermark;
+        return true;
+    }
+    
+    private boolean holdsLease(long token) {
+        return syncLeaseService.currentToken().equals(OptionalLong.of(token));
+    }
+    
+    public Optional<LocalDateTime> getWatermark() {
+        return syncCheckpointRepository.findById(CHECKPOINT).map(SyncCheckpoint::getWatermark);
+    }
+    
+    // Shortly after midnight: drop yesterday's departures and index the new last day of the horizon
+    @Scheduled(cron = "${app.search.availability.roll-cron:0 5 0 * * *}")
+    public void rollAvailabilityHorizon() {
+        OptionalLong token = syncLeaseService.currentToken();
+        if (token.isEmpty()) {
+            return;
+        }
+        try {
+            int indexed = elasticsearchService.rollHorizon(() -> holdsLease(token.getAsLong()));
+            log.info("Availability horizon rolled forward, {} departures added", indexed);
+        } catch (CancellationException e) {
+            log.warn("Sync lease lost while rolling the availability horizon, the next holder rolls it again");
         } catch (Exception e) {
-            log.error("Manual sync failed: {}", e.getMessage());
-            return 0;
+            log.error("Failed to roll availability horizon: {}", e.getMessage());
+        }
+    }
+    
+    // Position and totals of one pass; watermark is the checkpoint as last committed
+    private static class SyncPass {
+        
+        private LocalDateTime since;
+        private Long afterId = 0L;
+        private LocalDateTime newest;
+        private LocalDateTime watermark;
+        private LocalDateTime firstFailure;
+        private int pageSize;
+        private int scanned;
+        private int updated;
+        private int deleted;
+        
+        private SyncPass(LocalDateTime since, LocalDateTime watermark) {
+            this.since = since;
+            this.newest = watermark;
+            this.watermark = watermark;
         }
     }
 }
@@ -0,0 +1,196 @@
+package com.redbus.service;
+
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.search.ChangeBatcher;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+// Push side of the search sync. One dedicated Postgres connection, opened outside the pool so
+// it is never recycled, LISTENs on the channel the V8 and V10 triggers notify. Changed ids are
+// debounced into batches and applied through the content-hash bulk path. While the
+// connection is down, the watermark poller in ScheduledSyncService runs at full rate again.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchChangeListener {
+    
+    private static final String CHANNEL = "search_changes";
+    
+    private final ElasticsearchService elasticsearchService;
+    private final SyncLeaseService syncLeaseService;
+    
+    @Value("${spring.datasource.url}")
+    private String url;
+    
+    @Value("${spring.datasource.username}")
+    private String username;
+    
+    @Value("${spring.datasource.password}")
+    private String password;
+    
+    @Value("${app.search.notify.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.search.notify.quiet-ms:100}")
+    private long quietMillis;
+    
+    @Value("${app.search.notify.max-delay-ms:500}")
+    private long maxDelayMillis;
+    
+    @Value("${app.search.notify.max-batch:1000}")
+    private int maxBatch;
+    
+    @Value("${app.search.notify.reconnect-ms:5000}")
+    private long reconnectMillis;
+    
+    @Value("${app.search.notify.health-check-ms:30000}")
+    private long healthCheckMillis;
+    
+    private ChangeBatcher<String> batcher;
+    private Thread worker;
+    private volatile boolean running;
+    private volatile boolean listening;
+    private volatile Connection connection;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Search change notifications disabled, relying on watermark polling");
+            return;
+        }
+        batcher = new ChangeBatcher<>(quietMillis, maxDelayMillis, maxBatch);
+        running = true;
+        worker = new Thread(this::run, "search-change-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Error closing search change listener connection: {}", e.getMessage());
+            }
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+    
+    public boolean isListening() {
+        return listening;
+    }
+    
+    private void run() {
+        while (running) {
+            try (Connection current = DriverManager.getConnection(url, username, password)) {
+                connection = current;
+                try (Statement statement = current.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = current.unwrap(PGConnection.class);
+                listening = true;
+                log.info("Listening for search changes on channel {}", CHANNEL);
+                
+                long lastCheck = System.currentTimeMillis();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) quietMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            batcher.add(notification.getParameter());
+                        }
+                    }
+                    if (batcher.ready()) {
+                        flush();
+                    }
+                    // A silently dropped TCP connection never errors on a read that only waits
+                    if (System.currentTimeMillis() - lastCheck >= healthCheckMillis) {
+                        try (Statement statement = current.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        lastCheck = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Search change listener lost its connection, falling back to polling: {}", e.getMessage());
+                }
+            } finally {
+                listening = false;
+                connection = null;
+            }
+            if (running && batcher.size() > 0) {
+                flush();
+            }
+            pause(reconnectMillis);
+        }
+    }
+    
+    // Payloads are "<table>:<id>" as sent by the triggers
+    void flush() {
+        Set<String> batch = batcher.drain();
+        // Every node hears every notification; only the lease holder applies them
+        if (!syncLeaseService.isLeader()) {
+            return;
+        }
+        Set<Long> scheduleIds = new HashSet<>();
+        Set<Long> busIds = new HashSet<>();
+        Set<Long> routeIds = new HashSet<>();
+        Set<Long> operatorIds = new HashSet<>();
+        for (String payload : batch) {
+            int separator = payload.indexOf(':');
+            Long id;
+            try {
+                id = Long.valueOf(payload.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed search change payload: {}", payload);
+                continue;
+            }
+            switch (payload.substring(0, Math.max(separator, 0))) {
+                case "schedules" -> scheduleIds.add(id);
+                case "buses" -> busIds.add(id);
+                case "routes" -> routeIds.add(id);
+                case "bus_operators" -> operatorIds.add(id);
+                default -> log.warn("Ignoring search change for unknown table: {}", payload);
+            }
+        }
+        
+        try {
+            BulkIndexResult result = elasticsearchService.syncChanges(scheduleIds, busIds, routeIds, operatorIds);
+            log.debug("Applied {} search changes: {} documents written, {} deleted",
+                    batch.size(), result.getIndexed(), result.getDeleted());
+        } catch (Exception e) {
+            // Keep the ids for the next batch; the pause stops a down cluster from being hammered
+            log.error("Failed to apply {} search changes: {}", batch.size(), e.getMessage());
+            batch.forEach(batcher::add);
+            pause(reconnectMillis);
+        }
+    }
+    
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
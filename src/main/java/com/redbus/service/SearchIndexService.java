@@ -0,0 +1,658 @@
+package com.redbus.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import com.redbus.document.BusSearchDocument;
+import com.redbus.dto.ReindexStatus;
+import com.redbus.entity.Booking;
+import com.redbus.entity.Schedule;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.repository.jpa.ScheduleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.MultiGetItem;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Owns the concrete versioned indexes behind the "buses" read alias. A rebuild loads a
+// fresh index from Postgres with refresh and replicas disabled, catches up on writes that
+// raced the load, then swaps the alias in one atomic call, so searches never see a
+// half-filled index.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexService {
+    
+    private static final String INDEX_PREFIX = BusSearchDocument.READ_ALIAS + "_v";
+    private static final int MAX_CATCH_UP_ROUNDS = 5;
+    private static final int MAX_CONFLICT_RETRIES = 3;
+    // The stored hash no longer describes the document afterwards, so the next bulk sync rewrites it
+    private static final String HELD_SEATS_SCRIPT =
+            "int seats = (int) Math.max(0, ctx._source.totalSeats - params.heldSeats);" +
+            "if (ctx._source.availableSeats == seats) { ctx.op = 'noop'; } " +
+            "else { ctx._source.availableSeats = seats; ctx._source.contentHash = null; }";
+    
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ScheduleRepository scheduleRepository;
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final SyncLeaseService syncLeaseService;
+    
+    @Value("${app.search.availability.horizon-days:60}")
+    private int horizonDays;
+    
+    @Value("${app.search.index.bulk-size:1000}")
+    private int bulkSize;
+    
+    @Value("${app.search.index.bulk-max-bytes:5242880}")
+    private long bulkMaxBytes;
+    
+    @Value("${app.search.index.bulk-retries:3}")
+    private int bulkRetries;
+    
+    @Value("${app.search.index.bulk-retry-backoff-ms:200}")
+    private long bulkRetryBackoffMillis;
+    
+    @Value("${app.search.index.replicas:1}")
+    private int replicas;
+    
+    @Value("${app.search.index.refresh-interval:1s}")
+    private String refreshInterval;
+    
+    @Value("${app.search.index.upgrade-check-ms:5000}")
+    private long upgradeCheckMillis;
+    
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final AtomicLong indexedDocuments = new AtomicLong();
+    private final Set<String> dirtyIds = ConcurrentHashMap.newKeySet();
+    private final Queue<UpdateQuery> pendingUpdates = new ConcurrentLinkedQueue<>();
+    
+    // Non-null only while a rebuild is loading; every write is mirrored into it
+    private volatile String rebuildTarget;
+    private volatile boolean aliasReady;
+    
+    private volatile String state = "IDLE";
+    private volatile long totalDocuments;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+    
+    // Runs before any write so a missing alias is never auto-created as a concrete index
+    @PostConstruct
+    public void bootstrap() {
+        try {
+            ensureAlias();
+        } catch (Exception e) {
+            log.warn("Search index bootstrap deferred: {}", e.getMessage());
+        }
+    }
+    
+    // A live index on an older mapping version (or the pre-alias concrete index) is rebuilt in
+    // the background by the sync lease holder only. Other nodes keep serving the old index and
+    // wait for the holder's alias swap; the lease may not be settled yet at startup, so the
+    // check repeats until the index is current or this node holds the lease.
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            while (true) {
+                String live = liveIndex();
+                if (live != null && mappingVersionOf(live) >= BusSearchDocument.MAPPING_VERSION) {
+                    return;
+                }
+                if (syncLeaseService.isLeader()) {
+                    log.info("Search index {} is behind mapping version {}, rebuilding", live, BusSearchDocument.MAPPING_VERSION);
+                    rebuild();
+                    return;
+                }
+                log.debug("Search index {} is behind mapping version {}, waiting for the sync lease holder to rebuild",
+                        live, BusSearchDocument.MAPPING_VERSION);
+                Thread.sleep(upgradeCheckMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed to check search index version: {}", e.getMessage());
+        }
+    }
+    
+    public void save(BusSearchDocument document) {
+        ensureAlias();
+        String target = rebuildTarget;
+        if (target != null) {
+            dirtyIds.add(document.getId());
+        }
+        elasticsearchOperations.save(document, IndexCoordinates.of(BusSearchDocument.READ_ALIAS));
+        if (target != null) {
+            elasticsearchOperations.save(document, IndexCoordinates.of(target));
+        }
+    }
+    
+    public void saveAll(List<BusSearchDocument> documents) {
+        List<String> failed = indexAll(documents);
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException(failed.size() + " search documents failed to index, first: " + failed.get(0));
+        }
+    }
+    
+    // Ships documents in bulk requests bounded by both count and serialized size. Items the
+    // cluster rejects are retried on their own with backoff; ids still failing are returned.
+    public List<String> indexAll(List<BusSearchDocument> documents) {
+        if (documents.isEmpty()) {
+            return List.of();
+        }
+        ensureAlias();
+        String target = rebuildTarget;
+        List<String> failed = new ArrayList<>();
+        List<IndexQuery> batch = new ArrayList<>(Math.min(bulkSize, documents.size()));
+        long batchBytes = 0;
+        for (BusSearchDocument document : documents) {
+            if (target != null) {
+                dirtyIds.add(document.getId());
+            }
+            String source = elasticsearchOperations.getElasticsearchConverter().mapObject(document).toJson();
+            if (!batch.isEmpty() && batchBytes + source.length() > bulkMaxBytes) {
+                failed.addAll(sendBatch(batch, target));
+                batchBytes = 0;
+            }
+            batch.add(new IndexQueryBuilder().withId(document.getId()).withSource(source).build());
+            batchBytes += source.length();
+            if (batch.size() >= bulkSize) {
+                failed.addAll(sendBatch(batch, target));
+                batchBytes = 0;
+            }
+        }
+        failed.addAll(sendBatch(batch, target));
+        return failed;
+    }
+    
+    // contentHash of each id present in the live index; ids that are missing have no entry.
+    // Only that one field is fetched, in multi-gets of bulk-size ids.
+    public Map<String, String> contentHashes(List<String> ids) {
+        ensureAlias();
+        Map<String, String> hashes = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += bulkSize) {
+            NativeQuery query = NativeQuery.builder()
+                    .withIds(ids.subList(from, Math.min(ids.size(), from + bulkSize)))
+                    .withSourceFilter(new FetchSourceFilter(new String[] {"contentHash"}, null))
+                    .build();
+            for (MultiGetItem<BusSearchDocument> item : elasticsearchOperations.multiGet(query, BusSearchDocument.class,
+                    IndexCoordinates.of(BusSearchDocument.READ_ALIAS))) {
+                if (item.hasItem()) {
+                    String hash = item.getItem().getContentHash();
+                    hashes.put(item.getItem().getId(), hash != null ? hash : "");
+                }
+            }
+        }
+        return hashes;
+    }
+    
+    // Scripted partial updates from held-seat counts: availability is worked out next to the
+    // stored totalSeats, so nothing has to be read first, and a document whose availability
+    // already matches is left untouched. Ids without a document (not running that day) are skipped.
+    // Both indexes are always written, so a failure on the live one never leaves the rebuild
+    // target behind. Returns the ids that failed on either, for the caller to retry.
+    public Set<String> updateHeldSeats(Map<String, Long> heldSeatsById) {
+        if (heldSeatsById.isEmpty()) {
+            return Set.of();
+        }
+        ensureAlias();
+        String target = rebuildTarget;
+        List<UpdateQuery> updates = new ArrayList<>(heldSeatsById.size());
+        heldSeatsById.forEach((id, heldSeats) -> {
+            if (target != null) {
+                dirtyIds.add(id);
+            }
+            updates.add(UpdateQuery.builder(id)
+                    .withScriptType(ScriptType.INLINE)
+                    .withLang("painless")
+                    .withScript(HELD_SEATS_SCRIPT)
+                    .withParams(Map.<String, Object>of("heldSeats", heldSeats))
+                    .build());
+        });
+        List<String> indexes = new ArrayList<>(List.of(BusSearchDocument.READ_ALIAS));
+        if (target != null) {
+            indexes.add(target);
+        }
+        Set<String> failed = new HashSet<>();
+        RuntimeException error = null;
+        for (String index : indexes) {
+            try {
+                failed.addAll(bulkUpdateExisting(updates, index));
+            } catch (RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return failed;
+    }
+    
+    // A missing document (404) is a date the schedule does not run on, not a failure
+    private Set<String> bulkUpdateExisting(List<UpdateQuery> updates, String index) {
+        try {
+            elasticsearchOperations.bulkUpdate(updates, IndexCoordinates.of(index));
+            return Set.of();
+        } catch (BulkFailureException e) {
+            Set<String> failed = new HashSet<>();
+            e.getFailedDocuments().forEach((id, failure) -> {
+                if (failure.status() == null || failure.status() != 404) {
+                    failed.add(id);
+                }
+            });
+            if (!failed.isEmpty()) {
+                log.warn("{} seat updates failed on {}: {}", failed.size(), index, failed);
+            }
+            return failed;
+        }
+    }
+    
+    public void deleteAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        ensureAlias();
+        String target = rebuildTarget;
+        if (target != null) {
+            dirtyIds.addAll(ids);
+        }
+        NativeQuery byIds = NativeQuery.builder().withIds(ids).build();
+        elasticsearchOperations.delete(byIds, BusSearchDocument.class, IndexCoordinates.of(BusSearchDocument.READ_ALIAS));
+        if (target != null) {
+            elasticsearchOperations.delete(byIds, BusSearchDocument.class, IndexCoordinates.of(target));
+        }
+    }
+    
+    // Only for queries whose matches can never come back from a rebuild snapshot (e.g. past dates),
+    // since catch-up cannot track which ids they removed
+    public void deleteByQuery(Query query) {
+        ensureAlias();
+        String target = rebuildTarget;
+        NativeQuery nativeQuery = NativeQuery.builder().withQuery(query).build();
+        elasticsearchOperations.delete(nativeQuery, BusSearchDocument.class, IndexCoordinates.of(BusSearchDocument.READ_ALIAS));
+        if (target != null) {
+            elasticsearchOperations.delete(nativeQuery, BusSearchDocument.class, IndexCoordinates.of(target));
+        }
+    }
+    
+    // Update-by-query touches documents whose ids are not known up front, so catch-up cannot copy
+    // them. Each one issued during a rebuild is replayed on the new index once the bulk load is in.
+    public long updateByQuery(Query query, String script, Map<String, Object> params) {
+        ensureAlias();
+        UpdateQuery update = UpdateQuery.builder(NativeQuery.builder().withQuery(query).build())
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withScript(script)
+                .withParams(params)
+                .withAbortOnVersionConflict(false)
+                .build();
+        String target = rebuildTarget;
+        if (target != null) {
+            pendingUpdates.add(update);
+        }
+        long updated = runUpdateByQuery(update, BusSearchDocument.READ_ALIAS);
+        if (target != null) {
+            runUpdateByQuery(update, target);
+        }
+        return updated;
+    }
+    
+    public void delete(String id) {
+        ensureAlias();
+        String target = rebuildTarget;
+        if (target != null) {
+            dirtyIds.add(id);
+        }
+        elasticsearchOperations.delete(id, IndexCoordinates.of(BusSearchDocument.READ_ALIAS));
+        if (target != null) {
+            elasticsearchOperations.delete(id, IndexCoordinates.of(target));
+        }
+    }
+    
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+    
+    public ReindexStatus getStatus() {
+        String live;
+        try {
+            live = liveIndex();
+        } catch (Exception e) {
+            live = null;
+        }
+        return ReindexStatus.builder()
+                .state(state)
+                .liveIndex(live)
+                .targetIndex(rebuildTarget)
+                .totalDocuments(totalDocuments)
+                .indexedDocuments(indexedDocuments.get())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .error(lastError)
+                .build();
+    }
+    
+    @Async
+    @Transactional(readOnly = true)
+    public void rebuildAsync() {
+        rebuild();
+    }
+    
+    // Only the sync lease holder rebuilds, so two nodes never load and swap competing indexes
+    public void rebuild() {
+        if (!syncLeaseService.isLeader()) {
+            log.info("Not holding the search sync lease, leaving the rebuild to the holder");
+            return;
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Search index rebuild already running, ignoring request");
+            return;
+        }
+        
+        String target = INDEX_PREFIX + BusSearchDocument.MAPPING_VERSION + "_" + System.currentTimeMillis();
+        state = "RUNNING";
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        lastError = null;
+        totalDocuments = 0;
+        indexedDocuments.set(0);
+        dirtyIds.clear();
+        pendingUpdates.clear();
+        
+        try {
+            createIndex(target, true);
+            rebuildTarget = target;
+            log.info("Rebuilding search index into {}", target);
+            
+            LocalDate firstDate = LocalDate.now();
+            LocalDate lastDate = firstDate.plusDays(horizonDays - 1L);
+            Map<String, Long> heldSeats = new HashMap<>();
+            for (Object[] row : bookingRepository.countHeldSeatsBetween(firstDate, lastDate, Booking.BookingStatus.CANCELLED)) {
+                heldSeats.put(BusSearchDocument.documentId((Long) row[0], (LocalDate) row[1]), ((Number) row[2]).longValue());
+            }
+            totalDocuments = scheduleRepository.count() * horizonDays;
+            
+            // The schedule cursor needs a transaction; startup rebuilds are not called through the proxy
+            transactionTemplate.executeWithoutResult(status -> load(target, firstDate, lastDate, heldSeats));
+            totalDocuments = indexedDocuments.get();
+            
+            for (UpdateQuery update = pendingUpdates.poll(); update != null; update = pendingUpdates.poll()) {
+                runUpdateByQuery(update, target);
+            }
+            catchUp(target);
+            restoreSettings(target);
+            elasticsearchOperations.indexOps(IndexCoordinates.of(target)).refresh();
+            
+            // A holder that lost the lease mid-load must not swap over the new holder's index
+            if (!syncLeaseService.isLeader()) {
+                throw new IllegalStateException("Search sync lease lost during rebuild");
+            }
+            List<String> previous = swapAlias(target);
+            rebuildTarget = null;
+            // Writes still in flight were mirrored into the new index, so the old ones can go
+            if (!previous.isEmpty()) {
+                elasticsearchClient.indices().delete(d -> d.index(previous));
+            }
+            
+            state = "COMPLETED";
+            log.info("Search index rebuilt: {} documents in {}, alias swapped from {}",
+                    indexedDocuments.get(), target, previous);
+        } catch (Exception e) {
+            log.error("Search index rebuild into {} failed", target, e);
+            rebuildTarget = null;
+            state = "FAILED";
+            lastError = e.getMessage();
+            try {
+                elasticsearchClient.indices().delete(d -> d.index(target).ignoreUnavailable(true));
+            } catch (Exception cleanup) {
+                log.warn("Failed to drop abandoned index {}: {}", target, cleanup.getMessage());
+            }
+        } finally {
+            finishedAt = LocalDateTime.now();
+            dirtyIds.clear();
+            pendingUpdates.clear();
+            rebuilding.set(false);
+        }
+    }
+    
+    // Streams schedules rather than listing them, so memory stays flat however large the fleet is
+    private void load(String target, LocalDate firstDate, LocalDate lastDate, Map<String, Long> heldSeats) {
+        List<IndexQuery> batch = new ArrayList<>(bulkSize);
+        try (Stream<Schedule> schedules = scheduleRepository.streamAllWithDetails()) {
+            for (Iterator<Schedule> it = schedules.iterator(); it.hasNext(); ) {
+                Schedule schedule = it.next();
+                // Deactivated schedules have no documents, as in the incremental sync
+                boolean active = Boolean.TRUE.equals(schedule.getIsActive());
+                for (LocalDate date = firstDate; active && !date.isAfter(lastDate); date = date.plusDays(1)) {
+                    if (!BusSearchDocument.runsOn(schedule, date)) {
+                        continue;
+                    }
+                    String id = BusSearchDocument.documentId(schedule.getId(), date);
+                    BusSearchDocument document = BusSearchDocument.fromSchedule(schedule, date, heldSeats.getOrDefault(id, 0L));
+                    batch.add(new IndexQueryBuilder().withId(id).withObject(document).build());
+                    if (batch.size() >= bulkSize) {
+                        flush(batch, target);
+                    }
+                }
+                // As in ElasticsearchService.detach: only what the cursor has already handed out
+                entityManager.detach(schedule.getBus());
+                entityManager.detach(schedule);
+            }
+        }
+        flush(batch, target);
+    }
+    
+    // Resolves the concrete index behind the read alias, or null if the alias does not exist yet
+    public String liveIndex() throws IOException {
+        if (!elasticsearchClient.indices().existsAlias(e -> e.name(BusSearchDocument.READ_ALIAS)).value()) {
+            return null;
+        }
+        return elasticsearchClient.indices().getAlias(g -> g.name(BusSearchDocument.READ_ALIAS))
+                .result().keySet().stream().findFirst().orElse(null);
+    }
+    
+    private synchronized void ensureAlias() {
+        if (aliasReady) {
+            return;
+        }
+        try {
+            if (!elasticsearchClient.indices().exists(e -> e.index(BusSearchDocument.READ_ALIAS)).value()) {
+                String initial = INDEX_PREFIX + BusSearchDocument.MAPPING_VERSION + "_" + System.currentTimeMillis();
+                createIndex(initial, false);
+                elasticsearchClient.indices().updateAliases(u -> u.actions(a -> a
+                        .add(add -> add.index(initial).alias(BusSearchDocument.READ_ALIAS))));
+                log.info("Created search index {} behind alias {}", initial, BusSearchDocument.READ_ALIAS);
+            }
+            // Either the alias or the legacy concrete index exists; both accept writes
+            aliasReady = true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to initialise search index", e);
+        }
+    }
+    
+    private void createIndex(String name, boolean bulkLoad) {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(IndexCoordinates.of(name));
+        Settings settings = indexOps.createSettings(BusSearchDocument.class);
+        if (bulkLoad) {
+            settings.put("index.refresh_interval", "-1");
+            settings.put("index.number_of_replicas", 0);
+        }
+        indexOps.create(settings, indexOps.createMapping(BusSearchDocument.class));
+    }
+    
+    private void flush(List<IndexQuery> batch, String target) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<String> failed = bulkIndexWithRetry(batch, IndexCoordinates.of(target));
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException(failed.size() + " documents failed to load into " + target);
+        }
+        indexedDocuments.addAndGet(batch.size());
+        batch.clear();
+    }
+    
+    // Writes one bounded batch to the alias, mirrors it into a rebuild target, and clears it.
+    // Failures on the target are left to catch-up, which copies every dirty id from the alias.
+    private List<String> sendBatch(List<IndexQuery> batch, String target) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        List<String> failed = bulkIndexWithRetry(batch, IndexCoordinates.of(BusSearchDocument.READ_ALIAS));
+        if (target != null) {
+            bulkIndexWithRetry(batch, IndexCoordinates.of(target));
+        }
+        batch.clear();
+        return failed;
+    }
+    
+    // A bulk request succeeds or fails per item. Only the rejected items go out again, with
+    // exponential backoff so a cluster pushing back (429) gets room to drain its queues.
+    private List<String> bulkIndexWithRetry(List<IndexQuery> queries, IndexCoordinates index) {
+        List<IndexQuery> pending = queries;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                elasticsearchOperations.bulkIndex(pending, index);
+                return List.of();
+            } catch (BulkFailureException e) {
+                Set<String> rejected = e.getFailedDocuments().keySet();
+                pending = pending.stream()
+                        .filter(query -> rejected.contains(query.getId()))
+                        .collect(Collectors.toList());
+                if (attempt >= bulkRetries || pending.isEmpty()) {
+                    log.warn("{} documents failed to index into {} after {} retries: {}",
+                            rejected.size(), index.getIndexName(), attempt, e.getMessage());
+                    return new ArrayList<>(rejected);
+                }
+                log.debug("Retrying {} rejected documents into {}", pending.size(), index.getIndexName());
+                try {
+                    Thread.sleep(bulkRetryBackoffMillis << attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return new ArrayList<>(rejected);
+                }
+            }
+        }
+    }
+    
+    // The bulk load may have overwritten a document that was dual-written while it ran.
+    // Copy those from the live index, which always holds the latest write.
+    private void catchUp(String target) {
+        for (int round = 0; round < MAX_CATCH_UP_ROUNDS && !dirtyIds.isEmpty(); round++) {
+            List<String> ids = new ArrayList<>(dirtyIds);
+            dirtyIds.removeAll(ids);
+            for (String id : ids) {
+                BusSearchDocument live = elasticsearchOperations.get(id, BusSearchDocument.class,
+                        IndexCoordinates.of(BusSearchDocument.READ_ALIAS));
+                if (live != null) {
+                    elasticsearchOperations.save(live, IndexCoordinates.of(target));
+                } else {
+                    elasticsearchOperations.delete(id, IndexCoordinates.of(target));
+                }
+            }
+            log.debug("Catch-up round {} copied {} documents into {}", round + 1, ids.size(), target);
+        }
+    }
+    
+    // Seat updates can race with a script on the same document. The scripts are idempotent, so
+    // running the query again picks up whatever was skipped on a version conflict.
+    private long runUpdateByQuery(UpdateQuery update, String index) {
+        long updated = 0;
+        for (int attempt = 0; attempt < MAX_CONFLICT_RETRIES; attempt++) {
+            ByQueryResponse response = elasticsearchOperations.updateByQuery(update, IndexCoordinates.of(index));
+            updated += response.getUpdated();
+            if (response.getVersionConflicts() == 0) {
+                break;
+            }
+        }
+        return updated;
+    }
+    
+    private void restoreSettings(String target) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(target)
+                .settings(s -> s
+                        .refreshInterval(t -> t.time(refreshInterval))
+                        .numberOfReplicas(String.valueOf(replicas))));
+    }
+    
+    // One _aliases call: readers see either the old index or the new one, never neither
+    private List<String> swapAlias(String target) throws IOException {
+        List<Action> actions = new ArrayList<>();
+        actions.add(Action.of(a -> a.add(add -> add.index(target).alias(BusSearchDocument.READ_ALIAS))));
+        
+        List<String> previous = new ArrayList<>();
+        if (elasticsearchClient.indices().existsAlias(e -> e.name(BusSearchDocument.READ_ALIAS)).value()) {
+            previous.addAll(elasticsearchClient.indices().getAlias(g -> g.name(BusSearchDocument.READ_ALIAS))
+                    .result().keySet());
+            for (String index : previous) {
+                actions.add(Action.of(a -> a.remove(r -> r.index(index).alias(BusSearchDocument.READ_ALIAS))));
+            }
+        } else if (elasticsearchClient.indices().exists(e -> e.index(BusSearchDocument.READ_ALIAS)).value()) {
+            // Pre-alias deployments wrote to a concrete "buses" index, which must go in the same call
+            actions.add(Action.of(a -> a.removeIndex(r -> r.index(BusSearchDocument.READ_ALIAS))));
+        }
+        
+        elasticsearchClient.indices().updateAliases(u -> u.actions(actions));
+        return previous;
+    }
+    
+    private int mappingVersionOf(String index) {
+        if (!index.startsWith(INDEX_PREFIX)) {
+            return 0;
+        }
+        String rest = index.substring(INDEX_PREFIX.length());
+        int separator = rest.indexOf('_');
+        try {
+            return Integer.parseInt(separator >= 0 ? rest.substring(0, separator) : rest);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.redbus.service;
+
+import com.redbus.dto.ReconciliationReport;
+import com.redbus.dto.SyncJobStatus;
+import com.redbus.dto.SyncPartitionStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// One submitted sync run. Written by the job runner and the partition workers, read by status
+// requests, which only ever get a snapshot of it.
+@Getter
+class SyncJob {
+    
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    
+    private volatile String state = "QUEUED";
+    private volatile boolean cancelled;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    @Setter
+    private volatile String error;
+    @Setter
+    private volatile long totalSchedules;
+    @Setter
+    private volatile List<SyncPartitionStatus> partitions = List.of();
+    @Setter
+    private volatile ReconciliationReport reconciliation;
+    
+    SyncJob(String type) {
+        this.type = type;
+    }
+    
+    // False if the job was cancelled before the runner got to it
+    synchronized boolean start() {
+        if (cancelled) {
+            return false;
+        }
+        state = "RUNNING";
+        startedAt = LocalDateTime.now();
+        return true;
+    }
+    
+    synchronized void finish(String finalState) {
+        state = cancelled && "RUNNING".equals(state) ? "CANCELLED" : finalState;
+        finishedAt = LocalDateTime.now();
+    }
+    
+    // A queued job ends here; a running one stops at its next chunk boundary
+    synchronized void cancel() {
+        if (isFinished()) {
+            return;
+        }
+        cancelled = true;
+        if ("QUEUED".equals(state)) {
+            state = "CANCELLED";
+            finishedAt = LocalDateTime.now();
+        }
+    }
+    
+    boolean isFinished() {
+        return finishedAt != null;
+    }
+    
+    SyncJobStatus snapshot() {
+        SyncJobStatus status = SyncJobStatus.builder()
+                .jobId(id)
+                .type(type)
+                .state(state)
+                .totalSchedules(totalSchedules)
+                .submittedAt(submittedAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .error(error)
+                .reconciliation(reconciliation)
+                .build();
+        // Copies, so the response neither changes under the caller nor races the workers
+        List<SyncPartitionStatus> current = partitions.stream()
+                .map(SyncPartitionStatus::copy)
+                .collect(Collectors.toList());
+        for (SyncPartitionStatus partition : current) {
+            status.setProcessedSchedules(status.getProcessedSchedules() + partition.getSchedules());
+            status.setDocuments(status.getDocuments() + partition.getDocuments());
+            status.setUpdated(status.getUpdated() + partition.getIndexed());
+            status.setUnchanged(status.getUnchanged() + partition.getUnchanged());
+            status.setDeleted(status.getDeleted() + partition.getDeleted());
+            status.setFailedSchedules(status.getFailedSchedules() + partition.getFailedScheduleIds().size());
+            if ("FAILED".equals(partition.getState())) {
+                status.setFailedPartitions(status.getFailedPartitions() + 1);
+            }
+        }
+        if (!current.isEmpty()) {
+            status.setPartitions(current);
+        }
+        
+        long processed = status.getProcessedSchedules();
+        if (totalSchedules > 0) {
+            status.setPercentComplete(Math.min(100.0, processed * 100.0 / totalSchedules));
+        }
+        if ("RUNNING".equals(state) && startedAt != null && processed > 0 && processed < totalSchedules) {
+            long elapsed = Duration.between(startedAt, LocalDateTime.now()).toMillis();
+            status.setEtaSeconds(elapsed * (totalSchedules - processed) / processed / 1000);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,196 @@
+package com.redbus.service;
+
+import com.redbus.dto.ReconciliationReport;
+import com.redbus.dto.SyncJobStatus;
+import com.redbus.dto.SyncPartitionStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs admin-requested syncs as background jobs so no HTTP request thread or pooled
+// connection is held for the length of a resync. Jobs run one after another on a dedicated
+// thread; a full sync fans out further onto the partition pool. Only one full sync may be
+// queued or running at a time, and likewise one reconciliation. Finished jobs are kept for a
+// while so they can still be polled.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncJobService {
+    
+    private static final int RETAINED_JOBS = 20;
+    
+    private final PartitionedSyncService partitionedSyncService;
+    private final ScheduledSyncService scheduledSyncService;
+    private final ReconciliationService reconciliationService;
+    
+    private final Map<String, SyncJob> jobs = new LinkedHashMap<>(); // guarded by this, oldest first
+    private SyncJob activeFullSync; // guarded by this
+    private SyncJob activeReconcile; // guarded by this
+    private volatile ReconciliationReport lastReconciliation;
+    private ExecutorService executor;
+    
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sync-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            jobs.values().forEach(SyncJob::cancel);
+        }
+        executor.shutdownNow();
+    }
+    
+    public synchronized SyncJobStatus submitFullSync() {
+        if (activeFullSync != null && !activeFullSync.isFinished()) {
+            throw new IllegalStateException("A full sync is already running");
+        }
+        SyncJob job = register("FULL");
+        activeFullSync = job;
+        executor.submit(() -> runFullSync(job));
+        log.info("Queued full sync job {}", job.getId());
+        return job.snapshot();
+    }
+    
+    public synchronized SyncJobStatus submitIncrementalSync() {
+        SyncJob job = register("INCREMENTAL");
+        executor.submit(() -> runIncrementalSync(job));
+        return job.snapshot();
+    }
+    
+    // Drills into every differing id range and resyncs what it finds; the report is on the job
+    public synchronized SyncJobStatus submitReconcile() {
+        if (activeReconcile != null && !activeReconcile.isFinished()) {
+            throw new IllegalStateException("A reconciliation is already running");
+        }
+        SyncJob job = register("RECONCILE");
+        activeReconcile = job;
+        executor.submit(() -> runReconcile(job));
+        log.info("Queued reconcile job {}", job.getId());
+        return job.snapshot();
+    }
+    
+    public synchronized Optional<SyncJobStatus> getActiveReconcile() {
+        return Optional.ofNullable(activeReconcile)
+                .filter(job -> !job.isFinished())
+                .map(SyncJob::snapshot);
+    }
+    
+    // Report of the most recent reconcile job that finished, if any has since startup
+    public Optional<ReconciliationReport> getLastReconciliation() {
+        return Optional.ofNullable(lastReconciliation);
+    }
+    
+    public synchronized Optional<SyncJobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(SyncJob::snapshot);
+    }
+    
+    // Newest first
+    public synchronized List<SyncJobStatus> getJobs() {
+        List<SyncJobStatus> statuses = new ArrayList<>(jobs.size());
+        jobs.values().forEach(job -> statuses.add(job.snapshot()));
+        Collections.reverse(statuses);
+        return statuses;
+    }
+    
+    public synchronized Optional<SyncJobStatus> getActiveFullSync() {
+        return Optional.ofNullable(activeFullSync)
+                .filter(job -> !job.isFinished())
+                .map(SyncJob::snapshot);
+    }
+    
+    public synchronized Optional<SyncJobStatus> cancel(String jobId) {
+        SyncJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        job.cancel();
+        log.info("Cancellation requested for sync job {}", jobId);
+        return Optional.of(job.snapshot());
+    }
+    
+    private SyncJob register(String type) {
+        SyncJob job = new SyncJob(type);
+        jobs.put(job.getId(), job);
+        // Drop the oldest finished jobs; queued and running ones are always kept
+        Iterator<SyncJob> oldest = jobs.values().iterator();
+        while (jobs.size() > RETAINED_JOBS && oldest.hasNext()) {
+            if (oldest.next().isFinished()) {
+                oldest.remove();
+            }
+        }
+        return job;
+    }
+    
+    private void runFullSync(SyncJob job) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            List<SyncPartitionStatus> partitions = partitionedSyncService.syncAll(job);
+            boolean failed = partitions.stream().anyMatch(partition -> "FAILED".equals(partition.getState()));
+            job.finish(failed ? "FAILED" : "COMPLETED");
+            SyncJobStatus status = job.snapshot();
+            log.info("Full sync job {} {}. Updated: {}, Unchanged: {}, Deleted: {}, Failed schedules: {}, Total: {}",
+                    job.getId(), status.getState(), status.getUpdated(), status.getUnchanged(), status.getDeleted(),
+                    status.getFailedSchedules(), status.getProcessedSchedules());
+        } catch (Exception e) {
+            log.error("Full sync job {} failed", job.getId(), e);
+            job.setError(e.getMessage());
+            job.finish("FAILED");
+        }
+    }
+    
+    private void runIncrementalSync(SyncJob job) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            if (scheduledSyncService.syncToElasticsearch()) {
+                job.finish("COMPLETED");
+            } else {
+                job.setError("Another node holds the sync lease or a sync is already running");
+                job.finish("SKIPPED");
+            }
+        } catch (Exception e) {
+            log.error("Incremental sync job {} failed", job.getId(), e);
+            job.setError(e.getMessage());
+            job.finish("FAILED");
+        }
+    }
+    
+    private void runReconcile(SyncJob job) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            ReconciliationReport report = reconciliationService.reconcile();
+            job.setReconciliation(report);
+            lastReconciliation = report;
+            job.finish("COMPLETED");
+            log.info("Reconcile job {} finished. In sync: {}, Repaired: {}",
+                    job.getId(), report.isInSync(), report.getRepairedSchedules());
+        } catch (Exception e) {
+            log.error("Reconcile job {} failed", job.getId(), e);
+            job.setError(e.getMessage());
+            job.finish("FAILED");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.redbus.service;
+
+import com.redbus.repository.jpa.SyncLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Decides which node runs the scheduled search sync. Every node tries to take or extend a
+// lease row in Postgres on a short heartbeat; only the holder syncs. If the holder dies its
+// lease runs out within the ttl and the next heartbeat elsewhere takes over with a higher
+// fencing token, which guards the checkpoint write against the old holder waking up late.
+// The heartbeat has a thread of its own: on the shared scheduler a long sync pass or
+// reload would hold it back until the lease lapsed under a holder still writing.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncLeaseService {
+    
+    public static final String SYNC_LEASE = "search-sync";
+    
+    private final SyncLeaseRepository syncLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.search.lease.ttl-ms:15000}")
+    private long ttlMillis;
+    
+    @Value("${app.search.lease.renew-ms:5000}")
+    private long renewMillis;
+    
+    // Unique per process, so a restarted node counts as a new holder and gets a new token
+    private final String holder = hostName() + ":" + UUID.randomUUID();
+    
+    private volatile long token; // 0 while not holding the lease
+    private volatile long validUntilNanos;
+    private ScheduledExecutorService heartbeat;
+    
+    @PostConstruct
+    public void init() {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sync-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::renew, 0, renewMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    public void renew() {
+        // Measured from before the round trip, so the local view expires no later than the row
+        long started = System.nanoTime();
+        try {
+            Long acquired = transactionTemplate.execute(status ->
+                    syncLeaseRepository.acquire(SYNC_LEASE, holder, ttlMillis) == 1
+                            ? syncLeaseRepository.findFencingToken(SYNC_LEASE, holder).orElse(null)
+                            : null);
+            if (acquired == null) {
+                lose();
+                return;
+            }
+            if (token != acquired) {
+                log.info("Acquired search sync lease as {} with fencing token {}", holder, acquired);
+            }
+            validUntilNanos = started + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+            token = acquired;
+        } catch (Exception e) {
+            log.warn("Failed to renew search sync lease: {}", e.getMessage());
+            lose();
+        }
+    }
+    
+    public boolean isLeader() {
+        return currentToken().isPresent();
+    }
+    
+    // Fencing token to pass with writes made under the lease, if it is still held
+    public OptionalLong currentToken() {
+        long current = token;
+        if (current == 0 || System.nanoTime() - validUntilNanos >= 0) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(current);
+    }
+    
+    @PreDestroy
+    public void release() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        if (token == 0) {
+            return;
+        }
+        token = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> syncLeaseRepository.release(SYNC_LEASE, holder));
+            log.info("Released search sync lease");
+        } catch (Exception e) {
+            log.debug("Failed to release search sync lease: {}", e.getMessage());
+        }
+    }
+    
+    private void lose() {
+        if (token != 0) {
+            log.warn("Lost search sync lease");
+        }
+        token = 0;
+    }
+    
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.redbus.service;
+
+import com.redbus.dto.BusTrackingRequest;
+import com.redbus.dto.BusTrackingResponse;
+import com.redbus.event.BusChangedEvent;
+import com.redbus.repository.jpa.BusRepository;
+import com.redbus.util.BoundedQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// GPS pings go through a bounded in-memory queue instead of one transaction each. The request
+// thread only checks the bus id against a cached id set and enqueues; a single writer thread
+// drains the queue into JDBC batch inserts, which the driver rewrites into multi-row INSERTs.
+// A full queue is answered with 429 so devices back off rather than the pool running dry.
+// A batch the database rejects outright is split down to the offending pings, which are dropped.
+// Pings still queued when the node dies are lost; the next ping from the bus replaces them.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingIngestionService {
+    
+    private static final String INSERT_SQL = "INSERT INTO bus_tracking " +
+            "(bus_id, latitude, longitude, speed_kmh, direction_degrees, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final BusRepository busRepository;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.bus.tracking.ingest.capacity:50000}")
+    private int capacity;
+    
+    @Value("${app.bus.tracking.ingest.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${app.bus.tracking.ingest.flush-ms:100}")
+    private long flushMillis;
+    
+    @Value("${app.bus.tracking.ingest.retry-ms:1000}")
+    private long retryMillis;
+    
+    private record Ping(long busId, BigDecimal latitude, BigDecimal longitude, BigDecimal speedKmh,
+                        BigDecimal directionDegrees, LocalDateTime timestamp, long receivedNanos) {
+    }
+    
+    private BoundedQueue<Ping> queue;
+    private volatile Set<Long> knownBusIds = ConcurrentHashMap.newKeySet();
+    private Thread writer;
+    private volatile boolean running;
+    
+    private Counter unknownBus;
+    private Counter written;
+    private Counter failed;
+    private Timer batchWrite;
+    private Timer latency;
+    
+    @PostConstruct
+    public void init() {
+        queue = new BoundedQueue<>(capacity);
+        FunctionCounter.builder("tracking.ingest.pings", queue, BoundedQueue::accepted)
+                .tag("outcome", "accepted")
+                .description("Pings queued for writing")
+                .register(meterRegistry);
+        FunctionCounter.builder("tracking.ingest.pings", queue, BoundedQueue::rejected)
+                .tag("outcome", "rejected")
+                .description("Pings refused with 429 because the queue was full")
+                .register(meterRegistry);
+        unknownBus = Counter.builder("tracking.ingest.pings")
+                .tag("outcome", "unknown_bus")
+                .description("Pings for bus ids that do not exist")
+                .register(meterRegistry);
+        Gauge.builder("tracking.ingest.queue.size", queue, BoundedQueue::size)
+                .description("Pings waiting for the writer")
+                .register(meterRegistry);
+        written = Counter.builder("tracking.ingest.written")
+                .description("Pings committed to bus_tracking")
+                .register(meterRegistry);
+        failed = Counter.builder("tracking.ingest.failed")
+                .description("Pings dropped because they could not be written")
+                .register(meterRegistry);
+        batchWrite = Timer.builder("tracking.ingest.batch.write")
+                .description("Time to insert and commit one batch")
+                .register(meterRegistry);
+        latency = Timer.builder("tracking.ingest.latency")
+                .description("From accepting a ping to its batch committing")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        
+        refreshBusIds();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "tracking-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Whatever the writer left behind goes out on this thread
+        List<Ping> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+    
+    public BusTrackingResponse accept(BusTrackingRequest request) {
+        if (!knownBusIds.contains(request.getBusId())) {
+            unknownBus.increment();
+            throw new IllegalArgumentException("Bus not found with id: " + request.getBusId());
+        }
+        LocalDateTime timestamp = LocalDateTime.now();
+        Ping ping = new Ping(request.getBusId(), request.getLatitude(), request.getLongitude(),
+                request.getSpeedKmh(), request.getDirectionDegrees(), timestamp, System.nanoTime());
+        if (!queue.offer(ping)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Tracking ingestion is saturated, please retry");
+        }
+        return BusTrackingResponse.builder()
+                .busId(ping.busId())
+                .latitude(ping.latitude())
+                .longitude(ping.longitude())
+                .speedKmh(ping.speedKmh())
+                .directionDegrees(ping.directionDegrees())
+                .timestamp(timestamp)
+                .build();
+    }
+    
+    // Catches buses added on other nodes; local creates arrive through the event below
+    @Scheduled(fixedDelayString = "${app.bus.tracking.ingest.bus-refresh-ms:60000}")
+    public void refreshBusIds() {
+        try {
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            ids.addAll(busRepository.findAllIds());
+            knownBusIds = ids;
+        } catch (Exception e) {
+            log.warn("Failed to refresh tracked bus ids: {}", e.getMessage());
+        }
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBusChanged(BusChangedEvent event) {
+        knownBusIds.add(event.busId());
+    }
+    
+    private void run() {
+        List<Ping> batch = new ArrayList<>(batchSize);
+        while (running) {
+            int drained = queue.drainTo(batch, batchSize);
+            if (drained > 0) {
+                write(batch);
+                batch.clear();
+            }
+            // A full batch means more is waiting; otherwise let the next one fill up a little
+            if (drained < batchSize) {
+                pause(flushMillis);
+            }
+        }
+    }
+    
+    private void write(List<Ping> batch) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                insert(batch);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // A rejected row (unknown bus, out-of-range value) fails the batch the same way
+                // every time, so after the retry the batch is halved until only it is left
+                log.warn("Failed to write {} tracking pings (attempt {}): {}", batch.size(), attempt + 1, e.getMessage());
+                if (attempt == 1 && batch.size() > 1) {
+                    int half = batch.size() / 2;
+                    split(batch.subList(0, half));
+                    split(batch.subList(half, batch.size()));
+                    return;
+                }
+                pause(retryMillis);
+            } catch (Exception e) {
+                log.warn("Failed to write {} tracking pings (attempt {}): {}", batch.size(), attempt + 1, e.getMessage());
+                pause(retryMillis);
+            }
+        }
+        failed.increment(batch.size());
+        log.error("Dropped {} tracking pings after repeated write failures", batch.size());
+    }
+    
+    // One attempt per part, no pause: the retry already ruled out a passing fault. Anything
+    // other than a rejected row (the database going away mid-split) drops the part as it is.
+    private void split(List<Ping> part) {
+        try {
+            insert(part);
+        } catch (DataIntegrityViolationException e) {
+            if (part.size() == 1) {
+                failed.increment();
+                log.error("Dropped tracking ping for bus {}: {}", part.get(0).busId(), e.getMessage());
+                return;
+            }
+            int half = part.size() / 2;
+            split(part.subList(0, half));
+            split(part.subList(half, part.size()));
+        } catch (Exception e) {
+            failed.increment(part.size());
+            log.error("Dropped {} tracking pings while isolating a rejected row: {}", part.size(), e.getMessage());
+        }
+    }
+    
+    private void insert(List<Ping> pings) {
+        batchWrite.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, pings, pings.size(), (statement, ping) -> {
+            statement.setLong(1, ping.busId());
+            statement.setBigDecimal(2, ping.latitude());
+            statement.setBigDecimal(3, ping.longitude());
+            statement.setBigDecimal(4, ping.speedKmh());
+            statement.setBigDecimal(5, ping.directionDegrees());
+            statement.setTimestamp(6, Timestamp.valueOf(ping.timestamp()));
+        }));
+        long now = System.nanoTime();
+        pings.forEach(ping -> latency.record(now - ping.receivedNanos(), TimeUnit.NANOSECONDS));
+        written.increment(pings.size());
+    }
+    
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
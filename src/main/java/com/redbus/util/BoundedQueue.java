@@ -0,0 +1,66 @@
+package com.redbus.util;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free multi-producer queue with a hard capacity, for handing work from request threads
+// to a single background consumer. Producers never block: once the queue is full, offer
+// fails and the caller is expected to push back on its own client instead of buffering more.
+public final class BoundedQueue<T> {
+
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public BoundedQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public boolean offer(T item) {
+        // Reserve the slot first so concurrent producers cannot overshoot the capacity together
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        queue.offer(item);
+        accepted.increment();
+        return true;
+    }
+
+    // Moves up to max items into the target, oldest first; returns how many were moved
+    public int drainTo(Collection<? super T> target, int max) {
+        int drained = 0;
+        T item;
+        while (drained < max && (item = queue.poll()) != null) {
+            target.add(item);
+            drained++;
+        }
+        size.addAndGet(-drained);
+        return drained;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+}
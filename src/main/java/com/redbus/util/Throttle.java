@@ -0,0 +1,49 @@
+package com.redbus.util;
+
+import java.util.function.LongSupplier;
+
+// Token bucket limiting how fast background work may proceed. Permits refill continuously at
+// the configured rate up to one second's worth, so a pause is not followed by an unbounded
+// burst. A caller asking for more than is available reserves the shortfall and sleeps it
+// off; later callers queue behind that reservation. A rate of zero or less means unlimited.
+public final class Throttle {
+
+    private final double permitsPerNano;
+    private final double maxPermits;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private double available;
+    private long refilledAt;
+
+    public Throttle(double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    Throttle(double permitsPerSecond, LongSupplier clock) {
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.maxPermits = Math.max(permitsPerSecond, 1);
+        this.clock = clock;
+        this.available = maxPermits;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    public void acquire(int permits) throws InterruptedException {
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    // Takes the permits now and returns how long the caller has to wait before using them
+    synchronized long reserve(int permits) {
+        if (permitsPerNano <= 0) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        available = Math.min(maxPermits, available + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        available -= permits;
+        return available >= 0 ? 0 : (long) Math.ceil(-available / permitsPerNano);
+    }
+}
@@ -0,0 +1,16 @@
+-- Boarding points are copied into every trip-date document of their route, so an edit is
+-- announced as a change to the route. A point moved between routes announces both.
+CREATE OR REPLACE FUNCTION notify_boarding_point_search_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP <> 'INSERT' THEN
+        PERFORM pg_notify('search_changes', 'routes:' || OLD.route_id);
+    END IF;
+    IF TG_OP <> 'DELETE' THEN
+        PERFORM pg_notify('search_changes', 'routes:' || NEW.route_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER notify_boarding_points_search_change AFTER INSERT OR UPDATE OR DELETE ON boarding_points FOR EACH ROW EXECUTE FUNCTION notify_boarding_point_search_change();
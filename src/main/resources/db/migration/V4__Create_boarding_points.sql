@@ -0,0 +1,17 @@
+-- Boarding and drop points along a route, with coordinates for "buses near me" search
+CREATE TABLE boarding_points (
+    id BIGSERIAL PRIMARY KEY,
+    route_id BIGINT NOT NULL REFERENCES routes(id) ON DELETE CASCADE,
+    name VARCHAR(150) NOT NULL,
+    point_type VARCHAR(20) NOT NULL CHECK (point_type IN ('BOARDING', 'DROPPING')),
+    address VARCHAR(255),
+    latitude DECIMAL(10, 8) NOT NULL,
+    longitude DECIMAL(11, 8) NOT NULL,
+    is_active BOOLEAN DEFAULT true,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_boarding_points_route ON boarding_points(route_id);
+
+CREATE TRIGGER update_boarding_points_updated_at BEFORE UPDATE ON boarding_points FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
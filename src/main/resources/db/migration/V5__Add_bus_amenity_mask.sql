@@ -0,0 +1,23 @@
+-- Amenities as a bitmask for exact all/any filtering; bit positions follow com.redbus.search.Amenity
+ALTER TABLE buses ADD COLUMN amenity_mask BIGINT NOT NULL DEFAULT 0;
+
+-- Backfill from the free-text array, matching names the way Amenity.parse does
+UPDATE buses b SET amenity_mask = COALESCE((
+    SELECT bit_or(CASE regexp_replace(lower(a), '[^a-z0-9]', '', 'g')
+        WHEN 'wifi' THEN 1 WHEN 'wirelessinternet' THEN 1
+        WHEN 'chargingpoint' THEN 2 WHEN 'charging' THEN 2 WHEN 'mobilecharging' THEN 2 WHEN 'usbcharging' THEN 2
+        WHEN 'blanket' THEN 4
+        WHEN 'pillow' THEN 8
+        WHEN 'waterbottle' THEN 16 WHEN 'water' THEN 16
+        WHEN 'snacks' THEN 32
+        WHEN 'readinglight' THEN 64
+        WHEN 'entertainment' THEN 128 WHEN 'tv' THEN 128 WHEN 'movies' THEN 128
+        WHEN 'toilet' THEN 256 WHEN 'washroom' THEN 256
+        WHEN 'cctv' THEN 512
+        WHEN 'gpstracking' THEN 1024 WHEN 'gps' THEN 1024 WHEN 'livetracking' THEN 1024
+        WHEN 'emergencyexit' THEN 2048
+        WHEN 'recliningseats' THEN 4096 WHEN 'recliner' THEN 4096
+        WHEN 'firstaid' THEN 8192 WHEN 'firstaidkit' THEN 8192
+        ELSE 0
+    END::BIGINT)
+    FROM unnest(b.amenities) AS a), 0);
@@ -0,0 +1,4 @@
+-- Indexes for the Postgres search path used while Elasticsearch is unavailable
+CREATE INDEX idx_routes_corridor ON routes (LOWER(origin), LOWER(destination)) WHERE is_active = true;
+CREATE INDEX idx_schedules_route ON schedules (route_id) WHERE is_active = true;
+CREATE INDEX idx_bookings_schedule_date ON bookings (schedule_id, booking_date);
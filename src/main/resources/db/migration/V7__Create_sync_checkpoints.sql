@@ -0,0 +1,12 @@
+-- Durable watermark for the incremental Elasticsearch sync, so a restart resumes
+-- from the last committed checkpoint instead of rescanning every schedule
+CREATE TABLE sync_checkpoints (
+    name VARCHAR(50) PRIMARY KEY,
+    watermark TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TRIGGER update_sync_checkpoints_updated_at BEFORE UPDATE ON sync_checkpoints FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+-- Changed-since scans walk schedules in (updated_at, id) order
+CREATE INDEX idx_schedules_updated_at ON schedules (updated_at, id);
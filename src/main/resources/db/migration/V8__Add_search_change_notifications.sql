@@ -0,0 +1,15 @@
+-- Push search-relevant edits to the application as they commit. The payload is
+-- "<table>:<id>"; NOTIFY is transactional, so rolled-back edits never announce themselves
+-- and duplicates within one transaction are folded by Postgres.
+CREATE OR REPLACE FUNCTION notify_search_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('search_changes', TG_TABLE_NAME || ':' || COALESCE(NEW.id, OLD.id));
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER notify_schedules_search_change AFTER INSERT OR UPDATE OR DELETE ON schedules FOR EACH ROW EXECUTE FUNCTION notify_search_change();
+CREATE TRIGGER notify_buses_search_change AFTER INSERT OR UPDATE OR DELETE ON buses FOR EACH ROW EXECUTE FUNCTION notify_search_change();
+CREATE TRIGGER notify_routes_search_change AFTER INSERT OR UPDATE OR DELETE ON routes FOR EACH ROW EXECUTE FUNCTION notify_search_change();
+CREATE TRIGGER notify_bus_operators_search_change AFTER INSERT OR UPDATE OR DELETE ON bus_operators FOR EACH ROW EXECUTE FUNCTION notify_search_change();
@@ -0,0 +1,13 @@
+-- Cluster-wide lease for the scheduled search sync. Whoever holds an unexpired row is the only
+-- node that syncs; every change of holder bumps fencing_token, and writes made on behalf of the
+-- lease check the token so a node that lost it mid-run cannot commit stale progress.
+-- Expiry is compared against the database clock only, so node clock skew does not matter.
+CREATE TABLE sync_leases (
+    name VARCHAR(50) PRIMARY KEY,
+    holder VARCHAR(255) NOT NULL,
+    fencing_token BIGINT NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TRIGGER update_sync_leases_updated_at BEFORE UPDATE ON sync_leases FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
@@ -26,6 +26,10 @@ function setupEventListeners() {
     // Search form
     document.getElementById('searchForm').addEventListener('submit', handleSearch);
     
+    // City typeahead
+    setupCitySuggestions('origin', 'originSuggestions');
+    setupCitySuggestions('destination', 'destinationSuggestions');
+    
     // Login form
     document.getElementById('loginForm').addEventListener('submit', handleLogin);
     
@@ -112,6 +116,25 @@ async function apiCall(endpoint, options = {}) {
     return response.json();
 }
 
+// City typeahead
+function setupCitySuggestions(inputId, listId) {
+    const input = document.getElementById(inputId);
+    const list = document.getElementById(listId);
+    let timer = null;
+    
+    input.addEventListener('input', () => {
+        clearTimeout(timer);
+        timer = setTimeout(async () => {
+            try {
+                const suggestions = await apiCall(`/public/cities/suggest?q=${encodeURIComponent(input.value)}&limit=8`);
+                list.innerHTML = suggestions.map(city => `<option value="${city.name}">`).join('');
+            } catch (error) {
+                list.innerHTML = '';
+            }
+        }, 150);
+    });
+}
+
 // Search functions
 async function handleSearch(e) {
     e.preventDefault();
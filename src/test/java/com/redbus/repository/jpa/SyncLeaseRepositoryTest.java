@@ -0,0 +1,106 @@
+package com.redbus.repository.jpa;
+
+import com.redbus.entity.SyncCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The lease and the fenced checkpoint write are plain SQL against Postgres clock functions,
+// so they run against a real Postgres with the Flyway schema. Skipped where Docker is missing.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class SyncLeaseRepositoryTest {
+
+    private static final String LEASE = "search-sync";
+    private static final LocalDateTime WATERMARK = LocalDateTime.of(2026, 10, 18, 9, 0);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private SyncLeaseRepository syncLeaseRepository;
+
+    @Autowired
+    private SyncCheckpointRepository syncCheckpointRepository;
+
+    @Test
+    void acquire_KeepsTheTokenWhileTheSameHolderRenews() {
+        // When
+        int first = syncLeaseRepository.acquire(LEASE, "node-a", 60000);
+        int renewed = syncLeaseRepository.acquire(LEASE, "node-a", 60000);
+
+        // Then
+        assertEquals(1, first);
+        assertEquals(1, renewed);
+        assertEquals(Optional.of(1L), syncLeaseRepository.findFencingToken(LEASE, "node-a"));
+    }
+
+    @Test
+    void acquire_OtherHolderWaitsForExpiryAndGetsANewToken() {
+        // Given
+        syncLeaseRepository.acquire(LEASE, "node-a", 60000);
+
+        // When
+        int whileHeld = syncLeaseRepository.acquire(LEASE, "node-b", 60000);
+        syncLeaseRepository.release(LEASE, "node-a");
+        int afterRelease = syncLeaseRepository.acquire(LEASE, "node-b", 60000);
+
+        // Then
+        assertEquals(0, whileHeld);
+        assertEquals(1, afterRelease);
+        assertEquals(Optional.of(2L), syncLeaseRepository.findFencingToken(LEASE, "node-b"));
+        assertTrue(syncLeaseRepository.findFencingToken(LEASE, "node-a").isEmpty());
+    }
+
+    @Test
+    void advance_RejectsAStaleFencingToken() {
+        // Given
+        syncLeaseRepository.acquire(LEASE, "node-a", 60000);
+        syncLeaseRepository.release(LEASE, "node-a");
+        syncLeaseRepository.acquire(LEASE, "node-b", 60000);
+
+        // When
+        int stale = syncCheckpointRepository.advance("schedules", WATERMARK, LEASE, 1L);
+        int current = syncCheckpointRepository.advance("schedules", WATERMARK, LEASE, 2L);
+
+        // Then
+        assertEquals(0, stale);
+        assertEquals(1, current);
+        assertEquals(WATERMARK, syncCheckpointRepository.findById("schedules").map(SyncCheckpoint::getWatermark).orElseThrow());
+    }
+
+    @Test
+    void advance_RejectsALeaseThatExpiredEarlierInTheSameTransaction() throws InterruptedException {
+        // Given
+        syncLeaseRepository.acquire(LEASE, "node-a", 50);
+
+        // When
+        Thread.sleep(100);
+        int advanced = syncCheckpointRepository.advance("schedules", WATERMARK, LEASE, 1L);
+
+        // Then
+        assertEquals(0, advanced);
+        assertTrue(syncCheckpointRepository.findById("schedules").isEmpty());
+    }
+}
@@ -0,0 +1,62 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmenityTest {
+
+    @Test
+    void parse_AcceptsLabelsAliasesAndLooseSpelling() {
+        // When & Then
+        assertEquals(Amenity.WIFI, Amenity.parse("Wi-Fi"));
+        assertEquals(Amenity.WIFI, Amenity.parse("WIFI"));
+        assertEquals(Amenity.CHARGING_POINT, Amenity.parse("charging point"));
+        assertEquals(Amenity.CHARGING_POINT, Amenity.parse("USB charging"));
+    }
+
+    @Test
+    void parse_RejectsUnknownAmenity() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> Amenity.parse("Jacuzzi"));
+        assertEquals("Unknown amenity: Jacuzzi", exception.getMessage());
+    }
+
+    @Test
+    void canonicalLabels_DeduplicatesInCatalogueOrder() {
+        // When
+        List<String> labels = Amenity.canonicalLabels(List.of("blanket", "wifi", "Wi-Fi", "Charging"));
+
+        // Then
+        assertEquals(List.of("WiFi", "Charging Point", "Blanket"), labels);
+    }
+
+    @Test
+    void storedLabels_KeepsNamesOutsideCatalogueAfterCanonicalOnes() {
+        // When
+        List<String> labels = Amenity.storedLabels(List.of("AC", "usb charging", " ac ", "WiFi", "Recliner Seats"));
+
+        // Then
+        assertEquals(List.of("WiFi", "Charging Point", "AC", "Recliner Seats"), labels);
+        assertEquals(Amenity.WIFI.mask() | Amenity.CHARGING_POINT.mask(),
+                Amenity.catalogueMaskOf(List.of("AC", "usb charging", "WiFi")));
+    }
+
+    @Test
+    void amenityFilter_MatchesAllOrAny() {
+        // Given
+        long wifiAndBlanket = Amenity.WIFI.mask() | Amenity.BLANKET.mask();
+        AmenityFilter all = AmenityFilter.of(List.of("WiFi", "Charging Point"), "all");
+        AmenityFilter any = AmenityFilter.of(List.of("WiFi", "Charging Point"), "any");
+
+        // When & Then
+        assertFalse(all.accepts(wifiAndBlanket));
+        assertTrue(all.accepts(wifiAndBlanket | Amenity.CHARGING_POINT.mask()));
+        assertTrue(any.accepts(wifiAndBlanket));
+        assertFalse(any.accepts(Amenity.BLANKET.mask()));
+        assertTrue(AmenityFilter.of(null, "any").accepts(0));
+    }
+}
@@ -0,0 +1,82 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeBatcherTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private ChangeBatcher<String> batcher;
+
+    @BeforeEach
+    void setUp() {
+        batcher = new ChangeBatcher<>(100, 500, 1000, clock::get);
+    }
+
+    @Test
+    void ready_AfterQuietPeriod() {
+        // Given
+        batcher.add("schedules:1");
+        clock.addAndGet(99 * MILLIS);
+
+        // When & Then
+        assertFalse(batcher.ready());
+        clock.addAndGet(MILLIS);
+        assertTrue(batcher.ready());
+    }
+
+    @Test
+    void ready_SteadyTrickleFlushesAtMaxDelay() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            batcher.add("schedules:" + i);
+            clock.addAndGet(90 * MILLIS);
+            assertFalse(batcher.ready());
+        }
+
+        // When
+        batcher.add("schedules:5");
+        clock.addAndGet(50 * MILLIS);
+
+        // Then
+        assertTrue(batcher.ready());
+    }
+
+    @Test
+    void drain_CollapsesRepeatedKeysInArrivalOrder() {
+        // Given
+        batcher.add("buses:7");
+        batcher.add("schedules:3");
+        batcher.add("buses:7");
+
+        // When
+        Set<String> batch = batcher.drain();
+
+        // Then
+        assertEquals(List.of("buses:7", "schedules:3"), List.copyOf(batch));
+        assertEquals(0, batcher.size());
+        assertFalse(batcher.ready());
+    }
+
+    @Test
+    void ready_WhenBatchIsFull() {
+        // Given
+        ChangeBatcher<Integer> small = new ChangeBatcher<>(100, 500, 3, clock::get);
+
+        // When
+        small.add(1);
+        small.add(2);
+        small.add(3);
+
+        // Then
+        assertTrue(small.ready());
+    }
+}
@@ -0,0 +1,116 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new CircuitBreaker(10, 4, 0.5, Duration.ofMillis(500), Duration.ofSeconds(30), 2, clock::get);
+    }
+
+    @Test
+    void execute_OpensAfterFailuresAndServesFallback() {
+        // Given
+        AtomicInteger backendCalls = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            breaker.execute(() -> {
+                backendCalls.incrementAndGet();
+                throw new IllegalStateException("index unavailable");
+            }, () -> "fallback");
+        }
+        String result = breaker.execute(() -> {
+            backendCalls.incrementAndGet();
+            return "primary";
+        }, () -> "fallback");
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals("fallback", result);
+        assertEquals(4, backendCalls.get());
+        assertEquals(5, breaker.fallbacks());
+    }
+
+    @Test
+    void execute_SlowCallsTripTheBreaker() {
+        // When
+        for (int i = 0; i < 4; i++) {
+            breaker.execute(() -> {
+                clock.addAndGet(Duration.ofMillis(800).toNanos());
+                return "primary";
+            }, () -> "fallback");
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(0, breaker.fallbacks());
+    }
+
+    @Test
+    void execute_StaysClosedBelowThreshold() {
+        // When
+        breaker.execute(() -> {
+            throw new IllegalStateException("blip");
+        }, () -> "fallback");
+        for (int i = 0; i < 5; i++) {
+            breaker.execute(() -> "primary", () -> "fallback");
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void execute_HalfOpenProbesCloseTheBreaker() {
+        // Given
+        tripBreaker();
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        // When
+        assertEquals("primary", breaker.execute(() -> "primary", () -> "fallback"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertEquals("primary", breaker.execute(() -> "primary", () -> "fallback"));
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void execute_FailedProbeReopensTheBreaker() {
+        // Given
+        tripBreaker();
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        // When
+        String result = breaker.execute(() -> {
+            throw new IllegalStateException("still down");
+        }, () -> "fallback");
+
+        // Then
+        assertEquals("fallback", result);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2, breaker.trips());
+        assertEquals("fallback", breaker.execute(() -> "primary", () -> "fallback"));
+    }
+
+    private void tripBreaker() {
+        for (int i = 0; i < 4; i++) {
+            breaker.execute(() -> {
+                throw new IllegalStateException("index unavailable");
+            }, () -> "fallback");
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+}
@@ -0,0 +1,78 @@
+package com.redbus.search;
+
+import com.redbus.dto.CitySuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityPrefixTrieTest {
+
+    private CityPrefixTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = CityPrefixTrie.build(Map.of(
+                "Mumbai", 40L,
+                "Mysore", 5L,
+                "Madurai", 12L,
+                "Pune", 30L,
+                "Manali", 0L));
+    }
+
+    @Test
+    void suggest_RanksByPopularity() {
+        // When
+        List<String> result = names(trie.suggest("m", 10));
+
+        // Then
+        assertEquals(List.of("Mumbai", "Madurai", "Mysore", "Manali"), result);
+    }
+
+    @Test
+    void suggest_IsCaseAndWhitespaceInsensitive() {
+        // When
+        List<String> result = names(trie.suggest("  MU ", 10));
+
+        // Then
+        assertEquals(List.of("Mumbai"), result);
+    }
+
+    @Test
+    void suggest_RespectsLimit() {
+        // When
+        List<String> result = names(trie.suggest("", 2));
+
+        // Then
+        assertEquals(List.of("Mumbai", "Pune"), result);
+    }
+
+    @Test
+    void suggest_UnknownPrefix_ReturnsEmpty() {
+        // When & Then
+        assertTrue(trie.suggest("xyz", 10).isEmpty());
+        assertTrue(CityPrefixTrie.empty().suggest("m", 10).isEmpty());
+    }
+
+    @Test
+    void build_MergesSpellingVariants() {
+        // Given
+        CityPrefixTrie variants = CityPrefixTrie.build(Map.of("Pune", 3L, " pune", 2L));
+
+        // When
+        List<CitySuggestion> result = variants.suggest("p", 10);
+
+        // Then
+        assertEquals(1, variants.size());
+        assertEquals("Pune", result.get(0).getName());
+        assertEquals(5L, result.get(0).getScheduleCount());
+    }
+
+    private List<String> names(List<CitySuggestion> suggestions) {
+        return suggestions.stream().map(CitySuggestion::getName).collect(Collectors.toList());
+    }
+}
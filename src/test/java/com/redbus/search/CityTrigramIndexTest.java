@@ -0,0 +1,66 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CityTrigramIndexTest {
+
+    private CityTrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = CityTrigramIndex.build(List.of("Mumbai", "Bangalore", "Pune", "Goa", "Chennai", "Hyderabad"));
+    }
+
+    @Test
+    void resolve_ExactMatchIgnoresCaseAndWhitespace() {
+        // When & Then
+        assertEquals(Optional.of("Pune"), index.resolve("pune "));
+        assertEquals(Optional.of("Bangalore"), index.resolve("  BANGALORE"));
+    }
+
+    @Test
+    void resolve_CorrectsMissingLetter() {
+        // When & Then
+        assertEquals(Optional.of("Bangalore"), index.resolve("Banglore"));
+        assertEquals(Optional.of("Hyderabad"), index.resolve("Hyderbad"));
+    }
+
+    @Test
+    void resolve_CorrectsTransposition() {
+        // When & Then
+        assertEquals(Optional.of("Mumbai"), index.resolve("Mumbia"));
+        assertEquals(Optional.of("Chennai"), index.resolve("Chenani"));
+    }
+
+    @Test
+    void resolve_RejectsDistantNames() {
+        // When & Then
+        assertEquals(Optional.empty(), index.resolve("Delhi"));
+        assertEquals(Optional.empty(), index.resolve(""));
+        assertEquals(Optional.empty(), CityTrigramIndex.empty().resolve("Mumbai"));
+    }
+
+    @Test
+    void resolve_RepeatedLookupUsesSameAnswer() {
+        // When
+        Optional<String> first = index.resolve("Mumbaii");
+        Optional<String> second = index.resolve("mumbaii");
+
+        // Then
+        assertEquals(Optional.of("Mumbai"), first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void editDistance_CountsTranspositionAsOneEdit() {
+        // When & Then
+        assertEquals(1, CityTrigramIndex.editDistance("mumbia", "mumbai", 2));
+        assertEquals(3, CityTrigramIndex.editDistance("abcdef", "uvwxyz", 2));
+    }
+}
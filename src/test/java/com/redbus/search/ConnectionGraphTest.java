@@ -0,0 +1,115 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionGraphTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 10, 19);
+    private static final int TUESDAY_ONLY = 1 << 1;
+
+    private ConnectionGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = ConnectionGraph.build(List.of(
+                trip(1, "Mumbai", "Pune", 8 * 60, 120, TripConnection.ALL_DAYS),
+                trip(2, "Pune", "Goa", 10 * 60 + 45, 60, TripConnection.ALL_DAYS),
+                trip(3, "Pune", "Goa", 10 * 60 + 10, 60, TripConnection.ALL_DAYS),
+                trip(4, "Mumbai", "Goa", 7 * 60, 360, TripConnection.ALL_DAYS),
+                trip(5, "Mumbai", "Nashik", 22 * 60, 600, TripConnection.ALL_DAYS),
+                trip(6, "Nashik", "Goa", 9 * 60, 60, TUESDAY_ONLY),
+                trip(7, "Goa", "Hubli", 13 * 60 + 20, 30, TripConnection.ALL_DAYS)));
+    }
+
+    @Test
+    void search_FindsDirectAndConnectingJourneys() {
+        // When
+        List<ConnectionGraph.Journey> journeys = graph.search("Mumbai", "Goa", MONDAY, 2, 30, 720);
+
+        // Then
+        assertEquals(List.of(List.of(1L, 2L), List.of(4L), List.of(5L, 6L)), scheduleIds(journeys));
+        assertEquals(10 * 60 + 45 + 60, journeys.get(0).arrivalMinute());
+        assertEquals(1, journeys.get(0).transfers());
+    }
+
+    @Test
+    void search_RespectsMinimumLayover() {
+        // When
+        List<ConnectionGraph.Journey> journeys = graph.search("Mumbai", "Goa", MONDAY, 1, 30, 720);
+
+        // Then
+        assertTrue(scheduleIds(journeys).stream().noneMatch(ids -> ids.contains(3L)));
+    }
+
+    @Test
+    void search_ChainsOvernightLegsOnTheRunningDay() {
+        // When
+        List<ConnectionGraph.Journey> monday = graph.search("Mumbai", "Goa", MONDAY, 1, 30, 720);
+        List<ConnectionGraph.Journey> tuesday = graph.search("Mumbai", "Goa", MONDAY.plusDays(1), 1, 30, 720);
+
+        // Then
+        assertTrue(scheduleIds(monday).contains(List.of(5L, 6L)));
+        assertFalse(scheduleIds(tuesday).contains(List.of(5L, 6L)));
+    }
+
+    @Test
+    void search_LimitsTransfers() {
+        // When
+        List<ConnectionGraph.Journey> twoTransfers = graph.search("Mumbai", "Hubli", MONDAY, 2, 30, 720);
+        List<ConnectionGraph.Journey> direct = graph.search("Mumbai", "Hubli", MONDAY, 0, 30, 720);
+
+        // Then
+        assertEquals(List.of(List.of(1L, 2L, 7L), List.of(5L, 6L, 7L)), scheduleIds(twoTransfers));
+        assertTrue(direct.isEmpty());
+    }
+
+    @Test
+    void search_RequiresAmenitiesOnEveryLeg() {
+        // Given
+        long wifi = Amenity.WIFI.mask();
+        ConnectionGraph amenityGraph = ConnectionGraph.build(List.of(
+                trip(1, "Mumbai", "Pune", 8 * 60, 120, TripConnection.ALL_DAYS, wifi),
+                trip(2, "Pune", "Goa", 10 * 60 + 45, 60, TripConnection.ALL_DAYS, 0L),
+                trip(3, "Pune", "Goa", 11 * 60, 60, TripConnection.ALL_DAYS, wifi | Amenity.BLANKET.mask())));
+        AmenityFilter wifiOnly = AmenityFilter.of(List.of("WiFi"), "all");
+
+        // When
+        List<ConnectionGraph.Journey> journeys = amenityGraph.search("Mumbai", "Goa", MONDAY, 1, 30, 720, wifiOnly);
+
+        // Then
+        assertEquals(List.of(List.of(1L, 3L)), scheduleIds(journeys));
+    }
+
+    @Test
+    void search_UnknownCity_ReturnsEmpty() {
+        // When & Then
+        assertTrue(graph.search("Mumbai", "Delhi", MONDAY, 2, 30, 720).isEmpty());
+        assertTrue(ConnectionGraph.empty().search("Mumbai", "Goa", MONDAY, 2, 30, 720).isEmpty());
+    }
+
+    private TripConnection trip(long id, String origin, String destination, int departure, int duration, int days) {
+        return trip(id, origin, destination, departure, duration, days, 0L);
+    }
+
+    private TripConnection trip(long id, String origin, String destination, int departure, int duration, int days,
+                                long amenities) {
+        return new TripConnection(id, origin, destination, departure, duration, days,
+                BigDecimal.valueOf(500), "BUS00" + id, "AC", "Test Operator", amenities);
+    }
+
+    private List<List<Long>> scheduleIds(List<ConnectionGraph.Journey> journeys) {
+        return journeys.stream()
+                .map(journey -> journey.legs().stream()
+                        .map(leg -> leg.trip().scheduleId())
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+}
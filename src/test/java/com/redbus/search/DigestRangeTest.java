@@ -0,0 +1,57 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DigestRangeTest {
+
+    @Test
+    void split_CoversRangeWithoutGapsOrOverlap() {
+        // When
+        List<DigestRange> children = DigestRange.split(1, 100, 16);
+
+        // Then
+        assertEquals(15, children.size());
+        assertEquals(1, children.get(0).fromId());
+        assertEquals(100, children.get(children.size() - 1).toId());
+        for (int i = 1; i < children.size(); i++) {
+            assertEquals(children.get(i - 1).toId() + 1, children.get(i).fromId());
+        }
+    }
+
+    @Test
+    void split_NarrowRangeBecomesSingleIds() {
+        // When
+        List<DigestRange> children = DigestRange.split(40, 45, 16);
+
+        // Then
+        assertEquals(6, children.size());
+        assertTrue(children.stream().allMatch(DigestRange::isSingleId));
+    }
+
+    @Test
+    void term_ChangesWithUpdatedAtAndTravelDate() {
+        // Given
+        long base = DigestRange.term(42, 1_760_000_000_000L, 20_380);
+
+        // When & Then
+        assertNotEquals(base, DigestRange.term(42, 1_760_000_000_001L, 20_380));
+        assertNotEquals(base, DigestRange.term(42, 1_760_000_000_000L, 20_381));
+        assertNotEquals(base, DigestRange.term(43, 1_760_000_000_000L, 20_380));
+        assertTrue(base >= 0 && base < 999_983);
+    }
+
+    @Test
+    void matches_ComparesCountAndDigest() {
+        // Given
+        DigestRange database = DigestRange.empty(1, 10).plus(3, 1234);
+
+        // When & Then
+        assertTrue(database.matches(DigestRange.empty(1, 10).plus(2, 1000).plus(1, 234)));
+        assertFalse(database.matches(DigestRange.empty(1, 10).plus(3, 1235)));
+        assertFalse(database.matches(DigestRange.empty(1, 10).plus(2, 1234)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningDaysTest {
+
+    private final LocalDate monday = LocalDate.of(2026, 10, 19);
+
+    @Test
+    void mask_NoDayListRunsEveryDay() {
+        // When & Then
+        assertEquals(RunningDays.ALL_DAYS, RunningDays.mask(null));
+        for (int day = 0; day < 7; day++) {
+            assertTrue(RunningDays.runsOn(null, monday.plusDays(day)));
+        }
+    }
+
+    @Test
+    void mask_EmptyDayListNeverRuns() {
+        // When & Then
+        assertEquals(0, RunningDays.mask(List.of()));
+        for (int day = 0; day < 7; day++) {
+            assertFalse(RunningDays.runsOn(List.of(), monday.plusDays(day)));
+        }
+    }
+
+    @Test
+    void runsOn_OnlyListedIsoDays() {
+        // Given
+        List<Integer> weekends = List.of(6, 7);
+
+        // When & Then
+        assertEquals(0b1100000, RunningDays.mask(weekends));
+        assertFalse(RunningDays.runsOn(weekends, monday));
+        assertTrue(RunningDays.runsOn(weekends, monday.plusDays(5)));
+        assertTrue(RunningDays.runsOn(weekends, monday.plusDays(6)));
+    }
+
+    @Test
+    void mask_IgnoresValuesOutsideTheWeek() {
+        // When & Then
+        assertEquals(0b0000001, RunningDays.mask(List.of(0, 1, 8)));
+        assertEquals(0, RunningDays.mask(List.of(0, 8)));
+    }
+}
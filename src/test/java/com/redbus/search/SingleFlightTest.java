@@ -0,0 +1,136 @@
+package com.redbus.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_ConcurrentCallersShareOneLoad() throws Exception {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(100, 5000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<Integer>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute("Mumbai-Pune", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return 42;
+        })));
+        while (singleFlight.leaders() == 0) {
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("Mumbai-Pune", () -> {
+                loads.incrementAndGet();
+                return -1;
+            })));
+        }
+        while (singleFlight.waiters() < 7) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Then
+        for (Future<Integer> result : results) {
+            assertEquals(42, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.leaders());
+        assertEquals(7, singleFlight.followers());
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_DoesNotCacheCompletedCalls() {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(100, 5000);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        singleFlight.execute("Mumbai-Pune", loads::incrementAndGet);
+        int second = singleFlight.execute("Mumbai-Pune", loads::incrementAndGet);
+
+        // Then
+        assertEquals(2, second);
+        assertEquals(2, singleFlight.leaders());
+    }
+
+    @Test
+    void execute_RejectsCallersBeyondWaiterBound() throws Exception {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(1, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("Mumbai-Pune", () -> {
+            await(release);
+            return 42;
+        }));
+        while (singleFlight.leaders() == 0) {
+            Thread.onSpinWait();
+        }
+        Future<Integer> follower = executor.submit(() -> singleFlight.execute("Mumbai-Pune", () -> -1));
+        while (singleFlight.waiters() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> singleFlight.execute("Mumbai-Pune", () -> -1));
+        assertEquals(1, singleFlight.rejected());
+        release.countDown();
+        assertEquals(42, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(42, follower.get(5, TimeUnit.SECONDS));
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_PropagatesLeaderFailureToFollowers() throws Exception {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>(100, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Integer> leader = executor.submit(() -> singleFlight.execute("Mumbai-Pune", () -> {
+            await(release);
+            throw new IllegalStateException("search backend down");
+        }));
+        while (singleFlight.leaders() == 0) {
+            Thread.onSpinWait();
+        }
+        Future<Integer> follower = executor.submit(() -> singleFlight.execute("Mumbai-Pune", () -> -1));
+        while (singleFlight.waiters() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        release.countDown();
+
+        // Then
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+        assertInstanceOf(IllegalStateException.class, followerFailure.getCause());
+        executor.shutdownNow();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
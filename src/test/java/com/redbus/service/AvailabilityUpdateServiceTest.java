@@ -0,0 +1,164 @@
+package com.redbus.service;
+
+import com.redbus.entity.Booking;
+import com.redbus.event.BookingChangedEvent;
+import com.redbus.repository.jpa.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityUpdateServiceTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @InjectMocks
+    private AvailabilityUpdateService availabilityUpdateService;
+
+    private final LocalDate travelDate = LocalDate.now().plusDays(3);
+
+    @BeforeEach
+    void setUp() {
+        // Long enough that the background flusher stays out of the way
+        ReflectionTestUtils.setField(availabilityUpdateService, "flushMillis", 60000L);
+        ReflectionTestUtils.setField(availabilityUpdateService, "maxBatch", 1000);
+        ReflectionTestUtils.setField(availabilityUpdateService, "horizonDays", 60);
+        ReflectionTestUtils.setField(availabilityUpdateService, "maxRetries", 2);
+        availabilityUpdateService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        availabilityUpdateService.shutdown();
+    }
+
+    @Test
+    void flush_BurstOnOneTripBecomesOneUpdate() {
+        // Given
+        List<Object[]> held = List.<Object[]>of(new Object[]{1L, travelDate, 500L});
+        when(bookingRepository.countHeldSeatsBySchedulesBetween(Set.of(1L), travelDate, travelDate,
+                Booking.BookingStatus.CANCELLED)).thenReturn(held);
+        for (int i = 0; i < 500; i++) {
+            availabilityUpdateService.onBookingChanged(new BookingChangedEvent(1L, travelDate));
+        }
+
+        // When
+        availabilityUpdateService.flush();
+
+        // Then
+        verify(bookingRepository, times(1)).countHeldSeatsBySchedulesBetween(any(), any(), any(), any());
+        verify(searchIndexService, times(1)).updateHeldSeats(Map.of("1_" + travelDate, 500L));
+    }
+
+    @Test
+    void flush_FreedSeatsWithoutBookingsCountAsZeroHeld() {
+        // Given
+        when(bookingRepository.countHeldSeatsBySchedulesBetween(any(), any(), any(), any())).thenReturn(List.of());
+        availabilityUpdateService.onBookingChanged(new BookingChangedEvent(2L, travelDate));
+
+        // When
+        availabilityUpdateService.flush();
+
+        // Then
+        verify(searchIndexService).updateHeldSeats(Map.of("2_" + travelDate, 0L));
+    }
+
+    @Test
+    void flush_KeepsChangesWhenIndexUpdateFails() {
+        // Given
+        when(bookingRepository.countHeldSeatsBySchedulesBetween(any(), any(), any(), any())).thenReturn(List.of());
+        when(searchIndexService.updateHeldSeats(anyMap()))
+                .thenThrow(new IllegalStateException("search backend down"))
+                .thenReturn(Set.of());
+        availabilityUpdateService.onBookingChanged(new BookingChangedEvent(2L, travelDate));
+
+        // When
+        availabilityUpdateService.flush();
+        availabilityUpdateService.flush();
+
+        // Then
+        verify(searchIndexService, times(2)).updateHeldSeats(Map.of("2_" + travelDate, 0L));
+    }
+
+    @Test
+    void flush_RetriesOnlyTheDocumentsThatFailed() {
+        // Given
+        when(bookingRepository.countHeldSeatsBySchedulesBetween(any(), any(), any(), any())).thenReturn(List.of());
+        when(searchIndexService.updateHeldSeats(anyMap()))
+                .thenReturn(Set.of("2_" + travelDate))
+                .thenReturn(Set.of());
+        availabilityUpdateService.onBookingChanged(new BookingChangedEvent(1L, travelDate));
+        availabilityUpdateService.onBookingChanged(new BookingChangedEvent(2L, travelDate));
+
+        // When
+        availabilityUpdateService.flush();
+        availabilityUpdateService.flush();
+
+        // Then
+        verify(searchIndexService).updateHeldSeats(Map.of("1_" + travelDate, 0L, "2_" + travelDate, 0L));
+        verify(searchIndexService).updateHeldSeats(Map.of("2_" + travelDate, 0L));
+    }
+
+    @Test
+    void flush_MissingDocumentIsNotRetried() {
+        // Given
+        when(bookingRepository.countHeldSeatsBySchedulesBetween(any(), any(), any(), any())).thenReturn(List.of());
+        // The schedule does not run that day, so the index skips it rather than reporting a failure
+        when(searchIndexService.updateHeldSeats(anyMap())).thenReturn(Set.of());
+        availabilityUpdateService.onBookingChanged(new BookingChangedEvent(3L, travelDate));
+
+        // When
+        availabilityUpdateService.flush();
+        availabilityUpdateService.flush();
+
+        // Then
+        verify(searchIndexService, times(1)).updateHeldSeats(anyMap());
+    }
+
+    @Test
+    void flush_DropsDocumentThatKeepsFailing() {
+        // Given
+        when(bookingRepository.countHeldSeatsBySchedulesBetween(any(), any(), any(), any())).thenReturn(List.of());
+        when(searchIndexService.updateHeldSeats(anyMap())).thenReturn(Set.of("2_" + travelDate));
+        availabilityUpdateService.onBookingChanged(new BookingChangedEvent(2L, travelDate));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            availabilityUpdateService.flush();
+        }
+
+        // Then
+        // The first attempt plus two retries, then it is left to the next full resync
+        verify(searchIndexService, times(3)).updateHeldSeats(Map.of("2_" + travelDate, 0L));
+    }
+
+    @Test
+    void flush_IgnoresDatesOutsideHorizon() {
+        // Given
+        availabilityUpdateService.onBookingChanged(new BookingChangedEvent(1L, LocalDate.now().minusDays(1)));
+
+        // When
+        availabilityUpdateService.flush();
+
+        // Then
+        verifyNoInteractions(bookingRepository, searchIndexService);
+    }
+}
@@ -0,0 +1,148 @@
+package com.redbus.service;
+
+import com.redbus.entity.BoardingPoint;
+import com.redbus.entity.Route;
+import com.redbus.event.RouteChangedEvent;
+import com.redbus.repository.jpa.BoardingPointRepository;
+import com.redbus.repository.jpa.RouteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BoardingPointServiceTest {
+
+    @Mock
+    private BoardingPointRepository boardingPointRepository;
+
+    @Mock
+    private RouteRepository routeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private BoardingPointService boardingPointService;
+
+    private Route testRoute;
+    private BoardingPoint testPoint;
+
+    @BeforeEach
+    void setUp() {
+        testRoute = Route.builder()
+                .id(1L)
+                .origin("Mumbai")
+                .destination("Pune")
+                .isActive(true)
+                .build();
+
+        testPoint = BoardingPoint.builder()
+                .id(1L)
+                .route(testRoute)
+                .name("Dadar East")
+                .pointType(BoardingPoint.PointType.BOARDING)
+                .latitude(new BigDecimal("19.01870000"))
+                .longitude(new BigDecimal("72.84780000"))
+                .build();
+    }
+
+    @Test
+    void getBoardingPointsByRoute_Success() {
+        // Given
+        when(boardingPointRepository.findByRouteIdAndIsActiveTrueOrderByPointTypeAscNameAsc(1L))
+                .thenReturn(Arrays.asList(testPoint));
+
+        // When
+        List<BoardingPoint> result = boardingPointService.getBoardingPointsByRoute(1L);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("Dadar East", result.get(0).getName());
+    }
+
+    @Test
+    void createBoardingPoint_Success() {
+        // Given
+        BoardingPoint newPoint = BoardingPoint.builder()
+                .name("Dadar East")
+                .pointType(BoardingPoint.PointType.BOARDING)
+                .latitude(new BigDecimal("19.01870000"))
+                .longitude(new BigDecimal("72.84780000"))
+                .build();
+        when(routeRepository.findById(1L)).thenReturn(Optional.of(testRoute));
+        when(boardingPointRepository.save(any(BoardingPoint.class))).thenReturn(testPoint);
+
+        // When
+        BoardingPoint result = boardingPointService.createBoardingPoint(1L, newPoint);
+
+        // Then
+        assertNotNull(result);
+        assertEquals(testRoute, newPoint.getRoute());
+        verify(boardingPointRepository).save(newPoint);
+        verify(eventPublisher).publishEvent(new RouteChangedEvent(1L));
+    }
+
+    @Test
+    void createBoardingPoint_RouteNotFound() {
+        // Given
+        when(routeRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            boardingPointService.createBoardingPoint(999L, testPoint);
+        });
+
+        assertEquals("Route not found with id: 999", exception.getMessage());
+        verify(boardingPointRepository, never()).save(any(BoardingPoint.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateBoardingPoint_Success() {
+        // Given
+        BoardingPoint changes = BoardingPoint.builder()
+                .name("Dadar West")
+                .pointType(BoardingPoint.PointType.BOARDING)
+                .latitude(new BigDecimal("19.01900000"))
+                .longitude(new BigDecimal("72.84200000"))
+                .build();
+        when(boardingPointRepository.findById(1L)).thenReturn(Optional.of(testPoint));
+        when(boardingPointRepository.save(any(BoardingPoint.class))).thenReturn(testPoint);
+
+        // When
+        BoardingPoint result = boardingPointService.updateBoardingPoint(1L, changes);
+
+        // Then
+        assertEquals("Dadar West", result.getName());
+        assertEquals(new BigDecimal("72.84200000"), result.getLongitude());
+        verify(eventPublisher).publishEvent(new RouteChangedEvent(1L));
+    }
+
+    @Test
+    void deleteBoardingPoint_Success() {
+        // Given
+        when(boardingPointRepository.findById(1L)).thenReturn(Optional.of(testPoint));
+        when(boardingPointRepository.save(any(BoardingPoint.class))).thenReturn(testPoint);
+
+        // When
+        boardingPointService.deleteBoardingPoint(1L);
+
+        // Then
+        assertFalse(testPoint.getIsActive());
+        verify(boardingPointRepository).save(testPoint);
+        verify(eventPublisher).publishEvent(new RouteChangedEvent(1L));
+    }
+}
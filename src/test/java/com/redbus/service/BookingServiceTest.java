@@ -1,6 +1,7 @@
 package com.redbus.service;
 
 import com.redbus.entity.*;
+import com.redbus.event.BookingChangedEvent;
 import com.redbus.repository.jpa.BookingRepository;
 import com.redbus.repository.jpa.ScheduleRepository;
 import com.redbus.repository.jpa.SeatBookingRepository;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -38,6 +40,9 @@ class BookingServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -117,6 +122,7 @@ class BookingServiceTest {
         assertEquals(1, result.getTotalSeats());
         verify(bookingRepository).save(any(Booking.class));
         verify(seatBookingRepository).save(any(SeatBooking.class));
+        verify(eventPublisher).publishEvent(new BookingChangedEvent(1L, request.getTravelDate()));
     }
 
     @Test
@@ -159,6 +165,7 @@ class BookingServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
             () -> bookingService.createBooking(request, 1L));
         assertEquals("Seat 1 is already booked", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -167,6 +174,8 @@ class BookingServiceTest {
         Booking testBooking = Booking.builder()
                 .id(1L)
                 .user(testUser)
+                .schedule(testSchedule)
+                .bookingDate(LocalDate.now().plusDays(1))
                 .status(Booking.BookingStatus.PENDING)
                 .build();
 
@@ -179,6 +188,7 @@ class BookingServiceTest {
         // Then
         assertEquals(Booking.BookingStatus.CANCELLED, testBooking.getStatus());
         verify(bookingRepository).save(testBooking);
+        verify(eventPublisher).publishEvent(new BookingChangedEvent(1L, testBooking.getBookingDate()));
     }
 
     @Test
@@ -1,6 +1,7 @@
 package com.redbus.service;
 
 import com.redbus.entity.BusOperator;
+import com.redbus.event.OperatorChangedEvent;
 import com.redbus.repository.jpa.BusOperatorRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -24,6 +26,9 @@ class BusOperatorServiceTest {
     @Mock
     private BusOperatorRepository operatorRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BusOperatorService operatorService;
 
@@ -132,6 +137,7 @@ class BusOperatorServiceTest {
         assertNotNull(result);
         verify(operatorRepository).findById(1L);
         verify(operatorRepository).save(testOperator);
+        verify(eventPublisher).publishEvent(new OperatorChangedEvent(1L));
     }
 
     @Test
@@ -144,6 +150,7 @@ class BusOperatorServiceTest {
                 () -> operatorService.updateOperator(999L, testOperator));
         verify(operatorRepository).findById(999L);
         verify(operatorRepository, never()).save(any(BusOperator.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -158,6 +165,7 @@ class BusOperatorServiceTest {
         assertFalse(testOperator.getIsActive());
         verify(operatorRepository).findById(1L);
         verify(operatorRepository).save(testOperator);
+        verify(eventPublisher).publishEvent(new OperatorChangedEvent(1L));
     }
 
     @Test
@@ -0,0 +1,344 @@
+package com.redbus.service;
+
+import co.elastic.clients.elasticsearch._types.aggregations.StatsAggregate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redbus.document.BusSearchDocument;
+import com.redbus.dto.BusSearchRequest;
+import com.redbus.dto.BusSearchResponse;
+import com.redbus.dto.BusSearchResults;
+import com.redbus.dto.FacetBucket;
+import com.redbus.dto.RoundTripSearchRequest;
+import com.redbus.dto.RoundTripSearchResults;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.repository.jpa.ScheduleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BusSearchServiceTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ElasticsearchService elasticsearchService;
+
+    @Mock
+    private DatabaseSearchService databaseSearchService;
+
+    @Mock
+    private CityIndexService cityIndexService;
+
+    private BusSearchService busSearchService;
+
+    private final LocalDate travelDate = LocalDate.of(2026, 10, 19);
+
+    @BeforeEach
+    void setUp() {
+        busSearchService = new BusSearchService(scheduleRepository, bookingRepository, elasticsearchService,
+                databaseSearchService, cityIndexService, new SimpleMeterRegistry(), new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(busSearchService, "maxWaiters", 100);
+        ReflectionTestUtils.setField(busSearchService, "waitTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(busSearchService, "breakerWindowSize", 20);
+        ReflectionTestUtils.setField(busSearchService, "breakerMinimumCalls", 10);
+        ReflectionTestUtils.setField(busSearchService, "breakerFailureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(busSearchService, "breakerSlowCallMillis", 1000L);
+        ReflectionTestUtils.setField(busSearchService, "breakerOpenMillis", 30000L);
+        ReflectionTestUtils.setField(busSearchService, "breakerHalfOpenProbes", 3);
+        busSearchService.init();
+        lenient().when(cityIndexService.resolveCity(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void searchBusesWithFacets_ReturnsHitsAndFacetsFromOneSearch() {
+        // Given
+        SearchHits<BusSearchDocument> searchHits = searchHits(document(1L, "Mumbai", "Pune", 450));
+        Map<String, List<FacetBucket>> facets = Map.of(ElasticsearchService.FACET_BUS_TYPE,
+                List.of(FacetBucket.builder().key("AC").count(1L).build()));
+        when(elasticsearchService.search(any(BusSearchRequest.class), eq(true))).thenReturn(searchHits);
+        when(elasticsearchService.extractFacets(searchHits)).thenReturn(facets);
+
+        // When
+        BusSearchResults result = busSearchService.searchBusesWithFacets(request("Mumbai", "Pune"));
+
+        // Then
+        assertEquals(1, result.getResults().size());
+        assertEquals(1L, result.getTotalHits());
+        assertEquals(facets, result.getFacets());
+        assertFalse(result.isDegraded());
+        verify(elasticsearchService, times(1)).search(any(BusSearchRequest.class), anyBoolean());
+    }
+
+    @Test
+    void search_WithoutFacetsSkipsFacetExtraction() {
+        // Given
+        when(elasticsearchService.search(any(BusSearchRequest.class), eq(false)))
+                .thenReturn(searchHits(document(1L, "Mumbai", "Pune", 450)));
+
+        // When
+        BusSearchResults result = busSearchService.search(request("Mumbai", "Pune"));
+
+        // Then
+        assertNull(result.getFacets());
+        verify(elasticsearchService, never()).extractFacets(any());
+    }
+
+    @Test
+    void streamBuses_WritesOneLinePerHit() throws IOException {
+        // Given
+        SearchHitsIterator<BusSearchDocument> hits = mock(SearchHitsIterator.class);
+        when(hits.hasNext()).thenReturn(true, true, false);
+        when(hits.next()).thenReturn(searchHit(document(1L, "Mumbai", "Pune", 450)), searchHit(document(2L, "Mumbai", "Pune", 600)));
+        when(elasticsearchService.streamSearch(any(BusSearchRequest.class))).thenReturn(hits);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        busSearchService.streamBuses(request("Mumbai", "Pune"), output);
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"scheduleId\":1"), lines[0]);
+        assertTrue(lines[1].contains("\"scheduleId\":2"), lines[1]);
+        verify(hits).close();
+        verifyNoInteractions(databaseSearchService);
+    }
+
+    @Test
+    void streamBuses_FallsBackToDatabaseWhenScrollCannotOpen() throws IOException {
+        // Given
+        when(elasticsearchService.streamSearch(any(BusSearchRequest.class))).thenThrow(new IllegalStateException("cluster down"));
+        when(databaseSearchService.search(any(BusSearchRequest.class))).thenReturn(BusSearchResults.builder()
+                .results(List.of(BusSearchResponse.builder().scheduleId(5L).price(BigDecimal.valueOf(450)).build()))
+                .totalHits(1L)
+                .degraded(true)
+                .build());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        busSearchService.streamBuses(request("Mumbai", "Pune"), output);
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].contains("\"scheduleId\":5"), lines[0]);
+    }
+
+    @Test
+    void openStream_IsDegradedBeforeAnyLineIsWrittenWhenScrollCannotOpen() throws IOException {
+        // Given
+        when(elasticsearchService.streamSearch(any(BusSearchRequest.class))).thenThrow(new IllegalStateException("cluster down"));
+        when(databaseSearchService.search(any(BusSearchRequest.class))).thenReturn(BusSearchResults.builder()
+                .results(List.of(BusSearchResponse.builder().scheduleId(5L).price(BigDecimal.valueOf(450)).build()))
+                .totalHits(1L)
+                .degraded(true)
+                .build());
+
+        // When
+        BusSearchService.SearchStream stream = busSearchService.openStream(request("Mumbai", "Pune"));
+
+        // Then
+        assertTrue(stream.isDegraded());
+        verify(databaseSearchService).search(any(BusSearchRequest.class));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        stream.writeTo(output);
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("\"scheduleId\":5"));
+    }
+
+    @Test
+    void openStream_IsNotDegradedWhenScrollOpens() {
+        // Given
+        SearchHitsIterator<BusSearchDocument> hits = mock(SearchHitsIterator.class);
+        when(elasticsearchService.streamSearch(any(BusSearchRequest.class))).thenReturn(hits);
+
+        // When
+        BusSearchService.SearchStream stream = busSearchService.openStream(request("Mumbai", "Pune"));
+
+        // Then
+        assertFalse(stream.isDegraded());
+        verifyNoInteractions(databaseSearchService);
+    }
+
+    @Test
+    void streamBuses_EndsWithErrorLineWhenScrollFailsPartWay() throws IOException {
+        // Given
+        SearchHitsIterator<BusSearchDocument> hits = mock(SearchHitsIterator.class);
+        when(hits.hasNext()).thenReturn(true).thenThrow(new IllegalStateException("scroll expired"));
+        when(hits.next()).thenReturn(searchHit(document(1L, "Mumbai", "Pune", 450)));
+        when(elasticsearchService.streamSearch(any(BusSearchRequest.class))).thenReturn(hits);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        busSearchService.streamBuses(request("Mumbai", "Pune"), output);
+
+        // Then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"scheduleId\":1"), lines[0]);
+        assertTrue(lines[1].startsWith("{\"error\":"), lines[1]);
+        verify(hits).close();
+        verifyNoInteractions(databaseSearchService);
+    }
+
+    @Test
+    void searchRoundTrip_SearchesBothLegsInOneCallAndSumsFareBounds() {
+        // Given
+        SearchHits<BusSearchDocument> outboundHits = searchHits(document(1L, "Mumbai", "Pune", 400));
+        SearchHits<BusSearchDocument> inboundHits = searchHits(document(2L, "Pune", "Mumbai", 450));
+        when(elasticsearchService.searchLegs(anyList())).thenReturn(List.of(outboundHits, inboundHits));
+        when(elasticsearchService.priceStats(outboundHits)).thenReturn(Optional.of(stats(400.0, 900.0)));
+        when(elasticsearchService.priceStats(inboundHits)).thenReturn(Optional.of(stats(450.0, 700.0)));
+
+        // When
+        RoundTripSearchResults result = busSearchService.searchRoundTrip(roundTrip(travelDate, travelDate.plusDays(2)));
+
+        // Then
+        assertEquals(1L, result.getOutbound().get(0).getScheduleId());
+        assertEquals(2L, result.getInbound().get(0).getScheduleId());
+        assertEquals(0, BigDecimal.valueOf(850).compareTo(result.getMinTotalFare()));
+        assertEquals(0, BigDecimal.valueOf(1600).compareTo(result.getMaxTotalFare()));
+        assertFalse(result.isDegraded());
+
+        ArgumentCaptor<List<BusSearchRequest>> legs = ArgumentCaptor.forClass(List.class);
+        verify(elasticsearchService, times(1)).searchLegs(legs.capture());
+        BusSearchRequest inbound = legs.getValue().get(1);
+        assertEquals("Pune", inbound.getOrigin());
+        assertEquals("Mumbai", inbound.getDestination());
+        assertEquals(travelDate.plusDays(2), inbound.getTravelDate());
+        verifyNoInteractions(databaseSearchService);
+    }
+
+    @Test
+    void searchRoundTrip_LeavesFareBoundsEmptyWhenALegHasNoMatches() {
+        // Given
+        SearchHits<BusSearchDocument> outboundHits = searchHits(document(1L, "Mumbai", "Pune", 400));
+        SearchHits<BusSearchDocument> inboundHits = searchHits();
+        when(elasticsearchService.searchLegs(anyList())).thenReturn(List.of(outboundHits, inboundHits));
+        when(elasticsearchService.priceStats(outboundHits)).thenReturn(Optional.of(stats(400.0, 900.0)));
+        when(elasticsearchService.priceStats(inboundHits)).thenReturn(Optional.empty());
+
+        // When
+        RoundTripSearchResults result = busSearchService.searchRoundTrip(roundTrip(travelDate, travelDate.plusDays(2)));
+
+        // Then
+        assertTrue(result.getInbound().isEmpty());
+        assertNull(result.getMinTotalFare());
+        assertNull(result.getMaxTotalFare());
+    }
+
+    @Test
+    void searchRoundTrip_FallsBackToDatabaseForBothLegs() {
+        // Given
+        when(elasticsearchService.searchLegs(anyList())).thenThrow(new IllegalStateException("cluster down"));
+        when(databaseSearchService.search(any(BusSearchRequest.class))).thenReturn(
+                databaseResults(400, 650),
+                databaseResults(500));
+
+        // When
+        RoundTripSearchResults result = busSearchService.searchRoundTrip(roundTrip(travelDate, travelDate.plusDays(2)));
+
+        // Then
+        assertTrue(result.isDegraded());
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(result.getMinTotalFare()));
+        assertEquals(0, BigDecimal.valueOf(1150).compareTo(result.getMaxTotalFare()));
+        verify(databaseSearchService, times(2)).search(any(BusSearchRequest.class));
+    }
+
+    @Test
+    void searchRoundTrip_RejectsReturnBeforeOutbound() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            busSearchService.searchRoundTrip(roundTrip(travelDate, travelDate.minusDays(1)));
+        });
+
+        assertEquals("Return date cannot be before the outbound date", exception.getMessage());
+        verifyNoInteractions(elasticsearchService);
+    }
+
+    private RoundTripSearchRequest roundTrip(LocalDate outboundDate, LocalDate returnDate) {
+        return RoundTripSearchRequest.builder()
+                .origin("Mumbai")
+                .destination("Pune")
+                .outboundDate(outboundDate)
+                .returnDate(returnDate)
+                .build();
+    }
+
+    private StatsAggregate stats(double min, double max) {
+        return StatsAggregate.statsAggregateOf(s -> s.count(2).min(min).max(max).avg((min + max) / 2).sum(min + max));
+    }
+
+    private BusSearchResults databaseResults(int... prices) {
+        List<BusSearchResponse> results = Arrays.stream(prices)
+                .mapToObj(price -> BusSearchResponse.builder().price(BigDecimal.valueOf(price)).build())
+                .collect(Collectors.toList());
+        return BusSearchResults.builder().results(results).totalHits((long) results.size()).degraded(true).build();
+    }
+
+    private BusSearchRequest request(String origin, String destination) {
+        return BusSearchRequest.builder()
+                .origin(origin)
+                .destination(destination)
+                .travelDate(travelDate)
+                .build();
+    }
+
+    private BusSearchDocument document(Long scheduleId, String origin, String destination, int price) {
+        return BusSearchDocument.builder()
+                .id(BusSearchDocument.documentId(scheduleId, travelDate))
+                .scheduleId(scheduleId)
+                .travelDate(travelDate)
+                .origin(origin)
+                .destination(destination)
+                .departureTime("10:00:00")
+                .arrivalTime("14:00:00")
+                .price(BigDecimal.valueOf(price))
+                .durationMinutes(240)
+                .build();
+    }
+
+    private SearchHit<BusSearchDocument> searchHit(BusSearchDocument document) {
+        return new SearchHit<>(BusSearchDocument.READ_ALIAS, document.getId(), null, 0f, null,
+                null, null, null, null, null, document);
+    }
+
+    private SearchHits<BusSearchDocument> searchHits(BusSearchDocument... documents) {
+        List<SearchHit<BusSearchDocument>> hits = List.of(documents).stream()
+                .map(this::searchHit)
+                .collect(Collectors.toList());
+        return new SearchHitsImpl<>(hits.size(), TotalHitsRelation.EQUAL_TO, 0f, null, null, hits, null, null);
+    }
+}
@@ -2,14 +2,17 @@ package com.redbus.service;
 
 import com.redbus.entity.Bus;
 import com.redbus.entity.BusOperator;
+import com.redbus.event.BusChangedEvent;
 import com.redbus.repository.jpa.BusRepository;
 import com.redbus.repository.jpa.BusOperatorRepository;
+import com.redbus.search.Amenity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -30,6 +33,9 @@ class BusServiceTest {
     @Mock
     private BusOperatorRepository busOperatorRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BusService busService;
 
@@ -130,6 +136,69 @@ class BusServiceTest {
         assertNotNull(result);
         assertEquals("BUS002", result.getBusNumber());
         verify(busRepository).save(any(Bus.class));
+        verify(eventPublisher).publishEvent(new BusChangedEvent(1L));
+    }
+
+    @Test
+    void updateBus_StoresCanonicalAmenitiesAndMask() {
+        // Given
+        Bus updatedBus = Bus.builder()
+                .busNumber("BUS001")
+                .busType(Bus.BusType.AC)
+                .totalSeats(50)
+                .amenities(Arrays.asList("wi-fi", "Blanket", "charging"))
+                .build();
+
+        when(busRepository.findById(1L)).thenReturn(Optional.of(testBus));
+        when(busRepository.save(any(Bus.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Bus result = busService.updateBus(1L, updatedBus);
+
+        // Then
+        assertEquals(Arrays.asList("WiFi", "Charging Point", "Blanket"), result.getAmenities());
+        assertEquals(Amenity.WIFI.mask() | Amenity.CHARGING_POINT.mask() | Amenity.BLANKET.mask(),
+                result.getAmenityMask());
+    }
+
+    @Test
+    void createBus_KeepsLabelsOutsideCatalogueWithoutMaskBits() {
+        // Given
+        testBus.setAmenities(Arrays.asList("WiFi", "AC", "USB Charging"));
+        when(busRepository.existsByBusNumber(anyString())).thenReturn(false);
+        when(busOperatorRepository.findById(anyLong())).thenReturn(Optional.of(testOperator));
+        when(busRepository.save(any(Bus.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Bus result = busService.createBus(testBus);
+
+        // Then
+        assertEquals(Arrays.asList("WiFi", "Charging Point", "AC"), result.getAmenities());
+        assertEquals(Amenity.WIFI.mask() | Amenity.CHARGING_POINT.mask(), result.getAmenityMask());
+    }
+
+    @Test
+    void updateBus_KeepsLegacyLabelsLeftByMigration() {
+        // Given
+        testBus.setAmenities(Arrays.asList("WiFi", "AC", "Water"));
+        Bus updatedBus = Bus.builder()
+                .busNumber("BUS001")
+                .busType(Bus.BusType.AC)
+                .totalSeats(45)
+                .amenities(testBus.getAmenities())
+                .build();
+
+        when(busRepository.findById(1L)).thenReturn(Optional.of(testBus));
+        when(busRepository.save(any(Bus.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Bus result = busService.updateBus(1L, updatedBus);
+
+        // Then
+        assertEquals(45, result.getTotalSeats());
+        assertEquals(Arrays.asList("WiFi", "Water Bottle", "AC"), result.getAmenities());
+        assertEquals(Amenity.WIFI.mask() | Amenity.WATER_BOTTLE.mask(), result.getAmenityMask());
+        verify(eventPublisher).publishEvent(new BusChangedEvent(1L));
     }
 
     @Test
@@ -156,5 +225,6 @@ class BusServiceTest {
         // Then
         assertFalse(testBus.getIsActive());
         verify(busRepository).save(testBus);
+        verify(eventPublisher).publishEvent(new BusChangedEvent(1L));
     }
 }
@@ -0,0 +1,213 @@
+package com.redbus.service;
+
+import com.redbus.dto.JourneyItinerary;
+import com.redbus.entity.Bus;
+import com.redbus.entity.BusOperator;
+import com.redbus.entity.Route;
+import com.redbus.entity.Schedule;
+import com.redbus.event.BusChangedEvent;
+import com.redbus.event.OperatorChangedEvent;
+import com.redbus.event.RouteChangedEvent;
+import com.redbus.event.ScheduleChangedEvent;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.search.AmenityFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionSearchServiceTest {
+
+    private static final LocalDate TRAVEL_DATE = LocalDate.now().plusDays(1);
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private CityIndexService cityIndexService;
+
+    @InjectMocks
+    private ConnectionSearchService connectionSearchService;
+
+    private final BusOperator operator = BusOperator.builder().id(1L).name("VRL Travels").build();
+    private final Bus bus = Bus.builder().id(10L).operator(operator).busNumber("MH-01-1234")
+            .busType(Bus.BusType.AC).isActive(true).build();
+    private final Route mumbaiPune = route(100L, "Mumbai", "Pune");
+    private final Route puneGoa = route(101L, "Pune", "Goa");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(connectionSearchService, "maxTransfersLimit", 2);
+        ReflectionTestUtils.setField(connectionSearchService, "defaultMinLayoverMinutes", 30);
+        ReflectionTestUtils.setField(connectionSearchService, "maxLayoverMinutes", 720);
+        // Long enough that the background rebuilder stays out of the way
+        ReflectionTestUtils.setField(connectionSearchService, "quietMillis", 60000L);
+        ReflectionTestUtils.setField(connectionSearchService, "maxDelayMillis", 60000L);
+        ReflectionTestUtils.setField(connectionSearchService, "maxBatch", 1000);
+        connectionSearchService.init();
+        lenient().when(cityIndexService.resolveCity(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionSearchService.shutdown();
+    }
+
+    @Test
+    void reload_BuildsTheGraphFromActiveSchedules() {
+        // Given
+        when(scheduleRepository.findActiveSchedulesWithDetails())
+                .thenReturn(List.of(schedule(1L, mumbaiPune, 8), schedule(2L, puneGoa, 14)));
+
+        // When
+        connectionSearchService.reload();
+
+        // Then
+        List<JourneyItinerary> journeys = search("Mumbai", "Goa");
+        assertEquals(1, journeys.size());
+        assertEquals(1, journeys.get(0).getTransfers());
+    }
+
+    @Test
+    void flush_BurstOfChangesIsOneFetchWithoutAFullReload() {
+        // Given
+        when(scheduleRepository.findAffectedWithDetails(any(), any(), any(), any()))
+                .thenReturn(List.of(schedule(1L, mumbaiPune, 8), schedule(2L, puneGoa, 14)));
+        for (int i = 0; i < 50; i++) {
+            connectionSearchService.onScheduleChanged(new ScheduleChangedEvent(1L));
+        }
+        connectionSearchService.onScheduleChanged(new ScheduleChangedEvent(2L));
+
+        // When
+        connectionSearchService.flush();
+
+        // Then
+        verify(scheduleRepository, times(1)).findAffectedWithDetails(Set.of(1L, 2L), List.of(0L), List.of(0L), List.of(0L));
+        verify(scheduleRepository, never()).findActiveSchedulesWithDetails();
+        assertEquals(1, search("Mumbai", "Goa").size());
+    }
+
+    @Test
+    void flush_DeletedOrDeactivatedSchedulesLeaveTheGraph() {
+        // Given
+        givenGraph(schedule(1L, mumbaiPune, 8), schedule(2L, puneGoa, 14), schedule(3L, mumbaiPune, 10));
+        Schedule deactivated = schedule(3L, mumbaiPune, 10);
+        deactivated.setIsActive(false);
+        // Schedule 2 is gone from the database altogether
+        when(scheduleRepository.findAffectedWithDetails(any(), any(), any(), any())).thenReturn(List.of(deactivated));
+        connectionSearchService.onScheduleChanged(new ScheduleChangedEvent(2L));
+        connectionSearchService.onScheduleChanged(new ScheduleChangedEvent(3L));
+
+        // When
+        connectionSearchService.flush();
+
+        // Then
+        assertTrue(search("Mumbai", "Goa").isEmpty());
+        assertEquals(List.of(1L), search("Mumbai", "Pune").stream()
+                .map(journey -> journey.getLegs().get(0).getScheduleId())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void flush_RouteChangePatchesOnlyItsSchedules() {
+        // Given
+        givenGraph(schedule(1L, mumbaiPune, 8), schedule(2L, puneGoa, 14));
+        mumbaiPune.setIsActive(false);
+        when(scheduleRepository.findAffectedWithDetails(List.of(0L), List.of(0L), Set.of(100L), List.of(0L)))
+                .thenReturn(List.of(schedule(1L, mumbaiPune, 8)));
+        connectionSearchService.onRouteChanged(new RouteChangedEvent(100L));
+
+        // When
+        connectionSearchService.flush();
+
+        // Then
+        verify(scheduleRepository, times(1)).findActiveSchedulesWithDetails(); // givenGraph only
+        assertTrue(search("Mumbai", "Goa").isEmpty());
+        assertEquals(1, search("Pune", "Goa").size());
+    }
+
+    @Test
+    void flush_BusOrOperatorWithoutSchedulesFallsBackToFullReload() {
+        // Given
+        when(scheduleRepository.findAffectedWithDetails(any(), any(), any(), any()))
+                .thenReturn(List.of(schedule(1L, mumbaiPune, 8)));
+        when(scheduleRepository.findActiveSchedulesWithDetails()).thenReturn(List.of());
+        connectionSearchService.onBusChanged(new BusChangedEvent(10L));
+        connectionSearchService.onOperatorChanged(new OperatorChangedEvent(2L));
+
+        // When
+        connectionSearchService.flush();
+
+        // Then
+        verify(scheduleRepository).findActiveSchedulesWithDetails();
+        assertTrue(search("Mumbai", "Pune").isEmpty());
+    }
+
+    @Test
+    void flush_FailureKeepsTheChangesForTheNextWindow() {
+        // Given
+        when(scheduleRepository.findAffectedWithDetails(any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(List.of(schedule(1L, mumbaiPune, 8)));
+        connectionSearchService.onScheduleChanged(new ScheduleChangedEvent(1L));
+
+        // When
+        connectionSearchService.flush();
+        connectionSearchService.flush();
+
+        // Then
+        verify(scheduleRepository, times(2)).findAffectedWithDetails(Set.of(1L), List.of(0L), List.of(0L), List.of(0L));
+        assertEquals(1, search("Mumbai", "Pune").size());
+    }
+
+    @Test
+    void flush_NothingQueuedTouchesNothing() {
+        // When
+        connectionSearchService.flush();
+
+        // Then
+        verifyNoInteractions(scheduleRepository);
+    }
+
+    private void givenGraph(Schedule... schedules) {
+        when(scheduleRepository.findActiveSchedulesWithDetails()).thenReturn(List.of(schedules));
+        connectionSearchService.reload();
+    }
+
+    private List<JourneyItinerary> search(String origin, String destination) {
+        return connectionSearchService.searchConnections(origin, destination, TRAVEL_DATE, 2, null, AmenityFilter.NONE);
+    }
+
+    private Schedule schedule(Long id, Route route, int departureHour) {
+        return Schedule.builder()
+                .id(id)
+                .bus(bus)
+                .route(route)
+                .departureTime(LocalTime.of(departureHour, 0))
+                .arrivalTime(LocalTime.of(departureHour + 3, 0))
+                .price(BigDecimal.valueOf(500))
+                .isActive(true)
+                .build();
+    }
+
+    private static Route route(Long id, String origin, String destination) {
+        return Route.builder().id(id).origin(origin).destination(destination).isActive(true).build();
+    }
+}
@@ -0,0 +1,269 @@
+package com.redbus.service;
+
+import com.redbus.dto.BusSearchRequest;
+import com.redbus.dto.BusSearchResponse;
+import com.redbus.dto.BusSearchResults;
+import com.redbus.entity.Booking;
+import com.redbus.entity.Bus;
+import com.redbus.entity.BusOperator;
+import com.redbus.entity.Route;
+import com.redbus.entity.Schedule;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.search.Amenity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseSearchServiceTest {
+
+    // A Monday, so running-day filters are easy to read
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2026, 10, 19);
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private DatabaseSearchService databaseSearchService;
+
+    private final Route route = Route.builder().id(1L).origin("Mumbai").destination("Pune").isActive(true).build();
+    private final BusOperator operator = BusOperator.builder().id(1L).name("VRL Travels").build();
+
+    private BusSearchRequest request;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(databaseSearchService, "maxResults", 500);
+        request = BusSearchRequest.builder()
+                .origin(" Mumbai ")
+                .destination("PUNE")
+                .travelDate(TRAVEL_DATE)
+                .sortBy("departure")
+                .sortOrder("asc")
+                .build();
+        lenient().when(bookingRepository.countHeldSeatsBySchedules(anyList(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void search_LoadsTheCorridorLowerCasedAndMarksResultsDegraded() {
+        // Given
+        givenCorridor(schedule(1L, Bus.BusType.AC, 8, 450, 0L));
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        verify(scheduleRepository).findSearchableByCorridor("mumbai", "pune");
+        assertTrue(results.isDegraded());
+        assertEquals(1L, results.getTotalHits());
+        assertEquals(List.of(1L), ids(results));
+    }
+
+    @Test
+    void search_FiltersBusTypePriceAndAmenities() {
+        // Given
+        long wifiAndCharging = Amenity.WIFI.mask() | Amenity.CHARGING_POINT.mask();
+        givenCorridor(
+                schedule(1L, Bus.BusType.AC, 8, 450, wifiAndCharging),
+                schedule(2L, Bus.BusType.NON_AC, 9, 450, wifiAndCharging),
+                schedule(3L, Bus.BusType.AC, 10, 900, wifiAndCharging),
+                schedule(4L, Bus.BusType.AC, 11, 300, wifiAndCharging),
+                schedule(5L, Bus.BusType.AC, 12, 500, Amenity.WIFI.mask()));
+        request.setBusType("AC");
+        request.setMinPrice(400.0);
+        request.setMaxPrice(800.0);
+        request.setAmenities(List.of("WiFi", "Charging Point"));
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(1L), ids(results));
+    }
+
+    @Test
+    void search_AnyAmenityMatchAcceptsEitherAmenity() {
+        // Given
+        givenCorridor(
+                schedule(1L, Bus.BusType.AC, 8, 450, Amenity.WIFI.mask()),
+                schedule(2L, Bus.BusType.AC, 9, 450, Amenity.BLANKET.mask()),
+                schedule(3L, Bus.BusType.AC, 10, 450, 0L));
+        request.setAmenities(List.of("WiFi", "Blanket"));
+        request.setAmenityMatch("any");
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids(results));
+    }
+
+    @Test
+    void search_DepartureWindowAcrossMidnightMatchesEitherSide() {
+        // Given
+        givenCorridor(
+                schedule(1L, Bus.BusType.AC, 1, 450, 0L),
+                schedule(2L, Bus.BusType.AC, 12, 450, 0L),
+                schedule(3L, Bus.BusType.AC, 23, 450, 0L));
+        request.setDepartureTime(LocalTime.of(22, 0));
+        request.setDepartureTimeTo(LocalTime.of(2, 0));
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(1L, 3L), ids(results));
+    }
+
+    @Test
+    void search_SkipsSchedulesThatDoNotRunThatDay() {
+        // Given
+        Schedule weekends = schedule(1L, Bus.BusType.AC, 8, 450, 0L);
+        weekends.setDaysOfWeek(List.of(6, 7));
+        givenCorridor(weekends);
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertTrue(results.getResults().isEmpty());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void search_AvailableSeatsSubtractHeldSeatsAndDropSoldOutTrips() {
+        // Given
+        givenCorridor(
+                schedule(1L, Bus.BusType.AC, 8, 450, 0L),
+                schedule(2L, Bus.BusType.AC, 9, 450, 0L),
+                schedule(3L, Bus.BusType.AC, 10, 450, 0L));
+        when(bookingRepository.countHeldSeatsBySchedules(List.of(1L, 2L, 3L), TRAVEL_DATE, Booking.BookingStatus.CANCELLED))
+                .thenReturn(List.<Object[]>of(new Object[] {1L, 15L}, new Object[] {2L, 40L}));
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(1L, 3L), ids(results));
+        assertEquals(25, results.getResults().get(0).getAvailableSeats());
+        assertEquals(40, results.getResults().get(1).getAvailableSeats());
+        assertEquals(2L, results.getTotalHits());
+    }
+
+    @Test
+    void search_SortsByPriceDescending() {
+        // Given
+        givenCorridor(
+                schedule(1L, Bus.BusType.AC, 8, 450, 0L),
+                schedule(2L, Bus.BusType.AC, 9, 900, 0L),
+                schedule(3L, Bus.BusType.AC, 10, 600, 0L));
+        request.setSortBy("price");
+        request.setSortOrder("desc");
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(2L, 3L, 1L), ids(results));
+    }
+
+    @Test
+    void search_SortsByDurationCountingOvernightArrivals() {
+        // Given
+        Schedule overnight = schedule(1L, Bus.BusType.AC, 22, 450, 0L);
+        overnight.setArrivalTime(LocalTime.of(6, 0)); // 8 hours
+        Schedule shortHop = schedule(2L, Bus.BusType.AC, 8, 450, 0L); // 3 hours
+        Schedule midday = schedule(3L, Bus.BusType.AC, 12, 450, 0L);
+        midday.setArrivalTime(LocalTime.of(17, 0)); // 5 hours
+        givenCorridor(overnight, shortHop, midday);
+        request.setSortBy("duration");
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(2L, 3L, 1L), ids(results));
+    }
+
+    @Test
+    void search_SortsBySeatsAfterHeldSeatsAreCounted() {
+        // Given
+        givenCorridor(
+                schedule(1L, Bus.BusType.AC, 8, 450, 0L),
+                schedule(2L, Bus.BusType.AC, 9, 450, 0L));
+        when(bookingRepository.countHeldSeatsBySchedules(anyList(), any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[] {2L, 10L}));
+        request.setSortBy("seats");
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(2L, 1L), ids(results));
+    }
+
+    @Test
+    void search_CapsResultsAtMaxResultsButCountsEveryMatch() {
+        // Given
+        ReflectionTestUtils.setField(databaseSearchService, "maxResults", 2);
+        givenCorridor(
+                schedule(1L, Bus.BusType.AC, 8, 450, 0L),
+                schedule(2L, Bus.BusType.AC, 9, 450, 0L),
+                schedule(3L, Bus.BusType.AC, 10, 450, 0L));
+
+        // When
+        BusSearchResults results = databaseSearchService.search(request);
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids(results));
+        assertEquals(3L, results.getTotalHits());
+    }
+
+    private void givenCorridor(Schedule... schedules) {
+        when(scheduleRepository.findSearchableByCorridor("mumbai", "pune")).thenReturn(List.of(schedules));
+    }
+
+    private List<Long> ids(BusSearchResults results) {
+        return results.getResults().stream().map(BusSearchResponse::getScheduleId).collect(Collectors.toList());
+    }
+
+    private Schedule schedule(Long id, Bus.BusType busType, int departureHour, int price, long amenityMask) {
+        Bus bus = Bus.builder()
+                .id(id)
+                .operator(operator)
+                .busNumber("MH-01-" + id)
+                .busType(busType)
+                .totalSeats(40)
+                .amenityMask(amenityMask)
+                .isActive(true)
+                .build();
+        return Schedule.builder()
+                .id(id)
+                .bus(bus)
+                .route(route)
+                .departureTime(LocalTime.of(departureHour, 0))
+                .arrivalTime(LocalTime.of((departureHour + 3) % 24, 0))
+                .price(BigDecimal.valueOf(price))
+                .isActive(true)
+                .build();
+    }
+}
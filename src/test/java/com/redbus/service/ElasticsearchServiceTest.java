@@ -0,0 +1,551 @@
+package com.redbus.service;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.HistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.RangeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StatsAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.redbus.document.BusSearchDocument;
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.dto.BusSearchRequest;
+import com.redbus.dto.FacetBucket;
+import com.redbus.entity.BoardingPoint;
+import com.redbus.entity.Booking;
+import com.redbus.entity.Bus;
+import com.redbus.entity.BusOperator;
+import com.redbus.entity.Route;
+import com.redbus.entity.Schedule;
+import com.redbus.event.BusChangedEvent;
+import com.redbus.event.OperatorChangedEvent;
+import com.redbus.event.RouteChangedEvent;
+import com.redbus.repository.elasticsearch.BusSearchRepository;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.repository.jpa.BusOperatorRepository;
+import com.redbus.repository.jpa.BusRepository;
+import com.redbus.repository.jpa.ScheduleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ElasticsearchServiceTest {
+
+    @Mock
+    private BusSearchRepository busSearchRepository;
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BusRepository busRepository;
+
+    @Mock
+    private BusOperatorRepository busOperatorRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private ElasticsearchService elasticsearchService;
+
+    private BusSearchRequest request;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(elasticsearchService, "horizonDays", 60);
+        ReflectionTestUtils.setField(elasticsearchService, "maxResults", 500);
+        ReflectionTestUtils.setField(elasticsearchService, "priceFacetInterval", 500.0);
+
+        request = BusSearchRequest.builder()
+                .origin("Mumbai")
+                .destination("Pune")
+                .travelDate(LocalDate.of(2026, 10, 19))
+                .sortBy("departure")
+                .sortOrder("asc")
+                .build();
+    }
+
+    @Test
+    void search_WithFacetsAddsEveryAggregationToTheSameRequest() {
+        // Given
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(BusSearchDocument.class))).thenReturn(searchHits(null));
+
+        // When
+        elasticsearchService.search(request, true);
+
+        // Then
+        ArgumentCaptor<NativeQuery> query = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations, times(1)).search(query.capture(), eq(BusSearchDocument.class));
+        assertEquals(List.of(ElasticsearchService.FACET_BUS_TYPE, ElasticsearchService.FACET_OPERATOR,
+                        ElasticsearchService.FACET_DEPARTURE_TIME, ElasticsearchService.FACET_PRICE),
+                List.copyOf(query.getValue().getAggregations().keySet()));
+    }
+
+    @Test
+    void search_WithoutFacetsSendsNoAggregations() {
+        // Given
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(BusSearchDocument.class))).thenReturn(searchHits(null));
+
+        // When
+        elasticsearchService.search(request, false);
+
+        // Then
+        ArgumentCaptor<NativeQuery> query = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations).search(query.capture(), eq(BusSearchDocument.class));
+        assertTrue(query.getValue().getAggregations().isEmpty());
+    }
+
+    @Test
+    void extractFacets_ConvertsTermsRangeAndHistogramBuckets() {
+        // Given
+        Aggregate busTypes = Aggregate.of(a -> a.sterms(s -> s
+                .sumOtherDocCount(0L)
+                .buckets(b -> b.array(List.of(StringTermsBucket.of(t -> t.key(FieldValue.of("AC")).docCount(3)))))));
+        Aggregate departures = Aggregate.of(a -> a.range(r -> r
+                .buckets(b -> b.array(List.of(RangeBucket.of(rb -> rb.key("morning").from(360.0).to(720.0).docCount(2)))))));
+        Aggregate prices = Aggregate.of(a -> a.histogram(h -> h
+                .buckets(b -> b.array(List.of(HistogramBucket.of(hb -> hb.key(500.0).docCount(4)))))));
+        SearchHits<BusSearchDocument> searchHits = searchHits(new ElasticsearchAggregations(Map.of(
+                ElasticsearchService.FACET_BUS_TYPE, busTypes,
+                ElasticsearchService.FACET_DEPARTURE_TIME, departures,
+                ElasticsearchService.FACET_PRICE, prices)));
+
+        // When
+        Map<String, List<FacetBucket>> facets = elasticsearchService.extractFacets(searchHits);
+
+        // Then
+        assertEquals(3, facets.size());
+        assertEquals(FacetBucket.builder().key("AC").count(3L).build(), facets.get(ElasticsearchService.FACET_BUS_TYPE).get(0));
+        assertEquals(FacetBucket.builder().key("morning").from(360.0).to(720.0).count(2L).build(),
+                facets.get(ElasticsearchService.FACET_DEPARTURE_TIME).get(0));
+        assertEquals(FacetBucket.builder().key("500").from(500.0).to(1000.0).count(4L).build(),
+                facets.get(ElasticsearchService.FACET_PRICE).get(0));
+    }
+
+    @Test
+    void search_FacetFiltersMoveToPostFilterAndSkipTheirOwnFacet() {
+        // Given
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(BusSearchDocument.class))).thenReturn(searchHits(null));
+        request.setBusType("AC_SLEEPER");
+        request.setMaxPrice(1500.0);
+
+        // When
+        elasticsearchService.search(request, true);
+
+        // Then
+        NativeQuery query = capturedQuery();
+        assertFalse(query.getQuery().toString().contains("AC_SLEEPER"), query.getQuery().toString());
+        assertTrue(query.getFilter().toString().contains("\"busType\":{\"value\":\"AC_SLEEPER\"}"), query.getFilter().toString());
+        assertTrue(query.getFilter().toString().contains("\"price\":{\"lte\":1500.0}"), query.getFilter().toString());
+        String busTypeFacet = query.getAggregations().get(ElasticsearchService.FACET_BUS_TYPE).toString();
+        assertFalse(busTypeFacet.contains("AC_SLEEPER"), busTypeFacet);
+        assertTrue(busTypeFacet.contains("\"lte\":1500.0"), busTypeFacet);
+        String operatorFacet = query.getAggregations().get(ElasticsearchService.FACET_OPERATOR).toString();
+        assertTrue(operatorFacet.contains("AC_SLEEPER") && operatorFacet.contains("\"lte\":1500.0"), operatorFacet);
+    }
+
+    @Test
+    void search_WithoutFacetsKeepsEveryFilterInTheQuery() {
+        // Given
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(BusSearchDocument.class))).thenReturn(searchHits(null));
+        request.setBusType("AC_SLEEPER");
+
+        // When
+        elasticsearchService.search(request, false);
+
+        // Then
+        NativeQuery query = capturedQuery();
+        assertTrue(query.getQuery().toString().contains("AC_SLEEPER"), query.getQuery().toString());
+        assertNull(query.getFilter());
+    }
+
+    @Test
+    void extractFacets_UnwrapsFacetsCountedUnderTheOtherFilters() {
+        // Given
+        Aggregate busTypes = Aggregate.of(a -> a.sterms(s -> s
+                .sumOtherDocCount(0L)
+                .buckets(b -> b.array(List.of(
+                        StringTermsBucket.of(t -> t.key(FieldValue.of("AC")).docCount(3)),
+                        StringTermsBucket.of(t -> t.key(FieldValue.of("NON_AC")).docCount(5)))))));
+        Aggregate filtered = Aggregate.of(a -> a.filter(f -> f
+                .docCount(8)
+                .aggregations(ElasticsearchService.FACET_BUS_TYPE, busTypes)));
+        SearchHits<BusSearchDocument> searchHits = searchHits(new ElasticsearchAggregations(Map.of(
+                ElasticsearchService.FACET_BUS_TYPE, filtered)));
+
+        // When
+        Map<String, List<FacetBucket>> facets = elasticsearchService.extractFacets(searchHits);
+
+        // Then
+        assertEquals(List.of(FacetBucket.builder().key("AC").count(3L).build(),
+                        FacetBucket.builder().key("NON_AC").count(5L).build()),
+                facets.get(ElasticsearchService.FACET_BUS_TYPE));
+    }
+
+    @Test
+    void extractFacets_EmptyWithoutAggregations() {
+        // When
+        Map<String, List<FacetBucket>> facets = elasticsearchService.extractFacets(searchHits(null));
+
+        // Then
+        assertTrue(facets.isEmpty());
+    }
+
+    @Test
+    void search_FiltersCitiesOnLowerCasedKeywordSubFields() {
+        // Given
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(BusSearchDocument.class))).thenReturn(searchHits(null));
+        request.setOrigin(" Mumbai ");
+
+        // When
+        elasticsearchService.search(request, false);
+
+        // Then
+        String query = capturedQuery().getQuery().toString();
+        assertTrue(query.contains("\"origin.keyword\":{\"value\":\"Mumbai\"}"), query);
+        assertTrue(query.contains("\"destination.keyword\":{\"value\":\"Pune\"}"), query);
+    }
+
+    @Test
+    void search_DepartureWindowAcrossMidnightMatchesEitherSide() {
+        // Given
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(BusSearchDocument.class))).thenReturn(searchHits(null));
+        request.setDepartureTime(LocalTime.of(22, 0));
+        request.setDepartureTimeTo(LocalTime.of(2, 0));
+
+        // When
+        elasticsearchService.search(request, false);
+
+        // Then
+        String query = capturedQuery().getQuery().toString();
+        assertTrue(query.contains("\"should\""), query);
+        assertTrue(query.contains("\"departureMinutes\":{\"gte\":1320}"), query);
+        assertTrue(query.contains("\"departureMinutes\":{\"lte\":120}"), query);
+    }
+
+    @Test
+    void search_SortsOnMinuteFields() {
+        // Given
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(BusSearchDocument.class))).thenReturn(searchHits(null));
+        request.setSortBy("duration");
+        request.setSortOrder("desc");
+
+        // When
+        elasticsearchService.search(request, false);
+
+        // Then
+        assertEquals(Sort.by(Sort.Direction.DESC, "durationMinutes"), capturedQuery().getSort());
+    }
+
+    @Test
+    void rollHorizon_DropsDepartedDatesAndAddsTheNewLastDay() {
+        // Given
+        LocalDate today = LocalDate.now();
+        LocalDate lastDate = today.plusDays(59);
+        Schedule daily = schedule(1L, null);
+        Schedule never = schedule(2L, List.of());
+        when(bookingRepository.countHeldSeatsBetween(lastDate, lastDate, Booking.BookingStatus.CANCELLED))
+                .thenReturn(List.<Object[]>of(new Object[] {1L, lastDate, 15L}));
+        when(scheduleRepository.streamAllWithDetails()).thenReturn(Stream.of(daily, never));
+
+        // When
+        int indexed = elasticsearchService.rollHorizon(() -> true);
+
+        // Then
+        assertEquals(1, indexed);
+        ArgumentCaptor<Query> expired = ArgumentCaptor.forClass(Query.class);
+        verify(searchIndexService).deleteByQuery(expired.capture());
+        assertTrue(expired.getValue().toString().contains("\"travelDate\":{\"lt\":\"" + today + "\"}"),
+                expired.getValue().toString());
+
+        ArgumentCaptor<List<BusSearchDocument>> saved = ArgumentCaptor.forClass(List.class);
+        verify(searchIndexService).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        BusSearchDocument added = saved.getValue().get(0);
+        assertEquals(BusSearchDocument.documentId(1L, lastDate), added.getId());
+        assertEquals(25, added.getAvailableSeats());
+    }
+
+    @Test
+    void rollHorizon_StopsBeforeWritingOnceTheLeaseIsLost() {
+        // Given
+        when(scheduleRepository.streamAllWithDetails()).thenReturn(Stream.of(schedule(1L, null)));
+        when(bookingRepository.countHeldSeatsBetween(any(), any(), any())).thenReturn(List.of());
+        AtomicBoolean holdsLease = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            holdsLease.set(false);
+            return null;
+        }).when(searchIndexService).deleteByQuery(any());
+
+        // When / Then
+        assertThrows(CancellationException.class, () -> elasticsearchService.rollHorizon(holdsLease::get));
+        verify(searchIndexService, never()).saveAll(any());
+    }
+
+    @Test
+    void rollHorizon_WithoutTheLeaseTouchesNothing() {
+        // When / Then
+        assertThrows(CancellationException.class, () -> elasticsearchService.rollHorizon(() -> false));
+        verifyNoInteractions(searchIndexService, scheduleRepository);
+    }
+
+    @Test
+    void onRouteChanged_SyncsTheRouteSchedulesThroughTheChunkedPath() {
+        // Given
+        ReflectionTestUtils.setField(elasticsearchService, "changeNotifications", false);
+        Schedule deactivated = schedule(1L, null);
+        deactivated.setIsActive(false);
+        when(scheduleRepository.findAffectedWithDetails(List.of(0L), List.of(0L), Set.of(7L), List.of(0L)))
+                .thenReturn(List.of(deactivated));
+
+        // When
+        elasticsearchService.onRouteChanged(new RouteChangedEvent(7L));
+
+        // Then
+        verify(searchIndexService).deleteAll(anyCollection());
+        verify(bookingRepository, never()).countHeldSeatsByScheduleBetween(any(), any(), any(), any());
+    }
+
+    @Test
+    void onRouteBusAndOperatorChanges_LeftToChangeNotificationsWhenEnabled() {
+        // Given
+        ReflectionTestUtils.setField(elasticsearchService, "changeNotifications", true);
+
+        // When
+        elasticsearchService.onRouteChanged(new RouteChangedEvent(7L));
+        elasticsearchService.onBusChanged(new BusChangedEvent(3L));
+        elasticsearchService.onOperatorChanged(new OperatorChangedEvent(2L));
+
+        // Then
+        verifyNoInteractions(scheduleRepository, busRepository, busOperatorRepository, searchIndexService);
+    }
+
+    @Test
+    void reindexSchedule_WritesRunningDatesAndDeletesTheRest() {
+        // Given
+        LocalDate today = LocalDate.now();
+        Schedule schedule = schedule(1L, List.of(today.getDayOfWeek().getValue()));
+        when(bookingRepository.countHeldSeatsByScheduleBetween(1L, today, today.plusDays(59), Booking.BookingStatus.CANCELLED))
+                .thenReturn(List.<Object[]>of(new Object[] {today, 4L}));
+
+        // When
+        elasticsearchService.reindexSchedule(schedule);
+
+        // Then
+        ArgumentCaptor<List<BusSearchDocument>> saved = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Collection<String>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(searchIndexService).saveAll(saved.capture());
+        verify(searchIndexService).deleteAll(deleted.capture());
+        assertEquals(9, saved.getValue().size());
+        assertEquals(51, deleted.getValue().size());
+        assertTrue(saved.getValue().stream().allMatch(document -> document.getTravelDate().getDayOfWeek() == today.getDayOfWeek()));
+        assertEquals(36, saved.getValue().get(0).getAvailableSeats());
+        assertEquals(40, saved.getValue().get(1).getAvailableSeats());
+        assertFalse(deleted.getValue().contains(BusSearchDocument.documentId(1L, today)));
+    }
+
+    @Test
+    void reindexSchedule_DeletesEveryDateOfAnInactiveSchedule() {
+        // Given
+        Schedule schedule = schedule(1L, null);
+        schedule.setIsActive(false);
+
+        // When
+        elasticsearchService.reindexSchedule(schedule);
+
+        // Then
+        ArgumentCaptor<Collection<String>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(searchIndexService).deleteAll(deleted.capture());
+        assertEquals(60, deleted.getValue().size());
+        verify(searchIndexService, never()).saveAll(any());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void syncSchedules_SkipsDocumentsWhoseContentIsUnchanged() {
+        // Given
+        ReflectionTestUtils.setField(elasticsearchService, "horizonDays", 2);
+        Schedule schedule = schedule(1L, null);
+        schedule.getRoute().setBoardingPoints(new ArrayList<>(List.of(boardingPoint(1L, "Dadar"), boardingPoint(2L, "Sion"))));
+        Map<String, String> stored = contentHashes(schedule);
+        // Same points, loaded in a different order
+        Collections.reverse(schedule.getRoute().getBoardingPoints());
+        when(searchIndexService.contentHashes(anyList())).thenReturn(stored);
+
+        // When
+        BulkIndexResult result = elasticsearchService.syncSchedules(List.of(schedule));
+
+        // Then
+        verify(searchIndexService).indexAll(List.of());
+        assertEquals(0, result.getIndexed());
+        assertEquals(2, result.getUnchanged());
+    }
+
+    @Test
+    void syncSchedules_RewritesDocumentsWhoseContentChanged() {
+        // Given
+        ReflectionTestUtils.setField(elasticsearchService, "horizonDays", 2);
+        Schedule schedule = schedule(1L, null);
+        Map<String, String> stored = contentHashes(schedule);
+        schedule.setPrice(BigDecimal.valueOf(550));
+        when(searchIndexService.contentHashes(anyList())).thenReturn(stored);
+        when(searchIndexService.indexAll(anyList())).thenReturn(List.of());
+
+        // When
+        BulkIndexResult result = elasticsearchService.syncSchedules(List.of(schedule));
+
+        // Then
+        ArgumentCaptor<List<BusSearchDocument>> written = ArgumentCaptor.forClass(List.class);
+        verify(searchIndexService).indexAll(written.capture());
+        assertEquals(2, written.getValue().size());
+        assertEquals(0, BigDecimal.valueOf(550).compareTo(written.getValue().get(0).getPrice()));
+        assertEquals(2, result.getIndexed());
+        assertEquals(0, result.getUnchanged());
+    }
+
+    @Test
+    void searchLegs_SendsEveryLegInOneMultiSearchWithPriceStats() {
+        // Given
+        BusSearchRequest inbound = request.toBuilder().origin("Pune").destination("Mumbai").build();
+        when(elasticsearchOperations.multiSearch(anyList(), eq(BusSearchDocument.class)))
+                .thenReturn(List.of(searchHits(null), searchHits(null)));
+
+        // When
+        List<SearchHits<BusSearchDocument>> legs = elasticsearchService.searchLegs(List.of(request, inbound));
+
+        // Then
+        assertEquals(2, legs.size());
+        ArgumentCaptor<List<NativeQuery>> queries = ArgumentCaptor.forClass(List.class);
+        verify(elasticsearchOperations, times(1)).multiSearch(queries.capture(), eq(BusSearchDocument.class));
+        verify(elasticsearchOperations, never()).search(any(NativeQuery.class), eq(BusSearchDocument.class));
+        assertEquals(2, queries.getValue().size());
+        for (NativeQuery query : queries.getValue()) {
+            assertEquals(1, query.getAggregations().size());
+            assertTrue(query.getAggregations().values().iterator().next().isStats());
+        }
+        assertTrue(queries.getValue().get(1).getQuery().toString().contains("\"origin.keyword\":{\"value\":\"Pune\"}"));
+    }
+
+    @Test
+    void priceStats_ReadsTheLegsStatsAggregation() {
+        // Given
+        Aggregate stats = Aggregate.of(a -> a.stats(st -> st.count(3).min(400.0).max(900.0).avg(600.0).sum(1800.0)));
+        SearchHits<BusSearchDocument> searchHits = searchHits(new ElasticsearchAggregations(Map.of("priceStats", stats)));
+
+        // When
+        Optional<StatsAggregate> result = elasticsearchService.priceStats(searchHits);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(400.0, result.get().min());
+        assertEquals(900.0, result.get().max());
+    }
+
+    @Test
+    void priceStats_EmptyWhenTheLegMatchedNothing() {
+        // Given
+        Aggregate stats = Aggregate.of(a -> a.stats(st -> st.count(0).min(0.0).max(0.0).avg(0.0).sum(0.0)));
+        SearchHits<BusSearchDocument> searchHits = searchHits(new ElasticsearchAggregations(Map.of("priceStats", stats)));
+
+        // When & Then
+        assertTrue(elasticsearchService.priceStats(searchHits).isEmpty());
+        assertTrue(elasticsearchService.priceStats(searchHits(null)).isEmpty());
+    }
+
+    private Schedule schedule(Long id, List<Integer> daysOfWeek) {
+        BusOperator operator = BusOperator.builder().id(1L).name("Test Operator").build();
+        Bus bus = Bus.builder()
+                .id(1L)
+                .busNumber("BUS001")
+                .busType(Bus.BusType.AC)
+                .totalSeats(40)
+                .operator(operator)
+                .build();
+        Route route = Route.builder().id(1L).origin("Mumbai").destination("Pune").build();
+        return Schedule.builder()
+                .id(id)
+                .bus(bus)
+                .route(route)
+                .departureTime(LocalTime.of(10, 0))
+                .arrivalTime(LocalTime.of(14, 0))
+                .price(BigDecimal.valueOf(500))
+                .daysOfWeek(daysOfWeek)
+                .build();
+    }
+
+    private BoardingPoint boardingPoint(Long id, String name) {
+        return BoardingPoint.builder()
+                .id(id)
+                .name(name)
+                .pointType(BoardingPoint.PointType.BOARDING)
+                .latitude(BigDecimal.valueOf(19.0))
+                .longitude(BigDecimal.valueOf(72.8))
+                .build();
+    }
+
+    // The hashes the index holds for the schedule as it is now, one per horizon date
+    private Map<String, String> contentHashes(Schedule schedule) {
+        Map<String, String> hashes = new HashMap<>();
+        for (int day = 0; day < 2; day++) {
+            BusSearchDocument document = BusSearchDocument.fromSchedule(schedule, LocalDate.now().plusDays(day), 0L);
+            hashes.put(document.getId(), document.getContentHash());
+        }
+        return hashes;
+    }
+
+    private NativeQuery capturedQuery() {
+        ArgumentCaptor<NativeQuery> query = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations).search(query.capture(), eq(BusSearchDocument.class));
+        return query.getValue();
+    }
+
+    private SearchHits<BusSearchDocument> searchHits(ElasticsearchAggregations aggregations) {
+        return new SearchHitsImpl<>(0, TotalHitsRelation.EQUAL_TO, 0f, null, null, List.of(), aggregations, null);
+    }
+}
@@ -0,0 +1,85 @@
+package com.redbus.service;
+
+import com.redbus.dto.FareCalendarDay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FareCalendarServiceTest {
+
+    @Mock
+    private ElasticsearchService elasticsearchService;
+
+    @Mock
+    private CityIndexService cityIndexService;
+
+    @InjectMocks
+    private FareCalendarService fareCalendarService;
+
+    private final LocalDate startDate = LocalDate.of(2026, 10, 19);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fareCalendarService, "maxDays", 31);
+        ReflectionTestUtils.setField(fareCalendarService, "cacheTtlMillis", 60000L);
+        lenient().when(cityIndexService.resolveCity(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void getFareCalendar_QueriesEveryDayInOneCall() {
+        // Given
+        when(elasticsearchService.fareCalendar(eq("Mumbai"), eq("Pune"), anyList())).thenReturn(List.of(
+                FareCalendarDay.builder().date(startDate).minFare(BigDecimal.valueOf(450)).tripCount(3L).build(),
+                FareCalendarDay.builder().date(startDate.plusDays(1)).tripCount(0L).build()));
+
+        // When
+        List<FareCalendarDay> result = fareCalendarService.getFareCalendar("Mumbai", "Pune", startDate, 2);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(BigDecimal.valueOf(450), result.get(0).getMinFare());
+        assertNull(result.get(1).getMinFare());
+        verify(elasticsearchService).fareCalendar("Mumbai", "Pune", List.of(startDate, startDate.plusDays(1)));
+    }
+
+    @Test
+    void getFareCalendar_ServesRepeatRequestsFromCache() {
+        // Given
+        when(elasticsearchService.fareCalendar(anyString(), anyString(), anyList())).thenReturn(List.of());
+
+        // When
+        fareCalendarService.getFareCalendar("Mumbai", "Pune", startDate, 7);
+        fareCalendarService.getFareCalendar("mumbai", "pune", startDate, 7);
+        fareCalendarService.getFareCalendar("Mumbai", "Pune", startDate, 14);
+
+        // Then
+        verify(elasticsearchService, times(2)).fareCalendar(anyString(), anyString(), anyList());
+    }
+
+    @Test
+    void getFareCalendar_RejectsWindowBeyondLimit() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            fareCalendarService.getFareCalendar("Mumbai", "Pune", startDate, 60);
+        });
+
+        assertEquals("Days must be between 1 and 31", exception.getMessage());
+        verify(elasticsearchService, never()).fareCalendar(anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,222 @@
+package com.redbus.service;
+
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.dto.SyncPartitionStatus;
+import com.redbus.entity.Schedule;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.util.Throttle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedSyncServiceTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private ElasticsearchService elasticsearchService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Throttle throttle;
+
+    @InjectMocks
+    private PartitionedSyncService partitionedSyncService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(partitionedSyncService, "partitions", 8);
+        ReflectionTestUtils.setField(partitionedSyncService, "concurrency", 4);
+        ReflectionTestUtils.setField(partitionedSyncService, "batchSize", 5);
+        partitionedSyncService.init();
+        // Every id in the range exists, and every chunk syncs cleanly unless a test says otherwise
+        lenient().when(scheduleRepository.streamByIdRangeWithDetails(anyLong(), anyLong())).thenAnswer(invocation ->
+                schedules(invocation.getArgument(0), invocation.getArgument(1)));
+        lenient().when(elasticsearchService.syncSchedules(anyList(), any())).thenAnswer(invocation ->
+                result(invocation.<List<Schedule>>getArgument(0), Set.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        partitionedSyncService.shutdown();
+    }
+
+    @Test
+    void syncAll_PartitionsCoverEveryIdOnceWithoutGaps() {
+        // Given
+        givenIds(3L, 103L);
+        SyncJob job = new SyncJob("FULL");
+
+        // When
+        List<SyncPartitionStatus> statuses = partitionedSyncService.syncAll(job);
+
+        // Then
+        assertEquals(8, statuses.size());
+        assertSame(statuses, job.getPartitions());
+        assertEquals(3L, statuses.get(0).getFromId());
+        for (int i = 1; i < statuses.size(); i++) {
+            assertEquals(statuses.get(i - 1).getToId() + 1, statuses.get(i).getFromId());
+        }
+        assertEquals(103L, statuses.get(statuses.size() - 1).getToId());
+        assertTrue(statuses.stream().allMatch(status -> "COMPLETED".equals(status.getState())));
+        assertEquals(101, statuses.stream().mapToInt(SyncPartitionStatus::getSchedules).sum());
+    }
+
+    @Test
+    void syncAll_DrawsEveryChunkFromTheSyncThrottle() throws InterruptedException {
+        // Given
+        givenIds(1L, 80L);
+
+        // When
+        partitionedSyncService.syncAll(new SyncJob("FULL"));
+
+        // Then
+        verify(throttle, times(16)).acquire(5);
+    }
+
+    @Test
+    void syncAll_FewerIdsThanPartitionsGivesOnePartitionPerId() {
+        // Given
+        givenIds(10L, 12L);
+
+        // When
+        List<SyncPartitionStatus> statuses = partitionedSyncService.syncAll(new SyncJob("FULL"));
+
+        // Then
+        assertEquals(3, statuses.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(10L + i, statuses.get(i).getFromId());
+            assertEquals(10L + i, statuses.get(i).getToId());
+        }
+    }
+
+    @Test
+    void syncAll_EmptyTableSyncsNothing() {
+        // Given
+        when(scheduleRepository.findMinId()).thenReturn(null);
+        when(scheduleRepository.findMaxId()).thenReturn(null);
+
+        // When
+        List<SyncPartitionStatus> statuses = partitionedSyncService.syncAll(new SyncJob("FULL"));
+
+        // Then
+        assertTrue(statuses.isEmpty());
+        verify(elasticsearchService, never()).syncSchedules(anyList(), any());
+        assertFalse(partitionedSyncService.isRunning());
+    }
+
+    @Test
+    void syncAll_FailedPartitionDoesNotStopTheOthers() {
+        // Given
+        givenIds(1L, 80L);
+        when(scheduleRepository.streamByIdRangeWithDetails(21L, 30L))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        // When
+        List<SyncPartitionStatus> statuses = partitionedSyncService.syncAll(new SyncJob("FULL"));
+
+        // Then
+        SyncPartitionStatus failed = statuses.get(2);
+        assertEquals("FAILED", failed.getState());
+        assertEquals("connection reset", failed.getError());
+        assertNotNull(failed.getFinishedAt());
+        assertEquals(7, statuses.stream().filter(status -> "COMPLETED".equals(status.getState())).count());
+        assertEquals(70, statuses.stream().mapToInt(SyncPartitionStatus::getSchedules).sum());
+    }
+
+    @Test
+    void syncAll_RecordsFailedScheduleIdsPerPartition() {
+        // Given
+        givenIds(1L, 80L);
+        when(elasticsearchService.syncSchedules(anyList(), any())).thenAnswer(invocation -> {
+            List<Schedule> chunk = invocation.getArgument(0);
+            Set<Long> failed = chunk.stream()
+                    .map(Schedule::getId)
+                    .filter(id -> id % 25 == 0)
+                    .collect(Collectors.toSet());
+            return result(chunk, failed);
+        });
+        SyncJob job = new SyncJob("FULL");
+
+        // When
+        List<SyncPartitionStatus> statuses = partitionedSyncService.syncAll(job);
+
+        // Then
+        assertEquals(Set.of(25L), statuses.get(2).getFailedScheduleIds());
+        assertEquals(Set.of(50L), statuses.get(4).getFailedScheduleIds());
+        assertEquals(Set.of(75L), statuses.get(7).getFailedScheduleIds());
+        assertTrue(statuses.get(0).getFailedScheduleIds().isEmpty());
+        assertEquals(3, job.snapshot().getFailedSchedules());
+    }
+
+    @Test
+    void syncAll_ConcurrentWorkersAddUpEveryChunk() {
+        // Given
+        ReflectionTestUtils.setField(partitionedSyncService, "batchSize", 3);
+        givenIds(1L, 4000L);
+        Set<Long> synced = ConcurrentHashMap.newKeySet();
+        when(elasticsearchService.syncSchedules(anyList(), any())).thenAnswer(invocation -> {
+            List<Schedule> chunk = invocation.getArgument(0);
+            chunk.forEach(schedule -> assertTrue(synced.add(schedule.getId()), "synced twice: " + schedule.getId()));
+            return result(chunk, Set.of());
+        });
+        SyncJob job = new SyncJob("FULL");
+
+        // When
+        List<SyncPartitionStatus> statuses = partitionedSyncService.syncAll(job);
+
+        // Then
+        assertEquals(4000, synced.size());
+        for (SyncPartitionStatus status : statuses) {
+            int expected = (int) (status.getToId() - status.getFromId() + 1);
+            assertEquals(expected, status.getSchedules());
+            assertEquals(expected * 2, status.getDocuments());
+        }
+        assertEquals(4000, job.snapshot().getProcessedSchedules());
+        assertEquals(8000, job.snapshot().getUpdated());
+    }
+
+    private void givenIds(Long minId, Long maxId) {
+        when(scheduleRepository.findMinId()).thenReturn(minId);
+        when(scheduleRepository.findMaxId()).thenReturn(maxId);
+        when(scheduleRepository.count()).thenReturn(maxId - minId + 1);
+    }
+
+    private static Stream<Schedule> schedules(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId).mapToObj(id -> Schedule.builder().id(id).build());
+    }
+
+    // Two horizon dates per schedule
+    private static BulkIndexResult result(List<Schedule> chunk, Set<Long> failed) {
+        return BulkIndexResult.builder()
+                .schedules(chunk.size())
+                .documents(chunk.size() * 2)
+                .indexed(chunk.size() * 2)
+                .failedScheduleIds(new HashSet<>(failed))
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.redbus.service;
 
 import com.redbus.entity.*;
+import com.redbus.event.BookingChangedEvent;
 import com.redbus.repository.jpa.PaymentRepository;
 import com.redbus.repository.jpa.BookingRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -29,6 +31,9 @@ class PaymentServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -40,6 +45,8 @@ class PaymentServiceTest {
         testBooking = Booking.builder()
                 .id(1L)
                 .bookingReference("BK123")
+                .schedule(Schedule.builder().id(1L).build())
+                .bookingDate(LocalDate.of(2026, 10, 25))
                 .totalAmount(BigDecimal.valueOf(1000))
                 .status(Booking.BookingStatus.CONFIRMED)
                 .build();
@@ -142,6 +149,7 @@ class PaymentServiceTest {
         verify(paymentRepository).findById(1L);
         verify(paymentRepository).save(testPayment);
         verify(bookingRepository).save(testBooking);
+        verify(eventPublisher).publishEvent(new BookingChangedEvent(1L, LocalDate.of(2026, 10, 25)));
     }
 
     @Test
@@ -0,0 +1,113 @@
+package com.redbus.service;
+
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.dto.ReconciliationReport;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.search.DigestRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationServiceTest {
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private ElasticsearchService elasticsearchService;
+
+    @InjectMocks
+    private ReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reconciliationService, "horizonDays", 60);
+        ReflectionTestUtils.setField(reconciliationService, "fanout", 4);
+        ReflectionTestUtils.setField(reconciliationService, "maxRepairs", 10);
+        when(scheduleRepository.findMaxId()).thenReturn(40L);
+        when(elasticsearchService.getMaxIndexedScheduleId()).thenReturn(40L);
+        // every schedule has one document, its digest is the id itself
+        when(scheduleRepository.digestRanges(anyLong(), anyLong(), anyLong(), any(), any())).thenAnswer(invocation -> {
+            long fromId = invocation.getArgument(0);
+            long toId = invocation.getArgument(1);
+            long width = invocation.getArgument(2);
+            List<Object[]> rows = new ArrayList<>();
+            for (long from = fromId; from <= toId; from += width) {
+                long documents = 0;
+                long digest = 0;
+                for (long id = from; id <= Math.min(toId, from + width - 1); id++) {
+                    documents++;
+                    digest += id;
+                }
+                rows.add(new Object[]{(from - fromId) / width, documents, digest});
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    void check_MatchingDigestsAreInSync() {
+        // Given
+        indexDigests(Map.of());
+
+        // When
+        ReconciliationReport report = reconciliationService.check();
+
+        // Then
+        assertTrue(report.isInSync());
+        assertEquals(40, report.getDatabaseDocuments());
+        assertEquals(2, report.getQueries());
+        verify(elasticsearchService, never()).syncChanges(anySet(), anySet(), anySet(), anySet());
+    }
+
+    @Test
+    void reconcile_DrillsDownToStaleScheduleAndRepairsIt() {
+        // Given
+        indexDigests(Map.of(23L, 999L));
+        when(elasticsearchService.syncChanges(anySet(), anySet(), anySet(), anySet()))
+                .thenReturn(BulkIndexResult.builder().failedScheduleIds(Set.of()).build());
+
+        // When
+        ReconciliationReport report = reconciliationService.reconcile();
+
+        // Then
+        assertFalse(report.isInSync());
+        assertEquals(List.of(23L), report.getMismatchedScheduleIds());
+        assertEquals(1, report.getRepairedSchedules());
+        assertTrue(report.getQueries() < 40);
+        verify(elasticsearchService).syncChanges(Set.of(23L), Set.of(), Set.of(), Set.of());
+    }
+
+    // Index side answers like the database except for the overridden per-schedule digests
+    private void indexDigests(Map<Long, Long> stale) {
+        when(elasticsearchService.digestRanges(anyList(), any(), any())).thenAnswer(invocation -> {
+            List<DigestRange> ranges = invocation.getArgument(0);
+            List<DigestRange> digests = new ArrayList<>();
+            for (DigestRange range : ranges) {
+                DigestRange digest = range;
+                for (long id = range.fromId(); id <= range.toId(); id++) {
+                    digest = digest.plus(1, stale.getOrDefault(id, id));
+                }
+                digests.add(digest);
+            }
+            return digests;
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.redbus.service;
 
 import com.redbus.entity.Route;
+import com.redbus.event.RouteChangedEvent;
 import com.redbus.repository.jpa.RouteRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -25,6 +27,9 @@ class RouteServiceTest {
     @Mock
     private RouteRepository routeRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private RouteService routeService;
 
@@ -133,6 +138,7 @@ class RouteServiceTest {
         assertEquals("Pune", result.getDestination());
         verify(routeRepository).findByOriginAndDestination("Mumbai", "Pune");
         verify(routeRepository).save(testRoute);
+        verify(eventPublisher).publishEvent(new RouteChangedEvent(1L));
     }
 
     @Test
@@ -145,6 +151,7 @@ class RouteServiceTest {
         assertThrows(IllegalArgumentException.class, () -> routeService.createRoute(testRoute));
         verify(routeRepository).findByOriginAndDestination("Mumbai", "Pune");
         verify(routeRepository, never()).save(any(Route.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
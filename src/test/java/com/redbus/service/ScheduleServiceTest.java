@@ -1,6 +1,7 @@
 package com.redbus.service;
 
 import com.redbus.entity.*;
+import com.redbus.event.ScheduleChangedEvent;
 import com.redbus.repository.jpa.ScheduleRepository;
 import com.redbus.repository.jpa.BusRepository;
 import com.redbus.repository.jpa.RouteRepository;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalTime;
@@ -36,6 +38,9 @@ class ScheduleServiceTest {
     @Mock
     private ElasticsearchService elasticsearchService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ScheduleService scheduleService;
 
@@ -82,7 +87,7 @@ class ScheduleServiceTest {
     void getAllSchedules_Success() {
         // Given
         List<Schedule> schedules = Arrays.asList(testSchedule);
-        when(scheduleRepository.findAll()).thenReturn(schedules);
+        when(scheduleRepository.findAllWithBusAndRoute()).thenReturn(schedules);
 
         // When
         List<Schedule> result = scheduleService.getAllSchedules();
@@ -90,7 +95,8 @@ class ScheduleServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        verify(scheduleRepository).findAll();
+        verify(scheduleRepository).findAllWithBusAndRoute();
+        verify(scheduleRepository, never()).findAll();
     }
 
     @Test
@@ -187,6 +193,7 @@ class ScheduleServiceTest {
         verify(routeRepository).findById(1L);
         verify(scheduleRepository).save(testSchedule);
         verify(elasticsearchService).indexSchedule(testSchedule);
+        verify(eventPublisher).publishEvent(new ScheduleChangedEvent(1L));
     }
 
     @Test
@@ -239,6 +246,7 @@ class ScheduleServiceTest {
         verify(scheduleRepository).findById(1L);
         verify(scheduleRepository).save(testSchedule);
         verify(elasticsearchService).indexSchedule(testSchedule);
+        verify(eventPublisher).publishEvent(new ScheduleChangedEvent(1L));
     }
 
     @Test
@@ -266,6 +274,7 @@ class ScheduleServiceTest {
         verify(scheduleRepository).findById(1L);
         verify(scheduleRepository).save(testSchedule);
         verify(elasticsearchService).deleteSchedule(1L);
+        verify(eventPublisher).publishEvent(new ScheduleChangedEvent(1L));
     }
 
     @Test
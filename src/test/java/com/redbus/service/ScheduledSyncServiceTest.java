@@ -0,0 +1,265 @@
+package com.redbus.service;
+
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.entity.Schedule;
+import com.redbus.entity.SyncCheckpoint;
+import com.redbus.repository.jpa.ScheduleRepository;
+import com.redbus.repository.jpa.SyncCheckpointRepository;
+import com.redbus.util.Throttle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledSyncServiceTest {
+
+    private static final long TOKEN = 7L;
+    private static final LocalDateTime CHECKPOINT = LocalDateTime.of(2026, 10, 18, 9, 0);
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private SyncCheckpointRepository syncCheckpointRepository;
+
+    @Mock
+    private ElasticsearchService elasticsearchService;
+
+    @Mock
+    private SearchChangeListener searchChangeListener;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SyncLeaseService syncLeaseService;
+
+    @Mock
+    private Throttle throttle;
+
+    @InjectMocks
+    private ScheduledSyncService scheduledSyncService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduledSyncService, "overlapMillis", 60000L);
+        ReflectionTestUtils.setField(scheduledSyncService, "batchSize", 2);
+        lenient().when(syncLeaseService.currentToken()).thenReturn(OptionalLong.of(TOKEN));
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Boolean>>getArgument(0).doInTransaction(null));
+        lenient().when(elasticsearchService.syncSchedules(anyList()))
+                .thenAnswer(invocation -> result(invocation.<List<Schedule>>getArgument(0).size(), Set.of()));
+        lenient().when(syncCheckpointRepository.advance(anyString(), any(), anyString(), anyLong())).thenReturn(1);
+    }
+
+    @Test
+    void syncToElasticsearch_ResumesFromCheckpointLessOverlap() {
+        // Given
+        givenCheckpoint(CHECKPOINT);
+        when(scheduleRepository.findChangedSince(any(), anyLong(), any())).thenReturn(List.of());
+
+        // When
+        boolean ran = scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        assertTrue(ran);
+        verify(scheduleRepository).findChangedSince(CHECKPOINT.minusMinutes(1), 0L, PageRequest.of(0, 2));
+        verify(syncCheckpointRepository, never()).advance(anyString(), any(), anyString(), anyLong());
+    }
+
+    @Test
+    void syncToElasticsearch_ContinuesAfterLastRowWhenTimestampsTieAcrossPages() {
+        // Given
+        LocalDateTime t1 = CHECKPOINT.plusSeconds(1);
+        LocalDateTime t2 = CHECKPOINT.plusSeconds(2);
+        givenCheckpoint(CHECKPOINT);
+        when(scheduleRepository.findChangedSince(CHECKPOINT.minusMinutes(1), 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(1L, t1), schedule(2L, t2)));
+        // Row 3 shares row 2's timestamp, so the next page must key on (t2, 2) rather than t2 alone
+        when(scheduleRepository.findChangedSince(t2, 2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(3L, t2)));
+
+        // When
+        scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        verify(elasticsearchService, times(2)).syncSchedules(anyList());
+        verify(elasticsearchService, times(3)).detach(any(Schedule.class));
+        verify(syncCheckpointRepository).advance("schedules", t2, SyncLeaseService.SYNC_LEASE, TOKEN);
+    }
+
+    @Test
+    void syncToElasticsearch_AdvancesCheckpointAfterEveryPage() throws InterruptedException {
+        // Given
+        LocalDateTime t1 = CHECKPOINT.plusSeconds(1);
+        LocalDateTime t2 = CHECKPOINT.plusSeconds(2);
+        LocalDateTime t3 = CHECKPOINT.plusSeconds(3);
+        givenCheckpoint(CHECKPOINT);
+        when(scheduleRepository.findChangedSince(CHECKPOINT.minusMinutes(1), 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(1L, t1), schedule(2L, t2)));
+        when(scheduleRepository.findChangedSince(t2, 2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(3L, t3)));
+
+        // When
+        scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(throttle).acquire(2);
+        verify(throttle).acquire(1);
+        var inOrder = inOrder(syncCheckpointRepository);
+        inOrder.verify(syncCheckpointRepository).advance("schedules", t2, SyncLeaseService.SYNC_LEASE, TOKEN);
+        inOrder.verify(syncCheckpointRepository).advance("schedules", t3, SyncLeaseService.SYNC_LEASE, TOKEN);
+    }
+
+    @Test
+    void syncToElasticsearch_FailedRowHoldsCheckpointJustBeforeIt() {
+        // Given
+        LocalDateTime t1 = CHECKPOINT.plusSeconds(1);
+        LocalDateTime t2 = CHECKPOINT.plusSeconds(2);
+        LocalDateTime t3 = CHECKPOINT.plusSeconds(3);
+        givenCheckpoint(CHECKPOINT);
+        when(scheduleRepository.findChangedSince(CHECKPOINT.minusMinutes(1), 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(1L, t1), schedule(2L, t2)));
+        when(scheduleRepository.findChangedSince(t2, 2L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(3L, t3)));
+        when(elasticsearchService.syncSchedules(anyList()))
+                .thenReturn(result(1, Set.of(2L)))
+                .thenReturn(result(1, Set.of()));
+
+        // When
+        scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        verify(syncCheckpointRepository).advance("schedules", t2.minusNanos(1), SyncLeaseService.SYNC_LEASE, TOKEN);
+        verify(syncCheckpointRepository, never()).advance(eq("schedules"), eq(t3), anyString(), anyLong());
+    }
+
+    @Test
+    void syncToElasticsearch_StopsWhenLeaseIsLostMidPass() {
+        // Given
+        LocalDateTime t1 = CHECKPOINT.plusSeconds(1);
+        LocalDateTime t2 = CHECKPOINT.plusSeconds(2);
+        givenCheckpoint(CHECKPOINT);
+        when(scheduleRepository.findChangedSince(CHECKPOINT.minusMinutes(1), 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(1L, t1), schedule(2L, t2)));
+        when(syncCheckpointRepository.advance(anyString(), any(), anyString(), anyLong())).thenReturn(0);
+
+        // When
+        scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        verify(scheduleRepository, times(1)).findChangedSince(any(), anyLong(), any());
+    }
+
+    @Test
+    void syncToElasticsearch_StopsBetweenPagesOnceTheTokenIsGone() {
+        // Given
+        LocalDateTime t1 = CHECKPOINT.plusSeconds(1);
+        LocalDateTime t2 = CHECKPOINT.plusSeconds(2);
+        givenCheckpoint(CHECKPOINT);
+        when(scheduleRepository.findChangedSince(CHECKPOINT.minusMinutes(1), 0L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(schedule(1L, t1), schedule(2L, t2)));
+        // Held at the start and for the first page, then lapsed before the second
+        when(syncLeaseService.currentToken())
+                .thenReturn(OptionalLong.of(TOKEN), OptionalLong.of(TOKEN), OptionalLong.empty());
+
+        // When
+        scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        verify(scheduleRepository, times(1)).findChangedSince(any(), anyLong(), any());
+        verify(elasticsearchService, times(1)).syncSchedules(anyList());
+    }
+
+    @Test
+    void syncToElasticsearch_StopsWhenANewerTokenReplacesItsOwn() {
+        // Given
+        givenCheckpoint(CHECKPOINT);
+        when(syncLeaseService.currentToken()).thenReturn(OptionalLong.of(TOKEN), OptionalLong.of(TOKEN + 1));
+
+        // When
+        scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        verifyNoInteractions(scheduleRepository, transactionTemplate);
+    }
+
+    @Test
+    void rollAvailabilityHorizon_ChecksItsOwnTokenBetweenBatches() {
+        // Given
+        when(elasticsearchService.rollHorizon(any())).thenAnswer(invocation -> {
+            BooleanSupplier holdsLease = invocation.getArgument(0);
+            assertTrue(holdsLease.getAsBoolean());
+            when(syncLeaseService.currentToken()).thenReturn(OptionalLong.empty());
+            assertFalse(holdsLease.getAsBoolean());
+            return 0;
+        });
+
+        // When
+        scheduledSyncService.rollAvailabilityHorizon();
+
+        // Then
+        verify(elasticsearchService).rollHorizon(any());
+    }
+
+    @Test
+    void rollAvailabilityHorizon_SkipsWithoutLease() {
+        // Given
+        when(syncLeaseService.currentToken()).thenReturn(OptionalLong.empty());
+
+        // When
+        scheduledSyncService.rollAvailabilityHorizon();
+
+        // Then
+        verifyNoInteractions(elasticsearchService);
+    }
+
+    @Test
+    void syncToElasticsearch_SkipsWithoutLease() {
+        // Given
+        when(syncLeaseService.currentToken()).thenReturn(OptionalLong.empty());
+
+        // When
+        boolean ran = scheduledSyncService.syncToElasticsearch();
+
+        // Then
+        assertFalse(ran);
+        verifyNoInteractions(scheduleRepository, elasticsearchService, transactionTemplate);
+    }
+
+    private void givenCheckpoint(LocalDateTime watermark) {
+        when(syncCheckpointRepository.findById("schedules"))
+                .thenReturn(Optional.of(SyncCheckpoint.builder().name("schedules").watermark(watermark).build()));
+    }
+
+    private BulkIndexResult result(int indexed, Set<Long> failed) {
+        return BulkIndexResult.builder().schedules(indexed).indexed(indexed).failedScheduleIds(failed).build();
+    }
+
+    private Schedule schedule(Long id, LocalDateTime updatedAt) {
+        return Schedule.builder().id(id).updatedAt(updatedAt).build();
+    }
+}
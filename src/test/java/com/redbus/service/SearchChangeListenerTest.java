@@ -0,0 +1,111 @@
+package com.redbus.service;
+
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.search.ChangeBatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchChangeListenerTest {
+
+    private static final long RECONNECT_MILLIS = 200L;
+
+    @Mock
+    private ElasticsearchService elasticsearchService;
+
+    @Mock
+    private SyncLeaseService syncLeaseService;
+
+    @InjectMocks
+    private SearchChangeListener searchChangeListener;
+
+    private final ChangeBatcher<String> batcher = new ChangeBatcher<>(100, 500, 1000);
+
+    @BeforeEach
+    void setUp() {
+        // flush is driven directly; no connection or worker thread is started
+        ReflectionTestUtils.setField(searchChangeListener, "batcher", batcher);
+        ReflectionTestUtils.setField(searchChangeListener, "reconnectMillis", RECONNECT_MILLIS);
+        ReflectionTestUtils.setField(searchChangeListener, "running", true);
+        lenient().when(syncLeaseService.isLeader()).thenReturn(true);
+        lenient().when(elasticsearchService.syncChanges(any(), any(), any(), any()))
+                .thenReturn(BulkIndexResult.builder().build());
+    }
+
+    @Test
+    void flush_SortsPayloadsByTableIntoOneSync() {
+        // Given
+        batcher.add("schedules:1");
+        batcher.add("buses:2");
+        batcher.add("routes:3");
+        batcher.add("bus_operators:4");
+        batcher.add("schedules:5");
+
+        // When
+        searchChangeListener.flush();
+
+        // Then
+        verify(elasticsearchService).syncChanges(Set.of(1L, 5L), Set.of(2L), Set.of(3L), Set.of(4L));
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    void flush_SkipsMalformedAndUnknownPayloads() {
+        // Given
+        batcher.add("schedules:7");
+        batcher.add("schedules:seven");
+        batcher.add("no-separator");
+        batcher.add("bookings:9");
+        batcher.add(":8");
+
+        // When
+        searchChangeListener.flush();
+
+        // Then
+        verify(elasticsearchService).syncChanges(Set.of(7L), Set.of(), Set.of(), Set.of());
+    }
+
+    @Test
+    void flush_DiscardsChangesWhenNotTheLeader() {
+        // Given
+        when(syncLeaseService.isLeader()).thenReturn(false);
+        batcher.add("schedules:1");
+
+        // When
+        searchChangeListener.flush();
+
+        // Then
+        verifyNoInteractions(elasticsearchService);
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    void flush_RequeuesTheBatchAndPausesOnFailure() {
+        // Given
+        when(elasticsearchService.syncChanges(any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("cluster unavailable"));
+        batcher.add("schedules:1");
+        batcher.add("routes:3");
+
+        // When
+        long started = System.nanoTime();
+        searchChangeListener.flush();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000L;
+
+        // Then
+        assertEquals(2, batcher.size());
+        assertEquals(Set.of("schedules:1", "routes:3"), batcher.drain());
+        assertTrue(elapsedMillis >= RECONNECT_MILLIS, "paused for " + elapsedMillis + "ms");
+    }
+}
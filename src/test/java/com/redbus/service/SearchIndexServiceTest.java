@@ -0,0 +1,335 @@
+package com.redbus.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.UpdateAliasesRequest;
+import co.elastic.clients.elasticsearch.indices.get_alias.IndexAliases;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import co.elastic.clients.util.ObjectBuilder;
+import com.redbus.document.BusSearchDocument;
+import com.redbus.entity.Bus;
+import com.redbus.entity.BusOperator;
+import com.redbus.entity.Route;
+import com.redbus.entity.Schedule;
+import com.redbus.repository.jpa.BookingRepository;
+import com.redbus.repository.jpa.ScheduleRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchIndexServiceTest {
+
+    private static final String LIVE_INDEX = "buses_v" + BusSearchDocument.MAPPING_VERSION + "_1";
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private ElasticsearchClient elasticsearchClient;
+
+    @Mock
+    private ElasticsearchIndicesClient indicesClient;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Mock
+    private ScheduleRepository scheduleRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SyncLeaseService syncLeaseService;
+
+    @InjectMocks
+    private SearchIndexService searchIndexService;
+
+    private final IndexCoordinates alias = IndexCoordinates.of(BusSearchDocument.READ_ALIAS);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(searchIndexService, "horizonDays", 3);
+        ReflectionTestUtils.setField(searchIndexService, "bulkSize", 1000);
+        ReflectionTestUtils.setField(searchIndexService, "bulkMaxBytes", 5242880L);
+        ReflectionTestUtils.setField(searchIndexService, "bulkRetries", 0);
+        ReflectionTestUtils.setField(searchIndexService, "replicas", 1);
+        ReflectionTestUtils.setField(searchIndexService, "refreshInterval", "1s");
+        // The alias already exists, so writes never create one
+        ReflectionTestUtils.setField(searchIndexService, "aliasReady", true);
+        ReflectionTestUtils.setField(searchIndexService, "upgradeCheckMillis", 10L);
+        lenient().when(elasticsearchClient.indices()).thenReturn(indicesClient);
+        lenient().when(syncLeaseService.isLeader()).thenReturn(true);
+    }
+
+    @Test
+    void rebuild_LoadsNewIndexAndSwapsAliasInOneCall() throws IOException {
+        // Given
+        givenRebuildableIndex(Stream.of(schedule(1L)));
+
+        // When
+        searchIndexService.rebuild();
+
+        // Then
+        String target = rebuildTarget();
+        verify(elasticsearchOperations).bulkIndex(anyList(), eq(IndexCoordinates.of(target)));
+
+        List<Action> actions = aliasActions();
+        assertEquals(2, actions.size());
+        assertEquals(target, actions.get(0).add().index());
+        assertEquals(LIVE_INDEX, actions.get(1).remove().index());
+        verify(indicesClient).delete(any(Function.class));
+        assertEquals("COMPLETED", searchIndexService.getStatus().getState());
+        assertEquals(3, searchIndexService.getStatus().getIndexedDocuments());
+        assertFalse(searchIndexService.isRebuilding());
+    }
+
+    @Test
+    void rebuild_CopiesDocumentsWrittenDuringTheLoadFromTheLiveIndex() throws IOException {
+        // Given
+        BusSearchDocument written = BusSearchDocument.builder().id("7_2026-10-19").scheduleId(7L).availableSeats(12).build();
+        givenRebuildableIndex(Stream.of(schedule(1L)).onClose(() -> searchIndexService.save(written)));
+        when(elasticsearchOperations.get(written.getId(), BusSearchDocument.class, alias)).thenReturn(written);
+
+        // When
+        searchIndexService.rebuild();
+
+        // Then
+        IndexCoordinates target = IndexCoordinates.of(rebuildTarget());
+        verify(elasticsearchOperations).save(written, alias);
+        // Once mirrored while the load ran, once more by catch-up after it
+        verify(elasticsearchOperations, times(2)).save(written, target);
+        verify(elasticsearchOperations).get(written.getId(), BusSearchDocument.class, alias);
+    }
+
+    @Test
+    void rebuild_DropsDocumentsDeletedDuringTheLoad() throws IOException {
+        // Given
+        givenRebuildableIndex(Stream.of(schedule(1L)).onClose(() -> searchIndexService.delete("1_2026-10-19")));
+
+        // When
+        searchIndexService.rebuild();
+
+        // Then
+        IndexCoordinates target = IndexCoordinates.of(rebuildTarget());
+        verify(elasticsearchOperations).get("1_2026-10-19", BusSearchDocument.class, alias);
+        verify(elasticsearchOperations, times(2)).delete("1_2026-10-19", target);
+    }
+
+    @Test
+    void rebuild_ReplaysUpdateByQueryIssuedDuringTheLoad() throws IOException {
+        // Given
+        Query byBus = Query.of(q -> q.term(t -> t.field("busId").value(3L)));
+        givenRebuildableIndex(Stream.of(schedule(1L))
+                .onClose(() -> searchIndexService.updateByQuery(byBus, "ctx._source.busNumber = params.busNumber;",
+                        Map.of("busNumber", "MH12"))));
+        when(elasticsearchOperations.updateByQuery(any(UpdateQuery.class), any(IndexCoordinates.class)))
+                .thenReturn(ByQueryResponse.builder().withUpdated(1).build());
+
+        // When
+        searchIndexService.rebuild();
+
+        // Then
+        IndexCoordinates target = IndexCoordinates.of(rebuildTarget());
+        verify(elasticsearchOperations).updateByQuery(any(UpdateQuery.class), eq(alias));
+        // Mirrored while the bulk load could still overwrite it, then replayed on top of the load
+        verify(elasticsearchOperations, times(2)).updateByQuery(any(UpdateQuery.class), eq(target));
+    }
+
+    @Test
+    void rebuild_FailureDropsTargetAndLeavesAliasAlone() throws IOException {
+        // Given
+        givenNewIndex();
+        when(bookingRepository.countHeldSeatsBetween(any(), any(), any())).thenReturn(List.of());
+        when(scheduleRepository.count()).thenReturn(1L);
+        doThrow(new IllegalStateException("cursor lost")).when(transactionTemplate).executeWithoutResult(any());
+
+        // When
+        searchIndexService.rebuild();
+
+        // Then
+        assertEquals("FAILED", searchIndexService.getStatus().getState());
+        assertEquals("cursor lost", searchIndexService.getStatus().getError());
+        verify(indicesClient, never()).updateAliases(any(Function.class));
+        verify(indicesClient).delete(any(Function.class));
+        assertFalse(searchIndexService.isRebuilding());
+    }
+
+    @Test
+    void rebuild_WithoutTheSyncLeaseLeavesTheIndexAlone() {
+        // Given
+        when(syncLeaseService.isLeader()).thenReturn(false);
+
+        // When
+        searchIndexService.rebuild();
+
+        // Then
+        verifyNoInteractions(elasticsearchOperations, indicesClient, scheduleRepository);
+        assertFalse(searchIndexService.isRebuilding());
+    }
+
+    @Test
+    void rebuild_LeaseLostDuringTheLoadDropsTheNewIndexWithoutSwapping() throws IOException {
+        // Given
+        givenRebuildableIndex(Stream.of(schedule(1L)));
+        when(syncLeaseService.isLeader()).thenReturn(true, false);
+
+        // When
+        searchIndexService.rebuild();
+
+        // Then
+        assertEquals("FAILED", searchIndexService.getStatus().getState());
+        verify(indicesClient, never()).updateAliases(any(Function.class));
+        verify(indicesClient).delete(any(Function.class));
+    }
+
+    @Test
+    void onApplicationReady_FollowerWaitsForTheHolderToUpgradeTheIndex() throws IOException {
+        // Given
+        when(syncLeaseService.isLeader()).thenReturn(false);
+        when(indicesClient.existsAlias(any(Function.class))).thenReturn(new BooleanResponse(true));
+        when(indicesClient.getAlias(any(Function.class)))
+                .thenReturn(aliasOf("buses_v0_1"), aliasOf("buses_v0_1"), aliasOf(LIVE_INDEX));
+
+        // When
+        searchIndexService.onApplicationReady();
+
+        // Then
+        verify(indicesClient, times(3)).getAlias(any(Function.class));
+        verify(elasticsearchOperations, never()).indexOps(any(IndexCoordinates.class));
+        verify(indicesClient, never()).updateAliases(any(Function.class));
+    }
+
+    @Test
+    void updateHeldSeats_SkipsMissingDocumentsAndReturnsRealFailures() {
+        // Given
+        doThrow(new BulkFailureException("bulk failed", Map.of(
+                "1_2026-10-19", new BulkFailureException.FailureDetails(404, "document_missing_exception"),
+                "2_2026-10-19", new BulkFailureException.FailureDetails(429, "es_rejected_execution_exception"))))
+                .when(elasticsearchOperations).bulkUpdate(anyList(), eq(alias));
+
+        // When
+        Set<String> failed = searchIndexService.updateHeldSeats(Map.of("1_2026-10-19", 3L, "2_2026-10-19", 5L));
+
+        // Then
+        assertEquals(Set.of("2_2026-10-19"), failed);
+    }
+
+    @Test
+    void updateHeldSeats_MirrorsToRebuildTargetEvenWhenTheLiveWriteFails() {
+        // Given
+        IndexCoordinates target = IndexCoordinates.of("buses_v" + BusSearchDocument.MAPPING_VERSION + "_2");
+        ReflectionTestUtils.setField(searchIndexService, "rebuildTarget", target.getIndexName());
+        doThrow(new IllegalStateException("connection reset")).when(elasticsearchOperations).bulkUpdate(anyList(), eq(alias));
+
+        // When
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> searchIndexService.updateHeldSeats(Map.of("1_2026-10-19", 3L)));
+
+        // Then
+        assertEquals("connection reset", thrown.getMessage());
+        verify(elasticsearchOperations).bulkUpdate(anyList(), eq(target));
+    }
+
+    private void givenRebuildableIndex(Stream<Schedule> schedules) throws IOException {
+        givenNewIndex();
+        when(bookingRepository.countHeldSeatsBetween(any(), any(), any())).thenReturn(List.of());
+        when(scheduleRepository.count()).thenReturn(1L);
+        when(scheduleRepository.streamAllWithDetails()).thenReturn(schedules);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(indicesClient.existsAlias(any(Function.class))).thenReturn(new BooleanResponse(true));
+        when(indicesClient.getAlias(any(Function.class))).thenReturn(GetAliasResponse.of(g -> g
+                .result(LIVE_INDEX, IndexAliases.of(i -> i.aliases(Map.of())))));
+    }
+
+    private void givenNewIndex() {
+        when(elasticsearchOperations.indexOps(any(IndexCoordinates.class))).thenReturn(indexOperations);
+        when(indexOperations.createSettings(BusSearchDocument.class)).thenReturn(new Settings());
+        when(indexOperations.createMapping(BusSearchDocument.class)).thenReturn(Document.create());
+    }
+
+    private GetAliasResponse aliasOf(String index) {
+        return GetAliasResponse.of(g -> g.result(index, IndexAliases.of(i -> i.aliases(Map.of()))));
+    }
+
+    // The versioned index the rebuild created, taken from the indexOps call that created it
+    private String rebuildTarget() {
+        ArgumentCaptor<IndexCoordinates> created = ArgumentCaptor.forClass(IndexCoordinates.class);
+        verify(elasticsearchOperations, atLeastOnce()).indexOps(created.capture());
+        String target = created.getAllValues().get(0).getIndexName();
+        assertTrue(target.startsWith("buses_v" + BusSearchDocument.MAPPING_VERSION + "_"), target);
+        return target;
+    }
+
+    private List<Action> aliasActions() throws IOException {
+        ArgumentCaptor<Function<UpdateAliasesRequest.Builder, ObjectBuilder<UpdateAliasesRequest>>> request =
+                ArgumentCaptor.forClass(Function.class);
+        verify(indicesClient).updateAliases(request.capture());
+        return request.getValue().apply(new UpdateAliasesRequest.Builder()).build().actions();
+    }
+
+    private Schedule schedule(Long id) {
+        BusOperator operator = BusOperator.builder().id(1L).name("Test Operator").build();
+        Bus bus = Bus.builder()
+                .id(1L)
+                .busNumber("BUS001")
+                .busType(Bus.BusType.AC)
+                .totalSeats(40)
+                .operator(operator)
+                .build();
+        Route route = Route.builder().id(1L).origin("Mumbai").destination("Pune").build();
+        return Schedule.builder()
+                .id(id)
+                .bus(bus)
+                .route(route)
+                .departureTime(LocalTime.of(10, 0))
+                .arrivalTime(LocalTime.of(14, 0))
+                .price(BigDecimal.valueOf(500))
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.redbus.service;
+
+import com.redbus.dto.ReconciliationReport;
+import com.redbus.dto.SyncJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SyncJobServiceTest {
+
+    @Mock
+    private PartitionedSyncService partitionedSyncService;
+
+    @Mock
+    private ScheduledSyncService scheduledSyncService;
+
+    @Mock
+    private ReconciliationService reconciliationService;
+
+    @InjectMocks
+    private SyncJobService syncJobService;
+
+    @BeforeEach
+    void setUp() {
+        syncJobService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncJobService.shutdown();
+    }
+
+    @Test
+    void submitReconcile_RunsOffTheCallerAndKeepsTheReportOnTheJob() throws InterruptedException {
+        // Given
+        ReconciliationReport report = report(false, 3);
+        CountDownLatch release = new CountDownLatch(1);
+        when(reconciliationService.reconcile()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return report;
+        });
+
+        // When
+        SyncJobStatus queued = syncJobService.submitReconcile();
+
+        // Then
+        assertEquals("RECONCILE", queued.getType());
+        assertNull(queued.getReconciliation());
+        assertTrue(syncJobService.getLastReconciliation().isEmpty());
+        release.countDown();
+        SyncJobStatus finished = awaitFinished(queued.getJobId());
+        assertEquals("COMPLETED", finished.getState());
+        assertSame(report, finished.getReconciliation());
+        assertSame(report, syncJobService.getLastReconciliation().orElseThrow());
+        verify(reconciliationService, never()).check();
+    }
+
+    @Test
+    void submitReconcile_SecondRequestWhileOneIsActiveIsRejected() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        when(reconciliationService.reconcile()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return report(true, 0);
+        });
+        SyncJobStatus first = syncJobService.submitReconcile();
+
+        // When / Then
+        assertThrows(IllegalStateException.class, syncJobService::submitReconcile);
+        assertEquals(first.getJobId(), syncJobService.getActiveReconcile().orElseThrow().getJobId());
+        release.countDown();
+        awaitFinished(first.getJobId());
+        assertTrue(syncJobService.getActiveReconcile().isEmpty());
+    }
+
+    @Test
+    void submitReconcile_FailureIsRecordedAndKeepsThePreviousReport() throws InterruptedException {
+        // Given
+        ReconciliationReport earlier = report(true, 0);
+        when(reconciliationService.reconcile())
+                .thenReturn(earlier)
+                .thenThrow(new IllegalStateException("index not found"));
+        awaitFinished(syncJobService.submitReconcile().getJobId());
+
+        // When
+        SyncJobStatus failed = awaitFinished(syncJobService.submitReconcile().getJobId());
+
+        // Then
+        assertEquals("FAILED", failed.getState());
+        assertEquals("index not found", failed.getError());
+        assertNull(failed.getReconciliation());
+        assertSame(earlier, syncJobService.getLastReconciliation().orElseThrow());
+    }
+
+    private SyncJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            SyncJobStatus status = syncJobService.getJob(jobId).orElseThrow();
+            if (status.getFinishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("job " + jobId + " did not finish");
+    }
+
+    private ReconciliationReport report(boolean inSync, int repaired) {
+        return ReconciliationReport.builder()
+                .inSync(inSync)
+                .mismatchedScheduleIds(List.of())
+                .repairedSchedules(repaired)
+                .checkedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.redbus.service;
+
+import com.redbus.dto.BulkIndexResult;
+import com.redbus.dto.SyncJobStatus;
+import com.redbus.dto.SyncPartitionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncJobTest {
+
+    @Test
+    void snapshot_HandsOutCopiesOfThePartitions() {
+        // Given
+        SyncPartitionStatus partition = partition(0);
+        partition.add(result(10, Set.of(4L)));
+        SyncJob job = new SyncJob("FULL");
+        job.setPartitions(List.of(partition));
+
+        // When
+        SyncJobStatus status = job.snapshot();
+        partition.add(result(5, Set.of(7L)));
+        partition.setState("COMPLETED");
+
+        // Then
+        SyncPartitionStatus copy = status.getPartitions().get(0);
+        assertNotSame(partition, copy);
+        assertEquals(10, copy.getSchedules());
+        assertEquals(Set.of(4L), copy.getFailedScheduleIds());
+        assertEquals("RUNNING", copy.getState());
+        assertEquals(10, status.getProcessedSchedules());
+        assertEquals(15, job.snapshot().getProcessedSchedules());
+    }
+
+    @Test
+    void snapshot_ReadsConsistentCountersWhileAWorkerAddsChunks() {
+        // Given
+        SyncPartitionStatus partition = partition(0);
+        SyncJob job = new SyncJob("FULL");
+        job.setPartitions(List.of(partition));
+
+        // When
+        CompletableFuture<Void> worker = CompletableFuture.runAsync(() -> {
+            for (long id = 1; id <= 20000; id++) {
+                partition.add(result(1, Set.of(id)));
+            }
+        });
+        while (!worker.isDone()) {
+            SyncJobStatus status = job.snapshot();
+            // Then
+            assertEquals(status.getProcessedSchedules() * 2, status.getDocuments());
+            assertEquals(status.getProcessedSchedules(), status.getFailedSchedules());
+        }
+        worker.join();
+        assertEquals(20000, job.snapshot().getProcessedSchedules());
+    }
+
+    private SyncPartitionStatus partition(int index) {
+        return SyncPartitionStatus.builder()
+                .partition(index)
+                .fromId(1L)
+                .toId(100L)
+                .state("RUNNING")
+                .build();
+    }
+
+    // Two horizon dates per schedule
+    private BulkIndexResult result(int schedules, Set<Long> failed) {
+        return BulkIndexResult.builder()
+                .schedules(schedules)
+                .documents(schedules * 2)
+                .indexed(schedules * 2)
+                .failedScheduleIds(failed)
+                .build();
+    }
+}
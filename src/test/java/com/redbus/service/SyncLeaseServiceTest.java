@@ -0,0 +1,187 @@
+package com.redbus.service;
+
+import com.redbus.repository.jpa.SyncLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SyncLeaseServiceTest {
+
+    @Mock
+    private SyncLeaseRepository syncLeaseRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SyncLeaseService syncLeaseService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(syncLeaseService, "ttlMillis", 15000L);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Long>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void renew_AcquiresLeaseWithItsFencingToken() {
+        // Given
+        givenLeaseGranted(3L);
+
+        // When
+        syncLeaseService.renew();
+
+        // Then
+        assertTrue(syncLeaseService.isLeader());
+        assertEquals(OptionalLong.of(3L), syncLeaseService.currentToken());
+        verify(syncLeaseRepository).acquire(eq(SyncLeaseService.SYNC_LEASE), anyString(), eq(15000L));
+    }
+
+    @Test
+    void init_RenewsOnItsOwnHeartbeatThread() {
+        // Given
+        ReflectionTestUtils.setField(syncLeaseService, "renewMillis", 10L);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(syncLeaseRepository.acquire(anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return 1;
+        });
+        when(syncLeaseRepository.findFencingToken(anyString(), anyString())).thenReturn(Optional.of(3L));
+
+        // When
+        syncLeaseService.init();
+
+        // Then
+        try {
+            verify(syncLeaseRepository, timeout(2000).atLeast(2)).acquire(anyString(), anyString(), anyLong());
+            assertEquals(Set.of("sync-lease"), threads);
+            assertTrue(syncLeaseService.isLeader());
+        } finally {
+            syncLeaseService.release();
+        }
+    }
+
+    @Test
+    void renew_KeepsTheSameTokenWhileTheHolderExtendsIt() {
+        // Given
+        givenLeaseGranted(3L);
+
+        // When
+        syncLeaseService.renew();
+        syncLeaseService.renew();
+
+        // Then
+        assertEquals(OptionalLong.of(3L), syncLeaseService.currentToken());
+        verify(syncLeaseRepository, times(2)).acquire(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void renew_NotLeaderWhileAnotherNodeHoldsTheLease() {
+        // Given
+        when(syncLeaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(0);
+
+        // When
+        syncLeaseService.renew();
+
+        // Then
+        assertFalse(syncLeaseService.isLeader());
+        verify(syncLeaseRepository, never()).findFencingToken(anyString(), anyString());
+    }
+
+    @Test
+    void renew_DropsTheLeaseWhenAnotherNodeTookOver() {
+        // Given
+        givenLeaseGranted(3L);
+        syncLeaseService.renew();
+        when(syncLeaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(0);
+
+        // When
+        syncLeaseService.renew();
+
+        // Then
+        assertTrue(syncLeaseService.currentToken().isEmpty());
+    }
+
+    @Test
+    void renew_DropsTheLeaseWhenTheDatabaseIsUnreachable() {
+        // Given
+        givenLeaseGranted(3L);
+        syncLeaseService.renew();
+        when(syncLeaseRepository.acquire(anyString(), anyString(), anyLong()))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        // When
+        syncLeaseService.renew();
+
+        // Then
+        assertFalse(syncLeaseService.isLeader());
+    }
+
+    @Test
+    void currentToken_ExpiresWithTheTtlWithoutARenewal() throws InterruptedException {
+        // Given
+        ReflectionTestUtils.setField(syncLeaseService, "ttlMillis", 20L);
+        givenLeaseGranted(3L);
+        syncLeaseService.renew();
+        assertTrue(syncLeaseService.isLeader());
+
+        // When
+        Thread.sleep(50);
+
+        // Then
+        assertTrue(syncLeaseService.currentToken().isEmpty());
+    }
+
+    @Test
+    void release_ExpiresTheHeldLease() {
+        // Given
+        givenLeaseGranted(3L);
+        syncLeaseService.renew();
+
+        // When
+        syncLeaseService.release();
+
+        // Then
+        assertFalse(syncLeaseService.isLeader());
+        verify(syncLeaseRepository).release(eq(SyncLeaseService.SYNC_LEASE), anyString());
+    }
+
+    @Test
+    void release_DoesNothingWithoutTheLease() {
+        // When
+        syncLeaseService.release();
+
+        // Then
+        verifyNoInteractions(syncLeaseRepository, transactionTemplate);
+    }
+
+    private void givenLeaseGranted(long token) {
+        when(syncLeaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(1);
+        when(syncLeaseRepository.findFencingToken(eq(SyncLeaseService.SYNC_LEASE), anyString())).thenReturn(Optional.of(token));
+    }
+}
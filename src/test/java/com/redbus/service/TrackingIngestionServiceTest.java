@@ -0,0 +1,191 @@
+package com.redbus.service;
+
+import com.redbus.dto.BusTrackingRequest;
+import com.redbus.dto.BusTrackingResponse;
+import com.redbus.event.BusChangedEvent;
+import com.redbus.repository.jpa.BusRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrackingIngestionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private BusRepository busRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TrackingIngestionService trackingIngestionService;
+
+    @BeforeEach
+    void setUp() {
+        trackingIngestionService = new TrackingIngestionService(jdbcTemplate, busRepository, meterRegistry);
+        ReflectionTestUtils.setField(trackingIngestionService, "capacity", 3);
+        ReflectionTestUtils.setField(trackingIngestionService, "batchSize", 1000);
+        ReflectionTestUtils.setField(trackingIngestionService, "retryMillis", 1L);
+        when(busRepository.findAllIds()).thenReturn(List.of(1L));
+        // The writer thread is only started once the application is ready, so nothing drains here
+        trackingIngestionService.init();
+    }
+
+    @Test
+    void accept_QueuesPingForKnownBus() {
+        // When
+        BusTrackingResponse response = trackingIngestionService.accept(ping(1L));
+
+        // Then
+        assertEquals(1L, response.getBusId());
+        assertNotNull(response.getTimestamp());
+        assertEquals(1.0, meterRegistry.get("tracking.ingest.queue.size").gauge().value());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void accept_UnknownBusRejected() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            trackingIngestionService.accept(ping(999L));
+        });
+
+        assertEquals("Bus not found with id: 999", exception.getMessage());
+        assertEquals(1.0, meterRegistry.get("tracking.ingest.pings").tag("outcome", "unknown_bus").counter().count());
+    }
+
+    @Test
+    void accept_BusAddedAfterRefreshIsKnown() {
+        // Given
+        trackingIngestionService.onBusChanged(new BusChangedEvent(2L));
+
+        // When & Then
+        assertDoesNotThrow(() -> trackingIngestionService.accept(ping(2L)));
+    }
+
+    @Test
+    void accept_FullQueueAnswersTooManyRequests() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            trackingIngestionService.accept(ping(1L));
+        }
+
+        // When & Then
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
+            trackingIngestionService.accept(ping(1L));
+        });
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatusCode());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_WritesQueuedPingsAsOneBatch() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            trackingIngestionService.accept(ping(1L));
+        }
+
+        // When
+        trackingIngestionService.stop();
+
+        // Then
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), eq(3),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(3.0, meterRegistry.get("tracking.ingest.written").counter().count());
+        assertEquals(3, meterRegistry.get("tracking.ingest.latency").timer().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_RejectedRowIsIsolatedAndOnlyItIsDropped() throws Exception {
+        // Given
+        trackingIngestionService.onBusChanged(new BusChangedEvent(2L));
+        trackingIngestionService.accept(ping(1L));
+        trackingIngestionService.accept(ping(2L));
+        trackingIngestionService.accept(ping(1L));
+        // Bus 2 was deleted after it was cached, so its row breaks the foreign key
+        PreparedStatement statement = mock(PreparedStatement.class);
+        lenient().doThrow(new SQLException("violates foreign key constraint")).when(statement).setLong(1, 2L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+                    try {
+                        for (Object row : invocation.<Collection<Object>>getArgument(1)) {
+                            setter.setValues(statement, row);
+                        }
+                    } catch (SQLException e) {
+                        throw new DataIntegrityViolationException(e.getMessage(), e);
+                    }
+                    return new int[0][];
+                });
+
+        // When
+        trackingIngestionService.stop();
+
+        // Then
+        // Whole batch twice, then [1] and [2, 1], then [2] and [1]
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), eq(3),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(2.0, meterRegistry.get("tracking.ingest.written").counter().count());
+        assertEquals(1.0, meterRegistry.get("tracking.ingest.failed").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_OutageDropsTheBatchWithoutSplittingIt() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            trackingIngestionService.accept(ping(1L));
+        }
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new CannotGetJdbcConnectionException("connection refused"));
+
+        // When
+        trackingIngestionService.stop();
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0.0, meterRegistry.get("tracking.ingest.written").counter().count());
+        assertEquals(3.0, meterRegistry.get("tracking.ingest.failed").counter().count());
+    }
+
+    private BusTrackingRequest ping(Long busId) {
+        return BusTrackingRequest.builder()
+                .busId(busId)
+                .latitude(new BigDecimal("19.07600000"))
+                .longitude(new BigDecimal("72.87770000"))
+                .speedKmh(new BigDecimal("42.50"))
+                .build();
+    }
+}
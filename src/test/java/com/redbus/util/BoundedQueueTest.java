@@ -0,0 +1,83 @@
+package com.redbus.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedQueueTest {
+
+    @Test
+    void offer_RejectsOnceFull() {
+        // Given
+        BoundedQueue<Integer> queue = new BoundedQueue<>(2);
+
+        // When & Then
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.accepted());
+        assertEquals(1, queue.rejected());
+    }
+
+    @Test
+    void drainTo_TakesOldestFirstUpToMax() {
+        // Given
+        BoundedQueue<Integer> queue = new BoundedQueue<>(10);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        List<Integer> batch = new ArrayList<>();
+
+        // When
+        int drained = queue.drainTo(batch, 3);
+
+        // Then
+        assertEquals(3, drained);
+        assertEquals(List.of(0, 1, 2), batch);
+        assertEquals(2, queue.size());
+        assertTrue(queue.offer(5));
+    }
+
+    @Test
+    void offer_ConcurrentProducersNeverExceedCapacity() throws Exception {
+        // Given
+        BoundedQueue<Integer> queue = new BoundedQueue<>(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    queue.offer(i);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1000, queue.size());
+        assertEquals(1000, queue.accepted());
+        assertEquals(3000, queue.rejected());
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1000, queue.drainTo(drained, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveCapacity() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> new BoundedQueue<>(0));
+    }
+}
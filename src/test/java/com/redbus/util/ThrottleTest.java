@@ -0,0 +1,60 @@
+package com.redbus.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottleTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void reserve_BurstUpToOneSecondThenWaits() {
+        // Given
+        Throttle throttle = new Throttle(100, clock::get);
+
+        // When & Then
+        assertEquals(0, throttle.reserve(100));
+        assertEquals(500 * MILLIS, throttle.reserve(50));
+    }
+
+    @Test
+    void reserve_RefillsWithElapsedTime() {
+        // Given
+        Throttle throttle = new Throttle(100, clock::get);
+        throttle.reserve(100);
+
+        // When
+        clock.addAndGet(200 * MILLIS);
+
+        // Then
+        assertEquals(0, throttle.reserve(20));
+        assertEquals(100 * MILLIS, throttle.reserve(10));
+    }
+
+    @Test
+    void reserve_LaterCallersQueueBehindReservation() {
+        // Given
+        Throttle throttle = new Throttle(100, clock::get);
+        throttle.reserve(150);
+
+        // When
+        long wait = throttle.reserve(10);
+
+        // Then
+        assertEquals(600 * MILLIS, wait);
+    }
+
+    @Test
+    void reserve_ZeroRateIsUnlimited() {
+        // Given
+        Throttle throttle = new Throttle(0, clock::get);
+
+        // When & Then
+        assertEquals(0, throttle.reserve(1_000_000));
+    }
+}